@@ -0,0 +1,77 @@
+package openevolve.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import openevolve.mapelites.CentroidalTessellation;
+
+/**
+ * Nearest-centroid lookup of CVT-MAP-Elites through the k-d tree against a linear scan over the
+ * same centroids, for uniformly distributed descriptors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CentroidalTessellationBenchmark {
+
+	private static final int POINTS = 4096;
+
+	@Param({"2", "5", "10"})
+	public int dimensions;
+
+	@Param({"1000", "10000"})
+	public int centroids;
+
+	private CentroidalTessellation tessellation;
+	private double[][] flat;
+	private double[][] points;
+	private int next;
+
+	@Setup
+	public void setup() {
+		tessellation = CentroidalTessellation.compute(dimensions, centroids, centroids * 5, 5, 42);
+		flat = new double[centroids][];
+		for (int i = 0; i < centroids; i++) {
+			flat[i] = tessellation.centroid(i);
+		}
+		var random = new Random(7);
+		points = new double[POINTS][dimensions];
+		for (var point : points) {
+			for (int k = 0; k < dimensions; k++) {
+				point[k] = random.nextDouble();
+			}
+		}
+	}
+
+	@Benchmark
+	public int kdTree() {
+		var point = points[next++ & (POINTS - 1)];
+		return tessellation.nearest(point);
+	}
+
+	@Benchmark
+	public int linearScan() {
+		var point = points[next++ & (POINTS - 1)];
+		int best = -1;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < flat.length; i++) {
+			double distance = 0.0;
+			for (int k = 0; k < dimensions; k++) {
+				double diff = point[k] - flat[i][k];
+				distance += diff * diff;
+			}
+			if (distance < bestDistance) {
+				bestDistance = distance;
+				best = i;
+			}
+		}
+		return best;
+	}
+}
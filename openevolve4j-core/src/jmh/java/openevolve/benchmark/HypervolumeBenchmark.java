@@ -0,0 +1,108 @@
+package openevolve.benchmark;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import openevolve.mapelites.ParetoComparator;
+import openevolve.mapelites.Repository.Solution;
+import openevolve.mapelites.listener.HypervolumeListener;
+
+/**
+ * Incremental hypervolume updates for a stream of solutions of the ZDT1 (two objectives) and
+ * DTLZ2 (three and five objectives) problems used by the integration tests. Decision vectors are
+ * drawn near the Pareto-optimal region so a good share of them extend the front.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HypervolumeBenchmark {
+
+	private static final int STREAM = 20_000;
+
+	@Param({"ZDT1", "DTLZ2_3", "DTLZ2_5"})
+	public String problem;
+
+	private ParetoComparator<double[]> comparator;
+	private double[] reference;
+	private Solution<double[]>[] stream;
+	private HypervolumeListener<double[]> listener;
+	private int next;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		var random = new Random(42);
+		int objectives = switch (problem) {
+			case "ZDT1" -> 2;
+			case "DTLZ2_3" -> 3;
+			default -> 5;
+		};
+		var maximize = new boolean[objectives];
+		comparator = new ParetoComparator<>(maximize, s -> (double[]) s.fitness().get("f"));
+		reference = new double[objectives];
+		Arrays.fill(reference, objectives == 2 ? 11.0 : 4.0);
+		stream = new Solution[STREAM];
+		for (int i = 0; i < STREAM; i++) {
+			var x = new double[12];
+			for (int j = 0; j < x.length; j++) {
+				// first variables spread along the front, the rest close to the optimum
+				x[j] = j < objectives - 1 ? random.nextDouble() : 0.5 * random.nextDouble() * random.nextDouble();
+			}
+			var f = objectives == 2 ? zdt1(x) : dtlz2(x, objectives);
+			stream[i] = new Solution<>(UUID.randomUUID(), x, null, Map.of("f", f), 0, 0, new int[] {0});
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void reset() {
+		listener = new HypervolumeListener<>(comparator.maximize(), comparator.extractor(),
+				reference, 10_000, new Random(42));
+		next = 0;
+	}
+
+	@Benchmark
+	public double offer() {
+		var solution = stream[next];
+		next = (next + 1) % STREAM;
+		return listener.offer(solution);
+	}
+
+	private static double[] zdt1(double[] x) {
+		double sum = 0.0;
+		for (int i = 1; i < x.length; i++) {
+			sum += x[i];
+		}
+		double g = 1.0 + 9.0 * sum / (x.length - 1);
+		return new double[] {x[0], g * (1.0 - Math.sqrt(x[0] / g))};
+	}
+
+	private static double[] dtlz2(double[] x, int m) {
+		double g = 0.0;
+		for (int i = m - 1; i < x.length; i++) {
+			g += (x[i] - 0.5) * (x[i] - 0.5);
+		}
+		var f = new double[m];
+		for (int i = 0; i < m; i++) {
+			double value = 1.0 + g;
+			for (int j = 0; j < m - 1 - i; j++) {
+				value *= Math.cos(x[j] * Math.PI / 2);
+			}
+			if (i > 0) {
+				value *= Math.sin(x[m - 1 - i] * Math.PI / 2);
+			}
+			f[i] = value;
+		}
+		return f;
+	}
+}
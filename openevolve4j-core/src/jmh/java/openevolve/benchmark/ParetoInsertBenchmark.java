@@ -0,0 +1,76 @@
+package openevolve.benchmark;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import openevolve.EvolveSolution;
+import openevolve.OpenEvolveMetricExtractor;
+import openevolve.mapelites.ParetoComparator;
+import openevolve.mapelites.Repository.Solution;
+
+/**
+ * Builds a {@link TreeSet} ordered the way {@link openevolve.mapelites.DefaultRepository} orders
+ * its population, from solutions that have not been compared before, so every objective vector
+ * is extracted once and then served from the solution's cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParetoInsertBenchmark {
+
+	@Param({"3", "5", "8"})
+	public int objectives;
+
+	@Param({"1000", "10000"})
+	public int solutions;
+
+	private ParetoComparator<EvolveSolution> comparator;
+	private EvolveSolution evolved;
+	private List<Map<String, Object>> fitness;
+	private int[] cell;
+
+	@Setup
+	public void setup() {
+		var random = new Random(42);
+		var names = IntStream.range(0, objectives).mapToObj(i -> "metric_" + i).toList();
+		var maximize = new boolean[objectives];
+		Arrays.fill(maximize, true);
+		comparator = new ParetoComparator<>(maximize, new OpenEvolveMetricExtractor(names, maximize));
+		evolved = new EvolveSolution(null, Path.of("."), Path.of("."), "code", "java", null,
+				Map.of(), false);
+		fitness = new ArrayList<>(solutions);
+		for (int i = 0; i < solutions; i++) {
+			var values = new HashMap<String, Object>();
+			for (var name : names) {
+				values.put(name, random.nextDouble());
+			}
+			fitness.add(values);
+		}
+		cell = new int[] {0};
+	}
+
+	@Benchmark
+	public TreeSet<Solution<EvolveSolution>> insert() {
+		var set = new TreeSet<>(comparator.thenComparing(Solution::id).reversed());
+		for (var values : fitness) {
+			set.add(new Solution<>(UUID.randomUUID(), evolved, null, values, 0, 0, cell));
+		}
+		return set;
+	}
+}
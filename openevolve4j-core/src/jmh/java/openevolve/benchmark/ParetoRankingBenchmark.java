@@ -0,0 +1,64 @@
+package openevolve.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import openevolve.mapelites.ParetoComparator;
+import openevolve.mapelites.ParetoRanking;
+import openevolve.mapelites.Repository.Solution;
+
+/**
+ * Non-dominated sorting plus crowding distance over uniformly random objective vectors. Few
+ * objectives produce many shallow fronts, many objectives leave nearly everything in the first
+ * front, which is the worst case for the per-front dominance scans.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParetoRankingBenchmark {
+
+	@Param({"1000", "10000", "50000"})
+	public int solutions;
+
+	@Param({"2", "3", "5", "10"})
+	public int objectives;
+
+	private ParetoRanking<String> ranking;
+	private List<Solution<String>> population;
+
+	@Setup
+	public void setup() {
+		var random = new Random(42);
+		var maximize = new boolean[objectives];
+		Arrays.fill(maximize, true);
+		var comparator = new ParetoComparator<String>(maximize,
+				s -> (double[]) s.fitness().get("objectives"));
+		ranking = new ParetoRanking<>(comparator);
+		population = new ArrayList<>(solutions);
+		for (int i = 0; i < solutions; i++) {
+			var values = new double[objectives];
+			for (int k = 0; k < objectives; k++) {
+				values[k] = random.nextDouble();
+			}
+			population.add(new Solution<>(UUID.randomUUID(), "s", null,
+					Map.of("objectives", values), 0, 0, new int[] {0}));
+		}
+	}
+
+	@Benchmark
+	public ParetoRanking.Ranking<String> rank() {
+		return ranking.rank(population);
+	}
+}
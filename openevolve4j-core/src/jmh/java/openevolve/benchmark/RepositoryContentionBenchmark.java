@@ -0,0 +1,83 @@
+package openevolve.benchmark;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+import openevolve.mapelites.ConcurrentRepository;
+import openevolve.mapelites.DefaultRepository;
+import openevolve.mapelites.Repository;
+import openevolve.mapelites.Repository.Solution;
+
+/**
+ * Saves and island reads from several threads against {@link DefaultRepository} (single monitor)
+ * and {@link ConcurrentRepository} (per-island stripes).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RepositoryContentionBenchmark {
+
+	@Param({"default", "concurrent"})
+	public String implementation;
+
+	@Param({"1000"})
+	public int populationSize;
+
+	@Param({"4"})
+	public int islands;
+
+	private Repository<String> repository;
+
+	@Setup
+	public void setup() {
+		Comparator<Solution<String>> comparator = Comparator
+				.comparingDouble(s -> (Double) s.fitness().get("fitness"));
+		repository = "concurrent".equals(implementation)
+				? new ConcurrentRepository<>(comparator, populationSize, populationSize / 10, islands)
+				: new DefaultRepository<>(comparator, populationSize, populationSize / 10, islands);
+		for (int i = 0; i < populationSize; i++) {
+			repository.save(solution(i % islands));
+		}
+	}
+
+	@Benchmark
+	@Threads(8)
+	public void save() {
+		repository.save(solution(ThreadLocalRandom.current().nextInt(islands)));
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(4)
+	public void mixedSave() {
+		repository.save(solution(ThreadLocalRandom.current().nextInt(islands)));
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(4)
+	public void mixedRead(Blackhole bh) {
+		int island = ThreadLocalRandom.current().nextInt(islands);
+		bh.consume(repository.findByIslandId(island));
+		bh.consume(repository.best());
+	}
+
+	private Solution<String> solution(int island) {
+		Map<String, Object> fitness = Map.of("fitness", ThreadLocalRandom.current().nextDouble());
+		return new Solution<>(UUID.randomUUID(), "s", null, fitness, 0, island, new int[] {0});
+	}
+}
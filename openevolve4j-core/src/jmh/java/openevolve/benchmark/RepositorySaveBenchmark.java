@@ -0,0 +1,61 @@
+package openevolve.benchmark;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import openevolve.mapelites.DefaultRepository;
+import openevolve.mapelites.Repository.Solution;
+
+/**
+ * Cost of {@link DefaultRepository#save} on a full repository, where every save evicts one
+ * solution from the population and may replace the worst archive member.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositorySaveBenchmark {
+
+	private static final int ISLANDS = 4;
+
+	@Param({"1000", "10000", "100000"})
+	public int populationSize;
+
+	@Param({"100", "10000"})
+	public int archiveSize;
+
+	private DefaultRepository<String> repository;
+	private Random random;
+	private int island;
+
+	@Setup
+	public void setup() {
+		random = new Random(42);
+		Comparator<Solution<String>> comparator = Comparator
+				.comparingDouble(s -> (Double) s.fitness().get("score"));
+		repository = new DefaultRepository<>(comparator, populationSize, archiveSize, ISLANDS);
+		for (int i = 0; i < populationSize; i++) {
+			repository.save(solution(i % ISLANDS));
+		}
+	}
+
+	@Benchmark
+	public void save() {
+		island = (island + 1) % ISLANDS;
+		repository.save(solution(island));
+	}
+
+	private Solution<String> solution(int islandId) {
+		return new Solution<>(UUID.randomUUID(), "code", null, Map.of("score", random.nextDouble()),
+				0, islandId, new int[] {random.nextInt(10), random.nextInt(10)});
+	}
+}
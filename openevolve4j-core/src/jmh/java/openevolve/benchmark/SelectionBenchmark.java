@@ -0,0 +1,86 @@
+package openevolve.benchmark;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import openevolve.Constants;
+import openevolve.EvolveSolution;
+import openevolve.OpenEvolveMetricExtractor;
+import openevolve.OpenEvolveSelection;
+import openevolve.mapelites.DefaultRepository;
+import openevolve.mapelites.ParetoComparator;
+import openevolve.mapelites.Repository.Solution;
+
+/**
+ * Per-iteration selection cost: what {@link OpenEvolveSelection} and {@code OpenEvolveFunction}
+ * read from the repository for one evolution step, with and without a preceding save.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SelectionBenchmark {
+
+	private static final int ISLANDS = 4;
+
+	@Param({"1000", "10000", "100000"})
+	public int solutions;
+
+	private DefaultRepository<EvolveSolution> repository;
+	private OpenEvolveSelection selection;
+	private Random random;
+	private int island;
+
+	@Setup
+	public void setup() {
+		random = new Random(42);
+		var maximize = new boolean[] {true, true};
+		var comparator = new ParetoComparator<EvolveSolution>(maximize,
+				new OpenEvolveMetricExtractor(List.of(Constants.COMBINED_SCORE, "accuracy"), maximize));
+		repository = new DefaultRepository<>(comparator, solutions, solutions / 10, ISLANDS);
+		for (int i = 0; i < solutions; i++) {
+			repository.save(solution(i % ISLANDS));
+		}
+		selection = new OpenEvolveSelection(repository, random, 0.2, 0.5, 0.5, 3, 10);
+	}
+
+	@Benchmark
+	public void select(Blackhole bh) {
+		iteration(bh);
+	}
+
+	@Benchmark
+	public void saveAndSelect(Blackhole bh) {
+		repository.save(solution(island));
+		iteration(bh);
+	}
+
+	private void iteration(Blackhole bh) {
+		island = (island + 1) % ISLANDS;
+		var current = repository.findIslandById(island);
+		var selected = selection.apply(current);
+		bh.consume(selected);
+		// OpenEvolveFunction reads the parent island for top/previous solutions
+		bh.consume(repository.findByIslandId(selected.getFirst().islandId()));
+	}
+
+	private Solution<EvolveSolution> solution(int islandId) {
+		var evolved = new EvolveSolution(null, Path.of("."), Path.of("."), "code", "java", null,
+				Map.of(), false);
+		Map<String, Object> fitness = Map.of(Constants.COMBINED_SCORE, random.nextDouble(),
+				"accuracy", random.nextDouble());
+		return new Solution<>(UUID.randomUUID(), evolved, null, fitness, 0, islandId,
+				new int[] {random.nextInt(10), random.nextInt(10)});
+	}
+}
@@ -15,11 +15,22 @@ public abstract class BaseAgent {
 	protected final Map<String, List<PromptTemplate>> templates;
 	protected final LLMEnsemble llmEnsemble;
 	protected final Random random;
+	protected final WorkspaceManager workspaces;
 
 	public BaseAgent(Map<String, List<PromptTemplate>> templates, LLMEnsemble llmEnsemble, Random random) {
+		this(templates, llmEnsemble, random, null);
+	}
+
+	/**
+	 * @param workspaces allocates the directories of new solutions; null to place them next to
+	 *        their parent
+	 */
+	public BaseAgent(Map<String, List<PromptTemplate>> templates, LLMEnsemble llmEnsemble,
+			Random random, WorkspaceManager workspaces) {
 		this.templates = templates;
 		this.llmEnsemble = llmEnsemble;
 		this.random = random;
+		this.workspaces = workspaces;
 	}
 
 	public EvolveSolution newSolution(EvolveStep step, String llmResponse) {
@@ -37,12 +48,13 @@ public abstract class BaseAgent {
 			}
 		}
 		if (newSolution != null) {
-			var randString = RandomStringUtils.secure().next(8, true, true);
-			var parentPath = solution.solution().path().getParent();
+			var path = workspaces != null ? workspaces.allocate()
+					: solution.solution().path().getParent()
+							.resolve(RandomStringUtils.secure().next(8, true, true));
 			var evolvedSolution = new EvolveSolution(
 				solution.id(),
 				solution.solution().path(),
-				parentPath.resolve(randString),
+				path,
 				newSolution,
 				solution.solution().language(),
 				changes,
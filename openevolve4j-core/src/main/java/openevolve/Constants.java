@@ -50,6 +50,7 @@ public final class Constants {
 	public static final String TASK = "task";
 	public static final String SOLUTION = "solution";
 	public static final String USER_FULL_REWRITE = "user_full_rewrite";
+	public static final String BATCH = "batch";
 
 	public static final TypeReference<Map<String, Object>> MAP_TYPE_REF =
 			new TypeReference<Map<String, Object>>() {};
@@ -60,7 +61,7 @@ public final class Constants {
 	public static final Predicate<? super Map<?, ?>> EMPTY_CHECK = m -> m == null || m.isEmpty();
 
 	public static final Map<String, List<PromptTemplate>> DEFAULT_PROMPTS = List
-			.of(SYSTEM_DEFAULT, USER_DIFF, USER_FULL_REWRITE, TASK, SOLUTION)
+			.of(SYSTEM_DEFAULT, USER_DIFF, USER_FULL_REWRITE, TASK, SOLUTION, BATCH)
 			.stream().collect(Collectors.toMap(Function.identity(), name -> List.of(new PromptTemplate(
 					new ClassPathResource("/openevolve/prompts/" + name + ".md")))));
 
@@ -1,35 +1,697 @@
 package openevolve;
 
-import java.util.HashMap;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.ai.openai.api.OpenAiApi;
+import openevolve.OpenEvolveConfig.Hedging;
 import openevolve.OpenEvolveConfig.LLM;
+import openevolve.OpenEvolveConfig.RateLimit;
+import openevolve.OpenEvolveConfig.Routing;
+import openevolve.mapelites.MAPElites;
+import openevolve.mapelites.MAPElites.Cell;
+import openevolve.mapelites.Repository.Island;
+import openevolve.mapelites.Repository.Solution;
+import openevolve.mapelites.listener.MAPElitesListener;
+import openevolve.util.TokenBucket;
 
 /**
- * An ensemble of Large Language Model (LLM) chat clients that provides random sampling.
- * This class manages multiple ChatClient instances and allows random selection for load balancing.
+ * An ensemble of Large Language Model (LLM) chat clients that routes each request to one model.
+ *
+ * <p>
+ * Calls made through {@link #call} are tracked per model: latency percentiles, error and timeout
+ * rate, and the yield, i.e. the fraction of the model's responses whose candidate improved a
+ * cell. Responses are credited once the candidate is reported via {@link #attribute} and the
+ * ensemble is registered as a MAP-Elites listener. {@link Strategy#RANDOM} picks models in
+ * proportion to their static weight. The bandit strategies score models from their statistics,
+ * starting from a prior given by the static weight {@code w}: {@value #PRIOR_STRENGTH}
+ * pseudo-observations with a success rate of {@code w / (1 + w)} for yield and reliability, so a
+ * weight of 1 is the uniform prior and observed rates dominate once a model has a few calls. A
+ * weight of 0 disables a model.
+ *
+ * <p>
+ * Each model can be limited to a number of requests in flight and to request and token budgets
+ * per minute; calls over the limit wait for capacity instead of failing. Tokens are estimated at
+ * four characters each, the prompt is charged up front and the response once it arrived. With
+ * hedging, a call still running after the configured latency percentile of its model gets a
+ * duplicate sent to another model that has capacity right away, and the first answer wins.
+ *
+ * <p>
+ * {@link #stream} receives the answer in chunks and cancels the generation as soon as the caller
+ * rejects one, e.g. because the response is malformed; such calls count as aborted, not failed.
  */
-public class LLMEnsemble {
-	private final Map<String, ChatClient> llms = new HashMap<>();
+public class LLMEnsemble implements MAPElitesListener<EvolveSolution> {
+
+	private static final int LATENCY_WINDOW = 256;
+	private static final double PRIOR_STRENGTH = 2;
+
+	public enum Strategy {
+		RANDOM, THOMPSON, UCB
+	}
+
+	/**
+	 * @param model name of the model that answered
+	 */
+	public record Response(String model, String content) {
+	}
+
+	/**
+	 * Statistics of one model, latency percentiles are over its last successful calls and null
+	 * before the first one.
+	 *
+	 * @param hedges duplicates of slow calls to other models sent to this model
+	 * @param hedgeWins hedges that answered before the original call
+	 * @param aborts streamed calls cancelled because the caller rejected the response
+	 */
+	public record ModelStats(String model, double weight, long calls, long errors, long timeouts,
+			long candidates, long improvements, Duration latencyP50, Duration latencyP90,
+			Duration latencyP99, long hedges, long hedgeWins, long aborts) {
+
+		public double errorRate() {
+			return calls == 0 ? 0 : (double) errors / calls;
+		}
+
+		public double yield() {
+			return candidates == 0 ? 0 : (double) improvements / candidates;
+		}
+	}
+
+	private final Map<String, ChatClient> llms;
+	private final Map<String, Stats> stats = new LinkedHashMap<>();
+	private final Map<Path, Attribution> pending = new ConcurrentHashMap<>();
+	// MAP-Elites evolves an iteration on the thread that started it
+	private final ThreadLocal<Integer> iteration = new ThreadLocal<>();
+	private final Map<String, Limiter> limiters = new LinkedHashMap<>();
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
 	private final String[] keys;
 	private final Random random;
+	private final Routing routing;
+	private final Hedging hedging;
 
 	public LLMEnsemble(Random random, LLM llm) {
-		var openAiApi = OpenAiApi.builder().baseUrl(llm.apiUrl()).apiKey(llm.apiKey());
+		this(random, clients(llm), llm.weights(), llm.routing(), llm.limits(), llm.hedging());
+	}
+
+	/**
+	 * @param weights static weight per model, 1 for models not listed
+	 */
+	public LLMEnsemble(Random random, Map<String, ChatClient> clients, Map<String, Double> weights,
+			Routing routing) {
+		this(random, clients, weights, routing, Map.of(), null);
+	}
+
+	/**
+	 * @param limits per model, models not listed are not limited
+	 * @param hedging null to never hedge
+	 */
+	public LLMEnsemble(Random random, Map<String, ChatClient> clients, Map<String, Double> weights,
+			Routing routing, Map<String, RateLimit> limits, Hedging hedging) {
+		Objects.requireNonNull(random);
+		Objects.requireNonNull(routing);
+		if (clients.isEmpty()) {
+			throw new IllegalArgumentException("Models must not be empty");
+		}
 		this.random = random;
-		this.keys = llm.models().stream().map(OpenAiChatOptions::getModel).toArray(String[]::new);
+		this.routing = routing;
+		this.hedging = hedging;
+		this.llms = new LinkedHashMap<>(clients);
+		this.keys = llms.keySet().toArray(String[]::new);
+		for (var key : keys) {
+			stats.put(key, new Stats(key, weights.getOrDefault(key, 1.0)));
+			limiters.put(key, new Limiter(limits.get(key)));
+		}
+		for (var model : limits.keySet()) {
+			if (!llms.containsKey(model)) {
+				throw new IllegalArgumentException("Limits given for unknown model " + model);
+			}
+		}
+		if (stats.values().stream().noneMatch(s -> s.weight > 0)) {
+			throw new IllegalArgumentException("At least one model must have a positive weight");
+		}
+	}
+
+	private static Map<String, ChatClient> clients(LLM llm) {
+		var openAiApi = OpenAiApi.builder().baseUrl(llm.apiUrl()).apiKey(llm.apiKey());
+		var clients = new LinkedHashMap<String, ChatClient>();
 		for (var config : llm.models()) {
 			var chatModel = OpenAiChatModel.builder().openAiApi(openAiApi.build())
 					.defaultOptions(config).build();
-			llms.put(config.getModel(), ChatClient.builder(chatModel).build());
+			clients.put(config.getModel(), ChatClient.builder(chatModel).build());
 		}
+		return clients;
 	}
 
+	/**
+	 * @return the client of a routed model; calls made on it are not tracked
+	 */
 	public ChatClient sample() {
-		return llms.get(keys[random.nextInt(keys.length)]);
+		return llms.get(select());
+	}
+
+	/**
+	 * Sends {@code prompt} to a routed model once it has capacity, hedging if configured, and
+	 * records latency and failures.
+	 */
+	public Response call(Prompt prompt) {
+		return call(_ -> prompt);
+	}
+
+	/**
+	 * Like {@link #call(Prompt)}, with the prompt built for the model it is sent to, e.g. to fit
+	 * its context window.
+	 */
+	public Response call(Function<String, Prompt> prompts) {
+		var model = select();
+		var prompt = prompts.apply(model);
+		double tokens = tokens(prompt.getContents());
+		try {
+			// waiting for capacity is not model latency, so the hedge timer starts afterwards
+			limiters.get(model).acquire(tokens);
+			var hedgeAfter = hedging == null ? null
+					: stats.get(model).latency(hedging.percentile(), hedging.minSamples());
+			if (hedgeAfter == null) {
+				return send(model, prompt, tokens);
+			}
+			return hedged(model, prompt, tokens, hedgeAfter, prompts);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while calling " + model, e);
+		}
+	}
+
+	/**
+	 * Like {@link #call}, but streams the answer and passes each chunk to {@code accept}; the
+	 * generation is cancelled as soon as it returns false. Streamed calls are not hedged.
+	 *
+	 * @return the content received, up to and including a rejected chunk
+	 */
+	public Response stream(Prompt prompt, Predicate<String> accept) {
+		return stream(_ -> prompt, accept);
+	}
+
+	/**
+	 * Like {@link #stream(Prompt, Predicate)}, with the prompt built for the model it is sent to.
+	 */
+	public Response stream(Function<String, Prompt> prompts, Predicate<String> accept) {
+		var model = select();
+		var prompt = prompts.apply(model);
+		double tokens = tokens(prompt.getContents());
+		var limiter = limiters.get(model);
+		try {
+			limiter.acquire(tokens);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while calling " + model, e);
+		}
+		var content = new StringBuilder();
+		long start = System.nanoTime();
+		// closing the stream cancels the generation
+		try (var chunks = llms.get(model).prompt(prompt).stream().content().toStream()) {
+			var iterator = chunks.iterator();
+			boolean accepted = true;
+			while (accepted && iterator.hasNext()) {
+				var chunk = iterator.next();
+				content.append(chunk);
+				accepted = accept.test(chunk);
+			}
+			if (accepted) {
+				stats.get(model).call(System.nanoTime() - start, null);
+			} else {
+				stats.get(model).aborted();
+			}
+			return new Response(model, content.toString());
+		} catch (RuntimeException e) {
+			stats.get(model).call(System.nanoTime() - start, e);
+			throw e;
+		} finally {
+			limiter.used(tokens(content.toString()));
+			limiter.release();
+		}
+	}
+
+	/**
+	 * Sends {@code prompt} to {@code model}, which must have admitted the request, and a
+	 * duplicate to another model once it took longer than {@code hedgeAfter}.
+	 */
+	private Response hedged(String model, Prompt prompt, double tokens, Duration hedgeAfter,
+			Function<String, Prompt> prompts) throws InterruptedException {
+		var completion = new ExecutorCompletionService<Response>(executor);
+		var primary = completion.submit(() -> send(model, prompt, tokens));
+		Future<Response> hedge = null;
+		try {
+			var first = completion.poll(hedgeAfter.toNanos(), TimeUnit.NANOSECONDS);
+			if (first != null) {
+				return result(first);
+			}
+			var other = select(model);
+			var otherPrompt = other != null ? prompts.apply(other) : null;
+			double otherTokens = tokens(otherPrompt != null ? otherPrompt.getContents() : null);
+			if (other != null && limiters.get(other).tryAcquire(otherTokens)) {
+				stats.get(other).hedged();
+				hedge = completion.submit(() -> send(other, otherPrompt, otherTokens));
+			}
+			first = completion.take();
+			if (hedge == null) {
+				return result(first);
+			}
+			if (first.state() != Future.State.SUCCESS) {
+				// the other one may still answer
+				first = completion.take();
+			}
+			var response = result(first);
+			if (first == hedge) {
+				stats.get(other).hedgeWon();
+			}
+			return response;
+		} finally {
+			primary.cancel(true);
+			if (hedge != null) {
+				hedge.cancel(true);
+			}
+		}
+	}
+
+	private static Response result(Future<Response> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			if (e.getCause() instanceof Error error) {
+				throw error;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Calls {@code model}, which must have admitted the request, and releases its capacity.
+	 */
+	private Response send(String model, Prompt prompt, double tokens) {
+		var limiter = limiters.get(model);
+		long start = System.nanoTime();
+		try {
+			var content = llms.get(model).prompt(prompt).call().content();
+			stats.get(model).call(System.nanoTime() - start, null);
+			limiter.used(tokens(content));
+			return new Response(model, content);
+		} catch (RuntimeException e) {
+			if (!Thread.currentThread().isInterrupted()) {
+				// a cancelled duplicate is not the model's fault
+				stats.get(model).call(System.nanoTime() - start, e);
+			}
+			throw e;
+		} finally {
+			limiter.release();
+		}
+	}
+
+	private static double tokens(String text) {
+		return text == null ? 0 : Math.max(1, text.length() / 4.0);
+	}
+
+	/**
+	 * Credits {@code candidate} to {@code model}; a null candidate (unusable response) counts as
+	 * a response without improvement right away. A candidate attributed while evolving an
+	 * iteration that ends without reporting it, e.g. because the iteration failed, is dropped
+	 * without being counted.
+	 */
+	public void attribute(String model, EvolveSolution candidate) {
+		var modelStats = model != null ? stats.get(model) : null;
+		if (modelStats == null) {
+			return;
+		}
+		if (candidate == null || candidate.path() == null) {
+			modelStats.candidate(false);
+		} else {
+			pending.put(candidate.path(), new Attribution(modelStats, iteration.get()));
+		}
+	}
+
+	@Override
+	public void onBeforeIteration(Island island, int iteration,
+			MAPElites<EvolveSolution> mapElites) {
+		this.iteration.set(iteration);
+	}
+
+	@Override
+	public void onAfterIteration(Island island, int iteration,
+			MAPElites<EvolveSolution> mapElites) {
+		discard(iteration);
+	}
+
+	@Override
+	public void onIterationFailed(Island island, int iteration, Throwable error,
+			MAPElites<EvolveSolution> mapElites) {
+		discard(iteration);
+	}
+
+	/**
+	 * Drops the attributions of candidates of {@code iteration} that were never reported.
+	 */
+	private void discard(int iteration) {
+		pending.values().removeIf(attribution -> attribution.iteration != null
+				&& attribution.iteration == iteration);
+	}
+
+	@Override
+	public void onCellImproved(Solution<EvolveSolution> newSolution,
+			Solution<EvolveSolution> previousSolution, Cell cell, int iteration) {
+		var attribution = pending.get(newSolution.solution().path());
+		if (attribution != null) {
+			attribution.improved = true;
+		}
+	}
+
+	@Override
+	public void onSolutionGenerated(Solution<EvolveSolution> newSolution,
+			List<Solution<EvolveSolution>> parents, int iteration) {
+		var attribution = pending.remove(newSolution.solution().path());
+		if (attribution != null) {
+			attribution.stats.candidate(attribution.improved);
+		}
+	}
+
+	/**
+	 * @return statistics of every model, in configuration order
+	 */
+	public List<ModelStats> stats() {
+		return stats.values().stream().map(Stats::snapshot).toList();
+	}
+
+	/**
+	 * @return name of the model the next request goes to
+	 */
+	public String select() {
+		return select(null);
+	}
+
+	/**
+	 * @return name of a model other than {@code exclude}, null if none has a positive weight
+	 */
+	private String select(String exclude) {
+		if (routing.strategy() == Strategy.RANDOM) {
+			double total = stats.values().stream().filter(s -> !s.model.equals(exclude))
+					.mapToDouble(s -> s.weight).sum();
+			if (total <= 0) {
+				return null;
+			}
+			double pick = random.nextDouble() * total;
+			String last = null;
+			for (var key : keys) {
+				double weight = stats.get(key).weight;
+				if (key.equals(exclude) || weight <= 0) {
+					continue;
+				}
+				last = key;
+				pick -= weight;
+				if (pick < 0) {
+					return key;
+				}
+			}
+			return last;
+		}
+		var snapshots = stats();
+		long fastest = snapshots.stream().filter(s -> s.latencyP50() != null)
+				.mapToLong(s -> s.latencyP50().toNanos()).min().orElse(0);
+		long totalCalls = snapshots.stream().mapToLong(ModelStats::calls).sum();
+		String best = null;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		for (var s : snapshots) {
+			if (s.weight() <= 0 || s.model().equals(exclude)) {
+				continue;
+			}
+			// pseudo-successes and failures of the prior
+			double prior = s.weight() / (1 + s.weight());
+			double successes = PRIOR_STRENGTH * prior;
+			double failures = PRIOR_STRENGTH - successes;
+			double score;
+			if (routing.strategy() == Strategy.THOMPSON) {
+				score = combine(
+						beta(s.improvements() + successes,
+								s.candidates() - s.improvements() + failures),
+						beta(s.calls() - s.errors() + successes, s.errors() + failures),
+						speed(s, fastest));
+			} else if (s.calls() == 0) {
+				// every model is tried once before the bounds mean anything, likelier ones first
+				score = Double.MAX_VALUE / 2 * prior;
+			} else {
+				score = combine(
+						(s.improvements() + successes) / (s.candidates() + PRIOR_STRENGTH),
+						(s.calls() - s.errors() + successes) / (s.calls() + PRIOR_STRENGTH),
+						speed(s, fastest))
+						+ routing.exploration() * Math.sqrt(2 * Math.log(totalCalls) / s.calls());
+			}
+			if (score > bestScore) {
+				bestScore = score;
+				best = s.model();
+			}
+		}
+		return best;
+	}
+
+	private double combine(double yield, double reliability, double speed) {
+		double total = routing.yieldWeight() + routing.reliabilityWeight() + routing.latencyWeight();
+		return total == 0 ? 0
+				: (routing.yieldWeight() * yield + routing.reliabilityWeight() * reliability
+						+ routing.latencyWeight() * speed) / total;
+	}
+
+	/**
+	 * @return median latency of the fastest model relative to this one's, 1 without data
+	 */
+	private static double speed(ModelStats s, long fastest) {
+		return s.latencyP50() == null || fastest == 0 ? 1
+				: (double) fastest / Math.max(1, s.latencyP50().toNanos());
+	}
+
+	private double beta(double a, double b) {
+		double x = gamma(a);
+		return x / (x + gamma(b));
+	}
+
+	/**
+	 * Marsaglia and Tsang's method, boosted for shapes below 1.
+	 */
+	private double gamma(double shape) {
+		if (shape < 1) {
+			return gamma(shape + 1) * Math.pow(random.nextDouble(), 1 / shape);
+		}
+		double d = shape - 1.0 / 3;
+		double c = 1 / Math.sqrt(9 * d);
+		while (true) {
+			double x;
+			double v;
+			do {
+				x = random.nextGaussian();
+				v = 1 + c * x;
+			} while (v <= 0);
+			v = v * v * v;
+			double u = random.nextDouble();
+			if (u < 1 - 0.0331 * x * x * x * x
+					|| Math.log(u) < 0.5 * x * x + d * (1 - v + Math.log(v))) {
+				return d * v;
+			}
+		}
+	}
+
+	private static boolean isTimeout(Throwable error) {
+		for (var cause = error; cause != null; cause = cause.getCause()) {
+			if (cause.getClass().getSimpleName().contains("Timeout")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static final class Limiter {
+		private final Semaphore inFlight;
+		private final TokenBucket requests;
+		private final TokenBucket tokens;
+
+		Limiter(RateLimit limit) {
+			inFlight = limit != null && limit.maxInFlight() != null
+					? new Semaphore(limit.maxInFlight(), true)
+					: null;
+			requests = limit != null && limit.requestsPerMinute() != null
+					? new TokenBucket(limit.requestsPerMinute())
+					: null;
+			tokens = limit != null && limit.tokensPerMinute() != null
+					? new TokenBucket(limit.tokensPerMinute())
+					: null;
+		}
+
+		/**
+		 * Waits for an in-flight slot first, so the budgets are only spent by requests sent
+		 * right away; on interruption whatever was taken is given back.
+		 */
+		void acquire(double estimate) throws InterruptedException {
+			if (inFlight != null) {
+				inFlight.acquire();
+			}
+			boolean requested = false;
+			try {
+				if (requests != null) {
+					requests.acquire(1);
+					requested = true;
+				}
+				if (tokens != null) {
+					tokens.acquire(estimate);
+				}
+			} catch (InterruptedException e) {
+				if (requested) {
+					requests.debit(-1);
+				}
+				release();
+				throw e;
+			}
+		}
+
+		boolean tryAcquire(double estimate) {
+			if (inFlight != null && !inFlight.tryAcquire()) {
+				return false;
+			}
+			if (requests != null && !requests.tryAcquire(1)) {
+				release();
+				return false;
+			}
+			if (tokens != null && !tokens.tryAcquire(estimate)) {
+				if (requests != null) {
+					requests.debit(-1);
+				}
+				release();
+				return false;
+			}
+			return true;
+		}
+
+		void used(double responseTokens) {
+			if (tokens != null) {
+				tokens.debit(responseTokens);
+			}
+		}
+
+		void release() {
+			if (inFlight != null) {
+				inFlight.release();
+			}
+		}
+	}
+
+	private static final class Attribution {
+		private final Stats stats;
+		private final Integer iteration;
+		private volatile boolean improved;
+
+		/**
+		 * @param iteration iteration the candidate was evolved in, null if unknown
+		 */
+		Attribution(Stats stats, Integer iteration) {
+			this.stats = stats;
+			this.iteration = iteration;
+		}
+	}
+
+	private static final class Stats {
+		private final String model;
+		private final double weight;
+		private final long[] latencies = new long[LATENCY_WINDOW];
+		private int latencyCount;
+		private long calls;
+		private long errors;
+		private long timeouts;
+		private long candidates;
+		private long improvements;
+		private long hedges;
+		private long hedgeWins;
+		private long aborts;
+
+		Stats(String model, double weight) {
+			if (weight < 0) {
+				throw new IllegalArgumentException("Weight of " + model + " must not be negative");
+			}
+			this.model = model;
+			this.weight = weight;
+		}
+
+		synchronized void call(long nanos, Throwable error) {
+			calls++;
+			if (error != null) {
+				errors++;
+				if (isTimeout(error)) {
+					timeouts++;
+				}
+			} else {
+				latencies[latencyCount++ % LATENCY_WINDOW] = nanos;
+			}
+		}
+
+		synchronized void hedged() {
+			hedges++;
+		}
+
+		synchronized void hedgeWon() {
+			hedgeWins++;
+		}
+
+		synchronized void aborted() {
+			calls++;
+			aborts++;
+		}
+
+		/**
+		 * @return the {@code p} latency percentile, null with fewer than {@code minSamples} calls
+		 */
+		synchronized Duration latency(double p, int minSamples) {
+			int count = Math.min(latencyCount, LATENCY_WINDOW);
+			if (count < minSamples || count == 0) {
+				return null;
+			}
+			var window = Arrays.copyOf(latencies, count);
+			Arrays.sort(window);
+			return percentile(window, p);
+		}
+
+		synchronized void candidate(boolean improved) {
+			candidates++;
+			if (improved) {
+				improvements++;
+			}
+		}
+
+		synchronized ModelStats snapshot() {
+			var window = Arrays.copyOf(latencies, Math.min(latencyCount, LATENCY_WINDOW));
+			Arrays.sort(window);
+			return new ModelStats(model, weight, calls, errors, timeouts, candidates,
+					improvements, percentile(window, 0.5), percentile(window, 0.9),
+					percentile(window, 0.99), hedges, hedgeWins, aborts);
+		}
+
+		private static Duration percentile(long[] sorted, double p) {
+			if (sorted.length == 0) {
+				return null;
+			}
+			return Duration.ofNanos(sorted[(int) Math.ceil(p * sorted.length) - 1]);
+		}
 	}
 }
@@ -1,49 +1,108 @@
 package openevolve;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
-import org.apache.commons.lang3.RandomStringUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import openevolve.mapelites.Cascade;
+import openevolve.mapelites.CentroidalTessellation;
+import openevolve.mapelites.ConcurrentRepository;
 import openevolve.mapelites.DefaultRepository;
+import openevolve.mapelites.EvaluationCache;
 import openevolve.mapelites.MAPElites;
 import openevolve.mapelites.Migration;
+import openevolve.mapelites.ParetoComparator;
+import openevolve.mapelites.ParetoRanking;
+import openevolve.mapelites.Repository;
 import openevolve.mapelites.FeatureScaler.ScaleMethod;
+import openevolve.util.BashExecutor;
+import openevolve.util.CpuScheduler;
+import openevolve.util.RepeatedMeasurement;
+import openevolve.util.ResultStore;
 import openevolve.util.Util;
+import openevolve.util.WorkerPool;
+import openevolve.util.WorkspaceMaterializer;
 
 public class OpenEvolve {
 
+	/**
+	 * Like {@link #create(OpenEvolveConfig, ObjectMapper, Consumer)}, with the worker pool, result
+	 * store and workspace manager left open until the JVM exits.
+	 */
 	public static MAPElites<EvolveSolution> create(OpenEvolveConfig config, ObjectMapper mapper) {
+		return create(config, mapper, _ -> {
+		});
+	}
+
+	/**
+	 * @param resources receives what the run keeps open, in the order it is created: the
+	 *        workspace manager and, if configured, the worker pool and the result store; the
+	 *        caller closes them, in reverse order, once the run is over
+	 */
+	public static MAPElites<EvolveSolution> create(OpenEvolveConfig config, ObjectMapper mapper,
+			Consumer<AutoCloseable> resources) {
 		var selConf = config.selection();
 		var random = selConf.random();
-		var bins = config.mapelites().bins();
-		var repository =
-				new DefaultRepository<>(config.comparator(), config.repository().populationSize(),
-						config.repository().archiveSize(), config.repository().islands());
+		var cvt = config.mapelites().cvt();
+		// in CVT mode a cell is the single coordinate {centroidId}
+		var bins = cvt != null ? cvt.centroids() : config.mapelites().bins();
+		var repoConf = config.repository();
+		var concurrent = config.mapelites().parallelism() > 1 || config.mapelites().pipeline() != null;
+		var ranking = repoConf.paretoRanking() ? paretoRanking(config) : null;
+		// ranked eviction needs the whole population, so it stays on the synchronized repository
+		Repository<EvolveSolution> repository = concurrent && ranking == null
+				? new ConcurrentRepository<>(config.comparator(), repoConf.populationSize(),
+						repoConf.archiveSize(), repoConf.islands())
+				: new DefaultRepository<>(config.comparator(), repoConf.populationSize(),
+						repoConf.archiveSize(), repoConf.islands(), ranking);
+		var workspaces = new WorkspaceManager(config.solution().scratch());
+		resources.accept(workspaces);
+		repository.addChangeListener(workspaces);
 		var migration = new Migration<>(config.migration().interval(), config.migration().rate(),
 				repository);
+		var pool = workerPool(config, mapper);
+		if (pool != null) {
+			resources.accept(pool);
+		}
+		var store = resultStore(config);
+		if (store != null) {
+			resources.accept(store);
+		}
+		var scheduler = cpuScheduler(config);
 		var evaluator = new OpenEvolveEvaluator(config.solution().runner(),
-				config.metrics().keySet(), config.solution().evalTimeout(), mapper);
-		var evolveFunction = new OpenEvolveFunction(repository,
-				new OpenEvolveAgent(config.prompts(), new LLMEnsemble(random, config.llm()),
-						random, config.selection().numberTop(), config.selection().numberDiverse()),
+				config.metrics().keySet(), config.solution().evalTimeout(), mapper, store,
+				new WorkspaceMaterializer(config.solution().materialization()), pool,
+				streaming(config), limits(config), scheduler,
+				repetition(config, pool, scheduler));
+		var llm = new LLMEnsemble(random, config.llm());
+		var agent = new OpenEvolveAgent(config.prompts(), llm,
+				random, config.selection().numberTop(), config.selection().numberDiverse(),
+				workspaces, config.llm().streaming(), config.llm().promptTokens(),
+				config.llm().childrenPerCall());
+		var evolveFunction = new OpenEvolveFunction(repository, agent,
 				config.selection().numberDiverse(), config.selection().numberTop());
+		var tessellation = cvt != null
+				? CentroidalTessellation.compute(config.mapelites().dimensions().size(),
+						cvt.centroids(), cvt.samples(), cvt.iterations(), cvt.seed())
+				: null;
 		var selection = new OpenEvolveSelection(repository, random, selConf.explorationRatio(),
 				selConf.exploitationRatio(), selConf.eliteSelectionRatio(),
-				selConf.numInspirations(), bins);
+				selConf.numInspirations(), bins, ranking, tessellation);
 		var diversityFunc =
 				new DiversityFunction(repository, 20,
 						1000, random);
 		var complexityFunc = new ComplexityFunction();
 		var code = Code.fromPath(config.solution().path(), config.solution().filePattern());
-		var randString = RandomStringUtils.secure().next(8, true, true);
-		var initialPath = config.solution().path().getParent().resolve("solutions").resolve(randString);
+		var initialPath = workspaces.allocate();
 		Supplier<List<EvolveSolution>> initial = () -> List
 				.of(new EvolveSolution(null, config.solution().path(), initialPath, code.code(),
 						config.solution().language(), null, Map.of(), config.solution().fullRewrite()));
 		var mapelites = new MAPElites<>(repository, migration, evaluator, evolveFunction, initial,
 				selection, config.stopCondition(), ScaleMethod.MIN_MAX,
-				config.mapelites().dimensions(), bins) {
+				config.mapelites().dimensions(), config.mapelites().bins()) {
 			@Override
 			protected double getFeatureValue(String feature, EvolveSolution evolved,
 					Map<String, Object> fitness) {
@@ -57,7 +116,109 @@ public class OpenEvolve {
 				return super.getFeatureValue(feature, evolved, fitness);
 			}
 		};
+		var cache = config.solution().cache();
+		if (cache != null) {
+			// failed evaluations (timeouts, crashes) may be transient, so they are retried;
+			// cascade rejections depend on the incumbents of the moment; a hit still builds the
+			// workspace, children of the candidate are materialized from it
+			mapelites.setEvaluationCache(new EvaluationCache<>(evaluator::fingerprint,
+					cache.maxEntries(),
+					fitness -> !fitness.containsKey("error")
+							&& !fitness.containsKey(Cascade.REJECTED_AT),
+					cache.path(), mapper, evaluator::prepare));
+		}
+		if (!config.solution().cascade().isEmpty()) {
+			mapelites.setCascade(new Cascade<>(config.solution().cascade().stream()
+					.map(stage -> new Cascade.Stage<>(stage.name(),
+							evaluator.stage(stage.script(), stage.timeout()),
+							Cascade.thresholds(stage.thresholds())
+									.and(metrics -> !metrics.containsKey("error")),
+							stage.compareIncumbent()))
+					.toList()));
+		}
+		if (tessellation != null) {
+			mapelites.setTessellation(tessellation);
+		}
+		if (config.llm().childrenPerCall() > 1) {
+			mapelites.setBatchEvolveOperator(parents -> agent.evolve(evolveFunction.step(parents)));
+		}
+		evaluator.setIncumbent(mapelites::incumbentFitness);
+		mapelites.setParallelism(config.mapelites().parallelism());
+		var pipeline = config.mapelites().pipeline();
+		if (pipeline != null) {
+			mapelites.setPipeline(pipeline.generators(), pipeline.evaluators(),
+					pipeline.queueCapacity());
+		}
+		mapelites.addListener(workspaces);
+		mapelites.addListener(llm);
 		mapelites.addListener(new OpenEvolveCheckpointListener(config.solution().path().getParent().resolve("ckpt"), 10, mapper, repository, null));
 		return mapelites;
 	}
+
+	private static ResultStore resultStore(OpenEvolveConfig config) {
+		var store = config.solution().store();
+		if (store == null) {
+			return null;
+		}
+		try {
+			return new ResultStore(store.path(), store.maxBytes());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to open result store " + store.path(), e);
+		}
+	}
+
+	private static WorkerPool workerPool(OpenEvolveConfig config, ObjectMapper mapper) {
+		var pool = config.solution().pool();
+		if (pool == null) {
+			return null;
+		}
+		return new WorkerPool(pool.script(), config.solution().workspace(), pool.size(),
+				pool.maxEvaluations(), pool.healthCheckInterval(), pool.startTimeout(), mapper);
+	}
+
+	private static BashExecutor.Streaming streaming(OpenEvolveConfig config) {
+		var streaming = config.solution().streaming();
+		return streaming != null
+				? new BashExecutor.Streaming(streaming.tailChars(), streaming.stopOnMetrics())
+				: null;
+	}
+
+	private static BashExecutor.Limits limits(OpenEvolveConfig config) {
+		var limits = config.solution().limits();
+		return limits != null
+				? new BashExecutor.Limits(limits.cpuTime(), limits.addressSpace(), limits.openFiles())
+				: BashExecutor.Limits.NONE;
+	}
+
+	private static CpuScheduler cpuScheduler(OpenEvolveConfig config) {
+		var affinity = config.solution().affinity();
+		if (affinity == null) {
+			return null;
+		}
+		var cpus = affinity.cpus() != null ? CpuScheduler.parseCpuList(affinity.cpus())
+				: CpuScheduler.availableCpus();
+		return new CpuScheduler(cpus, affinity.coresPerSlot());
+	}
+
+	/**
+	 * Repeated runs go in parallel as far as CPU slots or pooled workers allow, each concurrent
+	 * run in its own copy of the solution directory.
+	 */
+	private static RepeatedMeasurement repetition(OpenEvolveConfig config, WorkerPool pool,
+			CpuScheduler scheduler) {
+		var repeat = config.solution().repeat();
+		if (repeat == null) {
+			return null;
+		}
+		int parallelism = pool != null ? pool.size() : scheduler != null ? scheduler.size() : 1;
+		return new RepeatedMeasurement(repeat.runs(), repeat.maxRuns(), repeat.aggregate(),
+				repeat.trim(), repeat.tolerance(), repeat.margin(), parallelism);
+	}
+
+	private static ParetoRanking<EvolveSolution> paretoRanking(OpenEvolveConfig config) {
+		if (config.comparator() instanceof ParetoComparator<EvolveSolution> pareto) {
+			return new ParetoRanking<>(pareto);
+		}
+		throw new IllegalArgumentException("Pareto ranking requires a ParetoComparator");
+	}
 }
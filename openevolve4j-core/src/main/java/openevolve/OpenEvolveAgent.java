@@ -1,30 +1,98 @@
 package openevolve;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.chat.prompt.SystemPromptTemplate;
+import openevolve.OpenEvolveConfig.ResponseStreaming;
 import openevolve.mapelites.Repository.Solution;
+import openevolve.util.CodeParsingUtils;
+import openevolve.util.CodeParsingUtils.DiffStream;
 
 public class OpenEvolveAgent extends BaseAgent implements Function<EvolveStep, EvolveSolution> {
 
+	private static final Logger LOG = LoggerFactory.getLogger(OpenEvolveAgent.class);
+	private static final int MAX_RENDERINGS = 1024;
+	private static final String SEPARATOR = "\n---\n";
+	private static final String TRUNCATED = "\n... (truncated)";
+	// a parent is dropped rather than cut to fewer characters of code
+	private static final int MIN_TRUNCATED_CODE = 400;
+
 	private final int numTopSolutions;
 	private final int numDiverseSolutions;
+	private final ResponseStreaming streaming;
+	private final Map<String, Integer> promptTokens;
+	private final int childrenPerCall;
+	private final Map<FragmentKey, String> renderings =
+			new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<FragmentKey, String> eldest) {
+					return size() > MAX_RENDERINGS;
+				}
+			};
 
 	public OpenEvolveAgent(Map<String, List<PromptTemplate>> templates, LLMEnsemble llmEnsemble,
 			Random random, int numTopSolutions, int numDiverseSolutions) {
-		super(templates, llmEnsemble, random);
+		this(templates, llmEnsemble, random, numTopSolutions, numDiverseSolutions, null);
+	}
+
+	public OpenEvolveAgent(Map<String, List<PromptTemplate>> templates, LLMEnsemble llmEnsemble,
+			Random random, int numTopSolutions, int numDiverseSolutions,
+			WorkspaceManager workspaces) {
+		this(templates, llmEnsemble, random, numTopSolutions, numDiverseSolutions, workspaces,
+				null, Map.of(), 1);
+	}
+
+	/**
+	 * @param streaming null to wait for complete responses
+	 * @param promptTokens prompt budget per model, parents are dropped or truncated to stay
+	 *        within it; models not listed are not limited
+	 * @param childrenPerCall proposals asked for in one LLM call, see {@link #evolve}
+	 */
+	public OpenEvolveAgent(Map<String, List<PromptTemplate>> templates, LLMEnsemble llmEnsemble,
+			Random random, int numTopSolutions, int numDiverseSolutions,
+			WorkspaceManager workspaces, ResponseStreaming streaming,
+			Map<String, Integer> promptTokens, int childrenPerCall) {
+		super(templates, llmEnsemble, random, workspaces);
+		if (childrenPerCall <= 0) {
+			throw new IllegalArgumentException("Children per call must be positive");
+		}
 		this.numTopSolutions = numTopSolutions;
 		this.numDiverseSolutions = numDiverseSolutions;
+		this.streaming = streaming;
+		this.promptTokens = promptTokens;
+		this.childrenPerCall = childrenPerCall;
 	}
 
+	/**
+	 * @return the first child of {@link #evolve}, null if there is none; use {@link #evolve}
+	 *         to get all children of a batch
+	 */
 	@Override
 	public EvolveSolution apply(EvolveStep step) {
-		var client = llmEnsemble.sample();
+		var children = evolve(step);
+		return children.isEmpty() ? null : children.getFirst();
+	}
+
+	/**
+	 * Asks one LLM call for {@code childrenPerCall} independent proposals, each under a
+	 * {@link CodeParsingUtils#PROPOSAL_PATTERN} heading, and turns every usable one into a child
+	 * of the step's parent.
+	 *
+	 * @return the children, at most {@code childrenPerCall}
+	 */
+	public List<EvolveSolution> evolve(EvolveStep step) {
 		var userMessageTmpl = getTemplate(Constants.USER_DIFF);
 		var parent = step.parent();
 		var solution = parent.solution();
@@ -32,35 +100,150 @@ public class OpenEvolveAgent extends BaseAgent implements Function<EvolveStep, E
 			userMessageTmpl = getTemplate(Constants.USER_FULL_REWRITE);
 		}
 		var taskTmpl = getTemplate(Constants.TASK).getTemplate();
-		var solutionTmpl = renderSolution(parent, "Current Solution");
-		var parentsBuilder = new StringBuilder();
+		var solutionTmpl = fragment(parent, "Current Solution").text();
+		var fragments = new ArrayList<Fragment>();
 		int i = 1;
+		// in priority order, the last ones are dropped first to fit a prompt budget
 		List<Solution<EvolveSolution>> solutions =
 				Stream.of(step.topSolutions().stream(), step.inspirations().stream(),
 						step.previousSolutions().stream()).flatMap(Function.identity()).toList();
-		if (!solutions.isEmpty()) {
-			for (var p : solutions) {
-				parentsBuilder.append(renderSolution(p, "Parent Solution " + i)).append("\n---\n");
-				i++;
-			}
+		for (var p : solutions) {
+			fragments.add(fragment(p, "Parent Solution " + i));
+			i++;
 		}
 		var systemMessageTmpl =
 				new SystemPromptTemplate(getTemplate(Constants.SYSTEM_DEFAULT).getTemplate());
-		var userPrompt = userMessageTmpl.createMessage(Map.of("solution", solutionTmpl, "task",
-				taskTmpl, "parents", parentsBuilder.toString()));
 		var systemPrompt = systemMessageTmpl.createMessage();
+		var batchText = childrenPerCall > 1
+				? getTemplate(Constants.BATCH).render(Map.of("count", childrenPerCall))
+				: "";
+		var userTemplate = userMessageTmpl;
+		var variables = new HashMap<String, Object>(
+				Map.of("solution", solutionTmpl, "task", taskTmpl, "parents", ""));
+		long fixedChars = systemMessageTmpl.render().length()
+				+ userTemplate.render(variables).length() + batchText.length();
+		Function<String, Prompt> prompt = model -> {
+			var budget = promptTokens.get(model);
+			var modelVariables = new HashMap<>(variables);
+			modelVariables.put("parents", parents(fragments,
+					budget == null ? Long.MAX_VALUE : budget * 4L - fixedChars));
+			var userPrompt = userTemplate.createMessage(modelVariables);
+			return batchText.isEmpty() ? new Prompt(systemPrompt, userPrompt)
+					: new Prompt(systemPrompt, userPrompt, new UserMessage(batchText));
+		};
 		String response = null;
+		String model = null;
 		int count = 0;
 		while (response == null && count < 2) {
-			response = client.prompt(new Prompt(systemPrompt, userPrompt)).call().content();
+			if (model != null) {
+				// the previous response was unusable
+				llmEnsemble.attribute(model, null);
+			}
+			var reply = streaming != null ? stream(prompt, solution) : llmEnsemble.call(prompt);
+			response = reply.content();
+			model = reply.model();
 			count++;
 		}
-		return newSolution(step, response);
+		if (response == null) {
+			llmEnsemble.attribute(model, null);
+			return List.of();
+		}
+		var proposals = childrenPerCall > 1 ? CodeParsingUtils.splitProposals(response)
+				: List.of(response);
+		var children = new ArrayList<EvolveSolution>();
+		for (var proposal : proposals.subList(0, Math.min(proposals.size(), childrenPerCall))) {
+			var evolved = newSolution(step, proposal);
+			llmEnsemble.attribute(model, evolved);
+			if (evolved != null) {
+				children.add(evolved);
+			}
+		}
+		return children;
+	}
+
+	/**
+	 * @return the streamed response, with null content if it was abandoned
+	 */
+	private LLMEnsemble.Response stream(Function<String, Prompt> prompt, EvolveSolution parent) {
+		var parser = new DiffStream(
+				parent.fullRewrite() || !streaming.validate() ? null : parent.content(),
+				streaming.maxTokens() != null ? streaming.maxTokens() * 4 : 0,
+				childrenPerCall > 1);
+		var reply = llmEnsemble.stream(prompt, parser::append);
+		if (parser.getReason() != null) {
+			LOG.debug("Abandoned response of {}: {}", reply.model(), parser.getReason());
+			return new LLMEnsemble.Response(reply.model(), null);
+		}
+		return reply;
+	}
+
+	/**
+	 * Joins parent fragments in priority order up to {@code maxChars}. The first one that does not
+	 * fit whole is truncated, or dropped if too little of its code would remain, and so are all
+	 * after it.
+	 */
+	private String parents(List<Fragment> fragments, long maxChars) {
+		var builder = new StringBuilder();
+		for (int i = 0; i < fragments.size(); i++) {
+			var fragment = fragments.get(i);
+			long left = maxChars - builder.length() - SEPARATOR.length();
+			if (fragment.text().length() <= left) {
+				builder.append(fragment.text()).append(SEPARATOR);
+				continue;
+			}
+			var truncated = truncate(fragment, left);
+			if (truncated != null) {
+				builder.append(truncated).append(SEPARATOR);
+			}
+			LOG.debug("Prompt budget: {} of {} parents truncated or dropped", fragments.size() - i,
+					fragments.size());
+			break;
+		}
+		return builder.toString();
+	}
+
+	private String truncate(Fragment fragment, long maxChars) {
+		var code = fragment.solution().solution().content();
+		long keep = maxChars - (fragment.text().length() - code.length()) - TRUNCATED.length();
+		if (keep < MIN_TRUNCATED_CODE) {
+			return null;
+		}
+		return render(fragment.template(), fragment.solution(),
+				code.substring(0, (int) keep) + TRUNCATED, fragment.name());
+	}
+
+	/**
+	 * Renders {@code solution} with a randomly picked solution template, reusing earlier
+	 * renderings of the same solution, template and name.
+	 */
+	private Fragment fragment(Solution<EvolveSolution> solution, String name) {
+		var template = getTemplate(Constants.SOLUTION);
+		var key = new FragmentKey(solution.id(), template, name);
+		String text;
+		synchronized (renderings) {
+			text = solution.id() != null ? renderings.get(key) : null;
+		}
+		if (text == null) {
+			text = render(template, solution, solution.solution().content(), name);
+			if (solution.id() != null) {
+				synchronized (renderings) {
+					renderings.put(key, text);
+				}
+			}
+		}
+		return new Fragment(solution, template, name, text);
+	}
+
+	private static String render(PromptTemplate template, Solution<EvolveSolution> solution,
+			String code, String name) {
+		return template.render(Map.of("code", code, "language", solution.solution().language(),
+				"metrics", metricsToString(solution.fitness()), "name", name));
+	}
+
+	private record Fragment(Solution<EvolveSolution> solution, PromptTemplate template, String name,
+			String text) {
 	}
 
-	private String renderSolution(Solution<EvolveSolution> solution, String name) {
-		return getTemplate(Constants.SOLUTION).render(Map.of("code", solution.solution().content(),
-				"language", solution.solution().language(), "metrics",
-				metricsToString(solution.fitness()), "name", name));
+	private record FragmentKey(UUID id, PromptTemplate template, String name) {
 	}
 }
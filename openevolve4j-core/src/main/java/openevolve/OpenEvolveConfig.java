@@ -17,7 +17,9 @@ import org.springframework.ai.openai.OpenAiChatOptions;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.cfg.ContextAttributes;
 import openevolve.mapelites.ParetoComparator;
+import openevolve.util.RepeatedMeasurement;
 import openevolve.util.Util;
+import openevolve.util.WorkspaceMaterializer.Strategy;
 
 public record OpenEvolveConfig(Solution solution, Selection selection, Migration migration,
 		Repository repository, MAPElites mapelites, LLM llm, Map<String, Boolean> metrics,
@@ -50,7 +52,10 @@ public record OpenEvolveConfig(Solution solution, Selection selection, Migration
 	}
 
 	public record Solution(Path workspace, Path path, Path runner, Duration evalTimeout,
-			Boolean fullRewrite, String language, String pattern, Pattern filePattern) {
+			Boolean fullRewrite, String language, String pattern, Pattern filePattern,
+			EvaluationCache cache, ResultStore store, Strategy materialization, Path scratch,
+			WorkerPool pool, List<CascadeStage> cascade, Streaming streaming, Limits limits,
+			Affinity affinity, Repeat repeat) {
 		public Solution {
 			Objects.requireNonNull(workspace);
 			path = workspace.resolve(path != null ? path : Path.of("solution"));
@@ -60,6 +65,155 @@ public record OpenEvolveConfig(Solution solution, Selection selection, Migration
 			filePattern = filePattern == null ? Pattern.compile(pattern) : filePattern;
 			language = language == null || language.isEmpty() ? "python" : language;
 			fullRewrite = fullRewrite == null ? true : fullRewrite;
+			materialization = materialization == null ? Strategy.COPY : materialization;
+			scratch = workspace.resolve(scratch != null ? scratch : Path.of("solutions"));
+			if (cache != null && cache.path() != null) {
+				cache = new EvaluationCache(cache.maxEntries(), workspace.resolve(cache.path()));
+			}
+			if (store != null) {
+				store = new ResultStore(workspace.resolve(store.path()), store.maxBytes());
+			}
+			if (pool != null) {
+				var script = workspace.resolve(pool.script() != null ? pool.script() : runner);
+				pool = new WorkerPool(script, pool.size(), pool.maxEvaluations(),
+						pool.healthCheckInterval(), pool.startTimeout());
+			}
+			var stages = new ArrayList<CascadeStage>();
+			for (var stage : cascade != null ? cascade : List.<CascadeStage>of()) {
+				var script = workspace.resolve(stage.script());
+				stages.add(new CascadeStage(
+						stage.name() != null ? stage.name() : script.getFileName().toString(),
+						script, stage.timeout() != null ? stage.timeout() : evalTimeout,
+						stage.thresholds(), stage.compareIncumbent()));
+			}
+			cascade = List.copyOf(stages);
+		}
+	}
+
+	/**
+	 * Evaluation results keyed by a hash of the solution content and the runner, so identical
+	 * candidates are not evaluated twice. Persisted to {@code path} when set.
+	 */
+	public record EvaluationCache(Integer maxEntries, Path path) {
+
+		public EvaluationCache {
+			maxEntries = maxEntries == null ? 10_000 : maxEntries;
+			if (maxEntries <= 0) {
+				throw new IllegalArgumentException("Max entries must be positive");
+			}
+		}
+	}
+
+	/**
+	 * On-disk result store shared by all runs pointing at {@code path}, consulted by the evaluator
+	 * before it starts the runner. Compacted to half of {@code maxBytes} when full.
+	 */
+	public record ResultStore(Path path, Long maxBytes) {
+
+		public ResultStore {
+			Objects.requireNonNull(path, "Result store path must not be null");
+			maxBytes = maxBytes == null ? 256L * 1024 * 1024 : maxBytes;
+			if (maxBytes < 1024) {
+				throw new IllegalArgumentException("Result store max bytes must be at least 1024");
+			}
+		}
+	}
+
+	/**
+	 * Long-lived runner processes evaluating candidates over line-delimited JSON instead of a
+	 * fresh process per evaluation. {@code script} defaults to the runner.
+	 */
+	public record WorkerPool(Path script, Integer size, Integer maxEvaluations,
+			Duration healthCheckInterval, Duration startTimeout) {
+
+		public WorkerPool {
+			size = size == null ? 1 : size;
+			maxEvaluations = maxEvaluations == null ? 100 : maxEvaluations;
+			healthCheckInterval =
+					healthCheckInterval == null ? Duration.ofSeconds(30) : healthCheckInterval;
+			startTimeout = startTimeout == null ? Duration.ofSeconds(30) : startTimeout;
+			if (size <= 0 || maxEvaluations <= 0) {
+				throw new IllegalArgumentException(
+						"Worker pool size and max evaluations must be positive");
+			}
+		}
+	}
+
+	/**
+	 * Cheap evaluation run before the runner; only candidates meeting {@code thresholds} and, with
+	 * {@code compareIncumbent}, not dominated by their cell incumbent are evaluated further.
+	 */
+	public record CascadeStage(String name, Path script, Duration timeout,
+			Map<String, Double> thresholds, Boolean compareIncumbent) {
+
+		public CascadeStage {
+			Objects.requireNonNull(script, "Cascade stage script must not be null");
+			thresholds = thresholds == null ? Map.of() : thresholds;
+			compareIncumbent = compareIncumbent == null ? false : compareIncumbent;
+		}
+	}
+
+	/**
+	 * Parses runner output while it runs, keeping only the last {@code tailChars} characters of
+	 * stdout and stderr; {@code stopOnMetrics} kills the runner once its metrics were printed.
+	 */
+	public record Streaming(Integer tailChars, Boolean stopOnMetrics) {
+
+		public Streaming {
+			tailChars = tailChars == null ? 64 * 1024 : tailChars;
+			stopOnMetrics = stopOnMetrics == null ? false : stopOnMetrics;
+			if (tailChars <= 0) {
+				throw new IllegalArgumentException("Streaming tail size must be positive");
+			}
+		}
+	}
+
+	/**
+	 * Resource limits of each runner process and its children, applied with {@code ulimit}.
+	 * Unset limits are not applied; {@code addressSpace} is in bytes.
+	 */
+	public record Limits(Duration cpuTime, Long addressSpace, Integer openFiles) {
+
+		public Limits {
+			if ((cpuTime != null && (cpuTime.isNegative() || cpuTime.isZero()))
+					|| (addressSpace != null && addressSpace <= 0)
+					|| (openFiles != null && openFiles <= 0)) {
+				throw new IllegalArgumentException("Runner limits must be positive");
+			}
+		}
+	}
+
+	/**
+	 * Pins runner processes to disjoint slots of {@code coresPerSlot} CPUs taken from
+	 * {@code cpus} (default all CPUs the JVM may use) and runs at most one per slot.
+	 */
+	public record Affinity(Integer coresPerSlot, String cpus) {
+
+		public Affinity {
+			coresPerSlot = coresPerSlot == null ? 1 : coresPerSlot;
+			if (coresPerSlot <= 0) {
+				throw new IllegalArgumentException("Cores per slot must be positive");
+			}
+		}
+	}
+
+	/**
+	 * Runs the runner {@code runs} to {@code maxRuns} times per candidate and aggregates its
+	 * numeric metrics; more runs are added while the metrics are noisy or close to the incumbent.
+	 */
+	public record Repeat(Integer runs, Integer maxRuns, RepeatedMeasurement.Aggregate aggregate,
+			Double trim, Double tolerance, Double margin) {
+
+		public Repeat {
+			runs = runs == null ? 3 : runs;
+			maxRuns = maxRuns == null ? runs : maxRuns;
+			aggregate = aggregate == null ? RepeatedMeasurement.Aggregate.MEDIAN : aggregate;
+			trim = trim == null ? 0.2 : trim;
+			tolerance = tolerance == null ? 0.05 : tolerance;
+			margin = margin == null ? 0.02 : margin;
+			if (runs <= 0 || maxRuns < runs) {
+				throw new IllegalArgumentException("Runs must be positive and at most max runs");
+			}
 		}
 	}
 
@@ -96,13 +250,14 @@ public record OpenEvolveConfig(Solution solution, Selection selection, Migration
 	}
 
 	public record Repository(Integer checkpointInterval, Integer populationSize,
-			Integer archiveSize, Integer islands) {
+			Integer archiveSize, Integer islands, Boolean paretoRanking) {
 
 		public Repository {
 			checkpointInterval = checkpointInterval == null ? 10 : checkpointInterval;
 			populationSize = populationSize == null ? 50 : populationSize;
 			archiveSize = archiveSize == null ? 10 : archiveSize;
 			islands = islands == null ? 2 : islands;
+			paretoRanking = paretoRanking != null && paretoRanking;
 			if (checkpointInterval < 0) {
 				throw new IllegalArgumentException("Checkpoint interval must be non-negative");
 			}
@@ -118,11 +273,16 @@ public record OpenEvolveConfig(Solution solution, Selection selection, Migration
 		}
 	}
 
-	public record MAPElites(Integer numIterations, Integer bins, List<String> dimensions) {
+	public record MAPElites(Integer numIterations, Integer bins, List<String> dimensions,
+			Integer parallelism, Pipeline pipeline, Cvt cvt) {
 
 		public MAPElites {
 			numIterations = numIterations == null ? 100 : numIterations;
 			bins = bins == null ? 10 : bins;
+			parallelism = parallelism == null ? 1 : parallelism;
+			if (parallelism <= 0) {
+				throw new IllegalArgumentException("Parallelism must be positive");
+			}
 			if (bins <= 0) {
 				throw new IllegalArgumentException("Bins must be positive");
 			}
@@ -134,8 +294,52 @@ public record OpenEvolveConfig(Solution solution, Selection selection, Migration
 		}
 	}
 
+	/**
+	 * CVT-MAP-Elites archive: {@code centroids} niches placed by k-means over {@code samples}
+	 * uniform points of the scaled descriptor space, replacing the {@code bins^d} grid.
+	 */
+	public record Cvt(Integer centroids, Integer samples, Integer iterations, Long seed) {
+
+		public Cvt {
+			centroids = centroids == null ? 1000 : centroids;
+			samples = samples == null ? centroids * 20 : samples;
+			iterations = iterations == null ? 20 : iterations;
+			seed = seed == null ? 42L : seed;
+			if (centroids <= 0) {
+				throw new IllegalArgumentException("Centroids must be positive");
+			}
+			if (samples < centroids) {
+				throw new IllegalArgumentException("Samples must be at least the number of centroids");
+			}
+			if (iterations < 0) {
+				throw new IllegalArgumentException("Iterations must be non-negative");
+			}
+		}
+	}
+
+	public record Pipeline(Integer generators, Integer evaluators, Integer queueCapacity) {
+
+		public Pipeline {
+			generators = generators == null ? 1 : generators;
+			evaluators = evaluators == null ? 1 : evaluators;
+			queueCapacity = queueCapacity == null ? Math.max(generators, evaluators) : queueCapacity;
+			if (generators <= 0 || evaluators <= 0 || queueCapacity <= 0) {
+				throw new IllegalArgumentException(
+						"Pipeline workers and queue capacity must be positive");
+			}
+		}
+	}
+
+	/**
+	 * @param weights static weight per model name (default 1), the routing prior
+	 * @param limits request limits per model name
+	 * @param hedging duplicate slow calls to another model; null to never hedge
+	 */
 	public record LLM(@JsonIgnore Map<String, List<PromptTemplate>> prompts,
-			List<OpenAiChatOptions> models, String apiUrl, String apiKey) {
+			List<OpenAiChatOptions> models, String apiUrl, String apiKey,
+			Map<String, Double> weights, Routing routing, Map<String, RateLimit> limits,
+			Hedging hedging, ResponseStreaming streaming, Map<String, Integer> promptTokens,
+			Integer childrenPerCall) {
 		public LLM {
 			Objects.requireNonNull(models);
 			if (models.isEmpty()) {
@@ -143,6 +347,81 @@ public record OpenEvolveConfig(Solution solution, Selection selection, Migration
 			}
 			Objects.requireNonNull(apiUrl);
 			Objects.requireNonNull(apiKey);
+			weights = weights == null ? Map.of() : weights;
+			routing = routing == null ? new Routing(null, null, null, null, null) : routing;
+			limits = limits == null ? Map.of() : limits;
+			promptTokens = promptTokens == null ? Map.of() : promptTokens;
+			if (promptTokens.values().stream().anyMatch(tokens -> tokens == null || tokens <= 0)) {
+				throw new IllegalArgumentException("Prompt token budgets must be positive");
+			}
+			childrenPerCall = childrenPerCall == null ? 1 : childrenPerCall;
+			if (childrenPerCall <= 0) {
+				throw new IllegalArgumentException("Children per call must be positive");
+			}
+		}
+	}
+
+	/**
+	 * Limits of one model; requests over a limit wait. Unset limits are not applied.
+	 */
+	public record RateLimit(Integer maxInFlight, Integer requestsPerMinute,
+			Integer tokensPerMinute) {
+
+		public RateLimit {
+			if ((maxInFlight != null && maxInFlight <= 0)
+					|| (requestsPerMinute != null && requestsPerMinute <= 0)
+					|| (tokensPerMinute != null && tokensPerMinute <= 0)) {
+				throw new IllegalArgumentException("Rate limits must be positive");
+			}
+		}
+	}
+
+	/**
+	 * A call still running after the {@code percentile} latency of its model, measured over at
+	 * least {@code minSamples} calls, is duplicated to another model.
+	 */
+	public record Hedging(Double percentile, Integer minSamples) {
+
+		public Hedging {
+			percentile = percentile == null ? 0.95 : percentile;
+			minSamples = minSamples == null ? 20 : minSamples;
+			if (percentile <= 0 || percentile > 1 || minSamples <= 0) {
+				throw new IllegalArgumentException(
+						"Hedging percentile must be in (0, 1] and min samples positive");
+			}
+		}
+	}
+
+	/**
+	 * Stream responses and abandon them once longer than {@code maxTokens} (unset for no limit)
+	 * or, with {@code validate}, at the first SEARCH line that matches nowhere in the parent.
+	 */
+	public record ResponseStreaming(Integer maxTokens, Boolean validate) {
+
+		public ResponseStreaming {
+			validate = validate == null ? true : validate;
+			if (maxTokens != null && maxTokens <= 0) {
+				throw new IllegalArgumentException("Streaming max tokens must be positive");
+			}
+		}
+	}
+
+	/**
+	 * How {@link LLMEnsemble} picks a model; the bandit strategies weigh improvement yield,
+	 * reliability (no errors) and speed (median latency) of each model.
+	 */
+	public record Routing(LLMEnsemble.Strategy strategy, Double yieldWeight,
+			Double reliabilityWeight, Double latencyWeight, Double exploration) {
+
+		public Routing {
+			strategy = strategy == null ? LLMEnsemble.Strategy.RANDOM : strategy;
+			yieldWeight = yieldWeight == null ? 1.0 : yieldWeight;
+			reliabilityWeight = reliabilityWeight == null ? 1.0 : reliabilityWeight;
+			latencyWeight = latencyWeight == null ? 0.5 : latencyWeight;
+			exploration = exploration == null ? 1.0 : exploration;
+			if (yieldWeight < 0 || reliabilityWeight < 0 || latencyWeight < 0 || exploration < 0) {
+				throw new IllegalArgumentException("Routing weights must not be negative");
+			}
 		}
 	}
 
@@ -1,60 +1,301 @@
 package openevolve;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import openevolve.util.BashExecutor;
+import openevolve.util.CpuScheduler;
+import openevolve.util.RepeatedMeasurement;
+import openevolve.util.ResultStore;
+import openevolve.util.WorkerPool;
+import openevolve.util.WorkspaceMaterializer;
 
 public class OpenEvolveEvaluator implements Function<EvolveSolution, Map<String, Object>> {
 
+	private static final Logger LOG = LoggerFactory.getLogger(OpenEvolveEvaluator.class);
+
 	private final Path runner;
 	private final Duration evalTimeout;
 	private final Collection<String> metrics;
 	private final ObjectMapper mapper;
+	private final byte[] runnerDigest;
+	private final ResultStore store;
+	private final WorkspaceMaterializer materializer;
+	private final WorkerPool pool;
+	private final BashExecutor.Streaming streaming;
+	private final BashExecutor.Limits limits;
+	private final CpuScheduler scheduler;
+	private final RepeatedMeasurement repetition;
+	private volatile BiFunction<EvolveSolution, Map<String, Object>, Map<String, Object>> incumbent;
 
 	public OpenEvolveEvaluator(Path runner, Collection<String> metrics, Duration timeoutConfig,
 			ObjectMapper mapper) {
+		this(runner, metrics, timeoutConfig, mapper, null,
+				new WorkspaceMaterializer(WorkspaceMaterializer.Strategy.COPY), null, null,
+				BashExecutor.Limits.NONE, null, null);
+	}
+
+	/**
+	 * @param store results of earlier runs keyed by {@link #fingerprint}, consulted before the
+	 *        runner is started; null to always run it
+	 * @param materializer builds the solution directory from its parent before the runner starts
+	 * @param pool long-lived workers evaluating the solution directory; null to start the runner
+	 *        once per evaluation
+	 * @param streaming parse the runner output while it runs, keeping only its tail; null to
+	 *        collect the whole output first
+	 * @param limits resource limits of each runner and cascade stage process, not applied to
+	 *        pooled workers
+	 * @param scheduler limits concurrent runner and cascade stage processes to its slots and pins
+	 *        each to the CPUs of its slot; null to run them unpinned as they come
+	 * @param repetition runs the runner (or pooled evaluation) repeatedly and aggregates the
+	 *        results; null to run it once. Concurrent runs each get their own copy of the
+	 *        solution directory, built like the directory itself and deleted afterwards
+	 */
+	public OpenEvolveEvaluator(Path runner, Collection<String> metrics, Duration timeoutConfig,
+			ObjectMapper mapper, ResultStore store, WorkspaceMaterializer materializer,
+			WorkerPool pool, BashExecutor.Streaming streaming, BashExecutor.Limits limits,
+			CpuScheduler scheduler, RepeatedMeasurement repetition) {
 		Objects.requireNonNull(mapper);
+		Objects.requireNonNull(materializer);
+		Objects.requireNonNull(limits);
+		this.limits = limits;
+		this.scheduler = scheduler;
+		this.repetition = repetition;
+		this.store = store;
+		this.materializer = materializer;
+		this.pool = pool;
+		this.streaming = streaming;
 		this.runner = runner;
 		this.evalTimeout = timeoutConfig;
 		this.mapper = mapper;
 		this.metrics = metrics;
+		this.runnerDigest = runnerDigest(runner, metrics, timeoutConfig,
+				pool != null ? pool.script() : null, repetition);
+	}
+
+	/**
+	 * @return SHA-256 of the solution content together with the runner script and, with a pool,
+	 *         the worker script (paths and contents), metric names, timeout and repetition
+	 *         settings, usable as an evaluation cache key
+	 */
+	public String fingerprint(EvolveSolution solution) {
+		var digest = sha256();
+		digest.update(runnerDigest);
+		digest.update(Objects.toString(solution.content(), "").getBytes(StandardCharsets.UTF_8));
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	/**
+	 * @param poolScript worker script producing the metrics in pool mode, null without a pool
+	 * @param repetition null for single runs
+	 */
+	private static byte[] runnerDigest(Path runner, Collection<String> metrics, Duration timeout,
+			Path poolScript, RepeatedMeasurement repetition) {
+		var digest = sha256();
+		digest.update(String.valueOf(runner).getBytes(StandardCharsets.UTF_8));
+		digest.update(String.valueOf(new TreeSet<>(metrics)).getBytes(StandardCharsets.UTF_8));
+		digest.update(String.valueOf(timeout).getBytes(StandardCharsets.UTF_8));
+		updateContent(digest, runner);
+		if (poolScript != null) {
+			digest.update(String.valueOf(poolScript).getBytes(StandardCharsets.UTF_8));
+			updateContent(digest, poolScript);
+		}
+		if (repetition != null) {
+			digest.update(repetition.settings().getBytes(StandardCharsets.UTF_8));
+		}
+		return digest.digest();
+	}
+
+	private static void updateContent(MessageDigest digest, Path script) {
+		try {
+			digest.update(Files.readAllBytes(script));
+		} catch (Exception e) {
+			// no readable script yet, evaluations will fail anyway and are not cached
+		}
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
 	}
 
 	@Override
 	public Map<String, Object> apply(EvolveSolution solution) {
 		Objects.requireNonNull(solution);
 		try {
-			if (solution.content() == null || solution.content().isEmpty()) {
-				throw new IllegalArgumentException("Solution content must not be null or empty");
+			materialize(solution);
+			var key = store != null ? fingerprint(solution) : null;
+			var stored = key != null ? load(key) : null;
+			if (stored != null) {
+				return stored;
 			}
-			Files.walkFileTree(solution.parentPath(),
-					Constants.COPY_VISITOR.apply(solution.parentPath(), solution.path()));
-			var code = Code.fromContent(solution.content(), solution.path());
-			for (SourceFile sourceFile : code.files()) {
-				var sourcePath = sourceFile.path();
-				try {
-					Files.createDirectories(sourcePath.getParent());
-					Files.writeString(sourcePath, sourceFile.sourceCode(),
-							StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-				} catch (Exception e) {
-					throw new RuntimeException("Failed to write source file: " + sourceFile.path(),
-							e);
-				}
+			var result = repetition != null ? measureRepeatedly(solution)
+					: measure(solution.path());
+			if (key != null && !result.containsKey("error")) {
+				save(key, result);
 			}
-			return BashExecutor.runScript(runner, List.of(), evalTimeout, solution.path(), Map.of(),
-					StandardCharsets.UTF_8).extractMetrics(mapper, metrics);
+			return result;
 		} catch (Throwable t) {
 			var errorMessage = "Failed to evaluate bash script: " + runner;
 			return Map.of(Constants.COMBINED_SCORE, 0.0, "error", errorMessage);
 		}
 	}
+
+	/**
+	 * Builds the solution directory without running anything, for candidates whose metrics come
+	 * from a cache: their children are materialized from it.
+	 *
+	 * @throws UncheckedIOException if the directory cannot be built
+	 */
+	public void prepare(EvolveSolution solution) {
+		Objects.requireNonNull(solution);
+		try {
+			materialize(solution);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to materialize " + solution.path(), e);
+		}
+	}
+
+	/**
+	 * @param incumbent maps a candidate and its metrics so far to the metrics of the solution it
+	 *        would compete with, null if there is none; repeated measurements add runs for
+	 *        candidates close to it
+	 */
+	public void setIncumbent(
+			BiFunction<EvolveSolution, Map<String, Object>, Map<String, Object>> incumbent) {
+		this.incumbent = incumbent;
+	}
+
+	private Map<String, Object> measure(Path workingDir)
+			throws IOException, InterruptedException {
+		return pool != null ? pool.evaluate(workingDir, evalTimeout, metrics)
+				: run(runner, evalTimeout, workingDir);
+	}
+
+	/**
+	 * Runs slot 0 in the solution directory and every other slot in a sibling copy, so runs
+	 * writing to their working directory do not interfere.
+	 */
+	private Map<String, Object> measureRepeatedly(EvolveSolution solution)
+			throws IOException, InterruptedException {
+		var lookup = incumbent;
+		var copies = new ConcurrentHashMap<Integer, Path>();
+		try {
+			return repetition.measure(slot -> measure(slot == 0 ? solution.path()
+					: copy(solution, slot, copies)), metrics,
+					lookup != null ? measured -> lookup.apply(solution, measured) : null);
+		} finally {
+			for (var copy : copies.values()) {
+				try {
+					WorkspaceMaterializer.delete(copy);
+				} catch (IOException e) {
+					LOG.warn("Failed to delete run directory {}", copy, e);
+				}
+			}
+		}
+	}
+
+	private Path copy(EvolveSolution solution, int slot, Map<Integer, Path> copies)
+			throws IOException {
+		var copy = copies.get(slot);
+		if (copy == null) {
+			// slots are never used concurrently, so each copy is built by one thread
+			copy = solution.path().resolveSibling(solution.path().getFileName() + "-run" + slot);
+			copies.put(slot, copy);
+			// from the parent, not the solution directory slot 0 may be writing to
+			materialize(solution, copy);
+		}
+		return copy;
+	}
+
+	/**
+	 * @return a cascade stage running {@code script} in the solution directory, which is
+	 *         materialized by whichever of the stages and {@link #apply} runs first
+	 */
+	public Function<EvolveSolution, Map<String, Object>> stage(Path script, Duration timeout) {
+		Objects.requireNonNull(script);
+		Objects.requireNonNull(timeout);
+		return solution -> {
+			Objects.requireNonNull(solution);
+			try {
+				materialize(solution);
+				return run(script, timeout, solution.path());
+			} catch (Throwable t) {
+				var errorMessage = "Failed to evaluate bash script: " + script;
+				return Map.of(Constants.COMBINED_SCORE, 0.0, "error", errorMessage);
+			}
+		};
+	}
+
+	private Map<String, Object> run(Path script, Duration timeout, Path workingDir)
+			throws IOException, InterruptedException {
+		var result = scheduler != null
+				? scheduler.run(cpus -> BashExecutor.runScript(script, List.of(), timeout,
+						workingDir, Map.of(), StandardCharsets.UTF_8, mapper, metrics, streaming,
+						cpus != null ? limits.withCpus(cpus) : limits))
+				: BashExecutor.runScript(script, List.of(), timeout, workingDir, Map.of(),
+						StandardCharsets.UTF_8, mapper, metrics, streaming, limits);
+		LOG.debug("{} in {} took {} wall, {} CPU, {} bytes peak RSS", script.getFileName(),
+				workingDir, result.duration(), result.cpuTime(), result.peakRssBytes());
+		return result.extractMetrics(mapper, metrics);
+	}
+
+	private void materialize(EvolveSolution solution) throws IOException {
+		if (solution.content() == null || solution.content().isEmpty()) {
+			throw new IllegalArgumentException("Solution content must not be null or empty");
+		}
+		if (Files.isDirectory(solution.path())) {
+			// every candidate gets a fresh directory, so it was built by an earlier cascade stage
+			return;
+		}
+		materialize(solution, solution.path());
+	}
+
+	private void materialize(EvolveSolution solution, Path target) throws IOException {
+		var code = Code.fromContent(solution.content(), target);
+		var sources = new LinkedHashMap<Path, String>();
+		for (SourceFile sourceFile : code.files()) {
+			sources.put(sourceFile.path(), sourceFile.sourceCode());
+		}
+		materializer.materialize(solution.parentPath(), target, sources);
+	}
+
+	private Map<String, Object> load(String key) {
+		try {
+			var bytes = store.get(key);
+			return bytes != null ? mapper.readValue(bytes, Constants.MAP_TYPE_REF) : null;
+		} catch (Exception e) {
+			LOG.warn("Failed to read stored result, evaluating again", e);
+			return null;
+		}
+	}
+
+	private void save(String key, Map<String, Object> result) {
+		try {
+			store.put(key, mapper.writeValueAsBytes(result));
+		} catch (Exception e) {
+			LOG.warn("Failed to store evaluation result", e);
+		}
+	}
 }
@@ -24,6 +24,14 @@ public class OpenEvolveFunction
 
 	@Override
 	public EvolveSolution apply(List<Solution<EvolveSolution>> t) {
+		return evolveFunction.apply(step(t));
+	}
+
+	/**
+	 * @param t the selected parent followed by its inspirations
+	 * @return what the evolve function is given for {@code t}
+	 */
+	public EvolveStep step(List<Solution<EvolveSolution>> t) {
 		if (t == null || t.isEmpty()) {
 			throw new IllegalArgumentException("Parent solutions must not be null or empty");
 		}
@@ -36,7 +44,6 @@ public class OpenEvolveFunction
 		var islandTopSolutions = islandSolutions.stream()
 				.limit(numberDiverseSolutions + numberTopSolutions).toList();
 		var islandPreviousSolutions = islandSolutions.stream().limit(numberTopSolutions).toList();
-		return evolveFunction.apply(
-				new EvolveStep(parent, inspirations, islandPreviousSolutions, islandTopSolutions));
+		return new EvolveStep(parent, inspirations, islandPreviousSolutions, islandTopSolutions);
 	}
 }
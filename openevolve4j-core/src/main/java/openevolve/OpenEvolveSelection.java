@@ -2,7 +2,6 @@ package openevolve;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
@@ -10,6 +9,10 @@ import java.util.Random;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import openevolve.mapelites.CellIndex;
+import openevolve.mapelites.CentroidalTessellation;
+import openevolve.mapelites.Grid;
+import openevolve.mapelites.ParetoRanking;
 import openevolve.mapelites.Repository;
 import openevolve.mapelites.Repository.Island;
 import openevolve.mapelites.Repository.Solution;
@@ -24,10 +27,33 @@ public class OpenEvolveSelection
 	private final double eliteSelectionRatio;
 	private final int numInspirations;
 	private final int featureBins;
+	private final ParetoRanking<EvolveSolution> ranking;
+	private final CentroidalTessellation tessellation;
 
 	public OpenEvolveSelection(Repository<EvolveSolution> repository, Random random,
 			double explorationRatio, double exploitationRatio, double eliteSelectionRatio,
 			int numInspirations, int featureBins) {
+		this(repository, random, explorationRatio, exploitationRatio, eliteSelectionRatio,
+				numInspirations, featureBins, null);
+	}
+
+	public OpenEvolveSelection(Repository<EvolveSolution> repository, Random random,
+			double explorationRatio, double exploitationRatio, double eliteSelectionRatio,
+			int numInspirations, int featureBins, ParetoRanking<EvolveSolution> ranking) {
+		this(repository, random, explorationRatio, exploitationRatio, eliteSelectionRatio,
+				numInspirations, featureBins, ranking, null);
+	}
+
+	/**
+	 * @param ranking when set, exploitation parents are picked by a binary crowded tournament
+	 *        over the archive instead of uniformly
+	 * @param tessellation the archive's centroids in CVT mode, where cells are centroid ids and
+	 *        nearby inspirations come from the centroids closest to the parent's; null on a grid
+	 */
+	public OpenEvolveSelection(Repository<EvolveSolution> repository, Random random,
+			double explorationRatio, double exploitationRatio, double eliteSelectionRatio,
+			int numInspirations, int featureBins, ParetoRanking<EvolveSolution> ranking,
+			CentroidalTessellation tessellation) {
 		this.repository = repository;
 		this.random = random;
 		this.explorationRatio = explorationRatio;
@@ -35,6 +61,8 @@ public class OpenEvolveSelection
 		this.eliteSelectionRatio = eliteSelectionRatio;
 		this.numInspirations = numInspirations;
 		this.featureBins = featureBins;
+		this.ranking = ranking;
+		this.tessellation = tessellation;
 	}
 
 	@Override
@@ -80,11 +108,21 @@ public class OpenEvolveSelection
 		var archiveProgramsInIsland = archive.stream().filter(Objects::nonNull)
 				.filter(s -> s.islandId() == currentIsland).collect(Collectors.toList());
 
-		if (!archiveProgramsInIsland.isEmpty()) {
-			return archiveProgramsInIsland.get(random.nextInt(archiveProgramsInIsland.size()));
+		var candidates = archiveProgramsInIsland.isEmpty() ? archive : archiveProgramsInIsland;
+		if (ranking != null) {
+			return crowdedTournament(candidates);
 		}
+		return candidates.get(random.nextInt(candidates.size()));
+	}
 
-		return archive.get(random.nextInt(archive.size()));
+	protected Solution<EvolveSolution> crowdedTournament(List<Solution<EvolveSolution>> candidates) {
+		var first = candidates.get(random.nextInt(candidates.size()));
+		var second = candidates.get(random.nextInt(candidates.size()));
+		if (first == second) {
+			return first;
+		}
+		var ranked = ranking.rank(candidates);
+		return ranked.compare(first, second) >= 0 ? first : second;
 	}
 
 	protected Solution<EvolveSolution> sampleRandomParent() {
@@ -133,27 +171,38 @@ public class OpenEvolveSelection
         if (islandSolutions.size() > n && inspirations.size() < n) {
             int remainingSlots = n - inspirations.size();
 
-            // Create island-specific feature mapping for efficient lookup
-            var islandFeatureMap = new HashMap<String, UUID>();
-            for (var solution : islandSolutions) {
-                islandFeatureMap.put(solution.cellId(), solution.id());
+            // Map packed cell index -> position in the island list (last one per cell wins)
+            var islandCells = new CellIndex(islandSolutions.size());
+            for (int i = 0; i < islandSolutions.size(); i++) {
+                long index = Grid.pack(islandSolutions.get(i).cell(), featureBins);
+                if (index >= 0) {
+                    islandCells.put(index, i);
+                }
             }
 
             // Try to find programs from nearby feature cells within the island
+            var perturbed = new int[parent.cell().length];
+            // centroid ids carry no spatial order, so CVT niches are visited nearest first
+            var neighbours = tessellation != null
+                    ? tessellation.neighbours(parent.cell()[0], remainingSlots * 3)
+                    : null;
             for (int attempt = 0; attempt < remainingSlots * 3 && nearbySolutions.size() < remainingSlots; attempt++) {
-                var perturbedCoords = new ArrayList<Integer>();
-                for (var coord : parent.cell()) {
-                    int perturbed = Math.max(0, Math.min(featureBins - 1, coord + random.nextInt(5) - 2));
-                    perturbedCoords.add(perturbed);
+                if (neighbours != null) {
+                    if (attempt >= neighbours.length) {
+                        break;
+                    }
+                    perturbed[0] = neighbours[attempt];
+                } else {
+                    for (int i = 0; i < perturbed.length; i++) {
+                        perturbed[i] = Math.max(0, Math.min(featureBins - 1, parent.cell()[i] + random.nextInt(5) - 2));
+                    }
                 }
 
-                var cellKey = Solution.cellToKey(perturbedCoords.stream().mapToInt(i -> i).toArray());
-                var programId = islandFeatureMap.get(cellKey);
-                if (programId != null && !selectedIds.contains(programId)) {
-                    var program = repository.findById(programId);
-                    if (program != null) {
+                int position = islandCells.get(Grid.pack(perturbed, featureBins));
+                if (position >= 0) {
+                    var program = islandSolutions.get(position);
+                    if (selectedIds.add(program.id())) {
                         nearbySolutions.add(program);
-                        selectedIds.add(program.id());
                     }
                 }
             }
@@ -0,0 +1,179 @@
+package openevolve;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import openevolve.mapelites.Cascade;
+import openevolve.mapelites.MAPElites;
+import openevolve.mapelites.Repository;
+import openevolve.mapelites.Repository.Island;
+import openevolve.mapelites.Repository.Solution;
+import openevolve.mapelites.listener.MAPElitesListener;
+import openevolve.util.WorkspaceMaterializer;
+
+/**
+ * Hands out the directories candidate solutions are evaluated in and deletes them once no
+ * solution in the repository refers to them any more.
+ *
+ * <p>
+ * A directory is owned by every repository solution whose {@link EvolveSolution#path()} it is
+ * (migrated copies share the directory of their original), as reported through
+ * {@link Repository.ChangeListener}. When the last owner is deleted or evicted the directory is
+ * removed on a background thread, as is the directory of a candidate rejected by the cascade,
+ * which never gets an owner. Parents selected for an iteration are pinned until that
+ * iteration completes or fails, so a child can still be materialized from a parent that was evicted in the
+ * meantime. Only directories under {@link #root()} are ever deleted.
+ */
+public class WorkspaceManager implements MAPElitesListener<EvolveSolution>,
+		Repository.ChangeListener<EvolveSolution>, AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WorkspaceManager.class);
+
+	private final Path root;
+	private final Map<Path, Set<UUID>> owners = new HashMap<>();
+	private final Map<Path, Integer> pins = new HashMap<>();
+	private final Set<Path> orphans = new HashSet<>();
+	private final Map<Integer, List<Path>> pinnedByIteration = new HashMap<>();
+	private final ExecutorService deleter = Executors.newSingleThreadExecutor(
+			Thread.ofPlatform().name("workspace-gc").daemon().factory());
+
+	/**
+	 * @param root directory new workspaces are created in, e.g. a tmpfs mount for scratch space
+	 */
+	public WorkspaceManager(Path root) {
+		this.root = Objects.requireNonNull(root, "Root must not be null").toAbsolutePath()
+				.normalize();
+	}
+
+	public Path root() {
+		return root;
+	}
+
+	/**
+	 * @return a fresh directory path under {@link #root()}; the directory itself is created when
+	 *         the candidate is materialized
+	 */
+	public Path allocate() {
+		return root.resolve(RandomStringUtils.secure().next(8, true, true));
+	}
+
+	@Override
+	public synchronized void onSaved(Solution<EvolveSolution> solution) {
+		var path = key(solution);
+		owners.computeIfAbsent(path, _ -> new HashSet<>()).add(solution.id());
+		orphans.remove(path);
+	}
+
+	@Override
+	public synchronized void onDeleted(Solution<EvolveSolution> solution) {
+		var path = key(solution);
+		var ids = owners.get(path);
+		if (ids == null || !ids.remove(solution.id()) || !ids.isEmpty()) {
+			return;
+		}
+		owners.remove(path);
+		if (path.startsWith(root) && !path.equals(root)) {
+			orphans.add(path);
+			collect(path);
+		}
+	}
+
+	@Override
+	public synchronized void onSolutionSelection(List<Solution<EvolveSolution>> selectedSolutions,
+			Island island, int iteration) {
+		var pinned = pinnedByIteration.computeIfAbsent(iteration, _ -> new ArrayList<>());
+		for (var solution : selectedSolutions) {
+			var path = key(solution);
+			pins.merge(path, 1, Integer::sum);
+			pinned.add(path);
+		}
+	}
+
+	/**
+	 * Schedules the directory of a candidate rejected by the cascade for deletion; it is never
+	 * saved, so no repository solution will own it.
+	 */
+	@Override
+	public synchronized void onSolutionGenerated(Solution<EvolveSolution> newSolution,
+			List<Solution<EvolveSolution>> parents, int iteration) {
+		if (newSolution.fitness() == null
+				|| !newSolution.fitness().containsKey(Cascade.REJECTED_AT)) {
+			return;
+		}
+		var path = key(newSolution);
+		if (!owners.containsKey(path) && path.startsWith(root) && !path.equals(root)) {
+			orphans.add(path);
+			collect(path);
+		}
+	}
+
+	@Override
+	public void onAfterIteration(Island island, int iteration,
+			MAPElites<EvolveSolution> mapElites) {
+		unpin(iteration);
+	}
+
+	@Override
+	public void onIterationFailed(Island island, int iteration, Throwable error,
+			MAPElites<EvolveSolution> mapElites) {
+		unpin(iteration);
+	}
+
+	/**
+	 * Waits for scheduled deletions to finish and stops the background thread.
+	 */
+	@Override
+	public void close() throws InterruptedException {
+		deleter.shutdown();
+		if (!deleter.awaitTermination(1, TimeUnit.MINUTES)) {
+			LOG.warn("Workspace deletions did not finish within a minute");
+		}
+	}
+
+	private synchronized void unpin(int iteration) {
+		var pinned = pinnedByIteration.remove(iteration);
+		if (pinned == null) {
+			return;
+		}
+		for (var path : pinned) {
+			if (pins.merge(path, -1, Integer::sum) <= 0) {
+				pins.remove(path);
+				collect(path);
+			}
+		}
+	}
+
+	private void collect(Path path) {
+		if (pins.containsKey(path) || !orphans.remove(path)) {
+			return;
+		}
+		deleter.execute(() -> delete(path));
+	}
+
+	private static Path key(Solution<EvolveSolution> solution) {
+		return solution.solution().path().toAbsolutePath().normalize();
+	}
+
+	private static void delete(Path path) {
+		try {
+			// a path that was never materialized, e.g. the candidate failed before evaluation, is
+			// ignored
+			WorkspaceMaterializer.delete(path);
+		} catch (IOException e) {
+			LOG.warn("Failed to delete workspace {}", path, e);
+		}
+	}
+}
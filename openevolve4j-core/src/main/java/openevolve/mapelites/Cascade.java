@@ -0,0 +1,64 @@
+package openevolve.mapelites;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Cheap evaluation stages run in order before the fitness function. A candidate that fails a
+ * stage keeps that stage's metrics, marked with {@link #REJECTED_AT}, never reaches the fitness
+ * function and is not added to the archive. See {@link MAPElites#setCascade}.
+ *
+ * @param stages stages in the order they run, the fitness function is the implicit last stage
+ */
+public record Cascade<T>(List<Stage<T>> stages) {
+
+	/**
+	 * Metric added to the fitness of a rejected candidate, holding the name of the stage that
+	 * rejected it.
+	 */
+	public static final String REJECTED_AT = "cascade_rejected";
+
+	public Cascade {
+		Objects.requireNonNull(stages, "Stages must not be null");
+		if (stages.isEmpty()) {
+			throw new IllegalArgumentException("Cascade must have at least one stage");
+		}
+		stages = List.copyOf(stages);
+	}
+
+	/**
+	 * @param evaluator computes the stage metrics of a candidate
+	 * @param gate decides from the stage metrics whether the candidate proceeds
+	 * @param compareIncumbent also fail candidates whose stage metrics are dominated by the
+	 *        incumbent of the cell they map to
+	 */
+	public record Stage<T>(String name, Function<T, Map<String, Object>> evaluator,
+			Predicate<Map<String, Object>> gate, boolean compareIncumbent) {
+
+		public Stage {
+			Objects.requireNonNull(name, "Stage name must not be null");
+			Objects.requireNonNull(evaluator, "Stage evaluator must not be null");
+			gate = gate == null ? _ -> true : gate;
+		}
+	}
+
+	/**
+	 * @return a gate requiring each metric to be at least its threshold; missing or non-numeric
+	 *         metrics fail
+	 */
+	public static Predicate<Map<String, Object>> thresholds(Map<String, Double> thresholds) {
+		var copy = Map.copyOf(thresholds);
+		return metrics -> {
+			for (var threshold : copy.entrySet()) {
+				if (!(metrics.get(threshold.getKey()) instanceof Number value)
+						|| value.doubleValue() < threshold.getValue()) {
+					return false;
+				}
+			}
+			return true;
+		};
+	}
+}
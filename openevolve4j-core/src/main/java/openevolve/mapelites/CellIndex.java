@@ -0,0 +1,89 @@
+package openevolve.mapelites;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from packed cell index ({@link Grid#pack}) to an int, with linear probing
+ * over primitive arrays. Keys must be non-negative.
+ */
+public final class CellIndex {
+
+	private static final long EMPTY = -1L;
+
+	private long[] keys;
+	private int[] values;
+	private int size;
+	private int mask;
+
+	public CellIndex(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+		allocate(capacity);
+	}
+
+	/**
+	 * @return value stored for {@code key}, or -1 if absent
+	 */
+	public int get(long key) {
+		if (key < 0) {
+			return -1;
+		}
+		for (int i = slot(key);; i = (i + 1) & mask) {
+			long current = keys[i];
+			if (current == key) {
+				return values[i];
+			}
+			if (current == EMPTY) {
+				return -1;
+			}
+		}
+	}
+
+	public void put(long key, int value) {
+		if (key < 0) {
+			throw new IllegalArgumentException("Cell index must be non-negative");
+		}
+		for (int i = slot(key);; i = (i + 1) & mask) {
+			long current = keys[i];
+			if (current == key) {
+				values[i] = value;
+				return;
+			}
+			if (current == EMPTY) {
+				keys[i] = key;
+				values[i] = value;
+				if (++size * 2 > keys.length) {
+					rehash();
+				}
+				return;
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private int slot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		values = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	private void rehash() {
+		var oldKeys = keys;
+		var oldValues = values;
+		allocate(oldKeys.length * 2);
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,374 @@
+package openevolve.mapelites;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Centroidal Voronoi tessellation of the scaled descriptor space {@code [0, 1]^d}, used by
+ * CVT-MAP-Elites in place of a regular grid. The archive has a fixed number of niches, one per
+ * centroid, regardless of the number of feature dimensions, so memory stays bounded where
+ * {@code bins^d} cells would not. Nearest-centroid lookup goes through a k-d tree with bucketed
+ * leaves, stored in flat arrays. Immutable once built, so it may be shared between threads.
+ */
+public final class CentroidalTessellation {
+
+	private static final int LEAF_SIZE = 8;
+
+	private final int dimensions;
+	private final int size;
+	// centroids in tree order, the one at position p occupies [p * dimensions, (p + 1) * dimensions)
+	private final double[] points;
+	// centroid id at each tree position and its inverse
+	private final int[] ids;
+	private final int[] positions;
+	// inner node of the position range [lo, hi) is stored at (lo + hi) >>> 1
+	private final int[] splitDims;
+	private final double[] splitValues;
+
+	public CentroidalTessellation(double[][] centroids) {
+		Objects.requireNonNull(centroids, "Centroids must not be null");
+		if (centroids.length == 0) {
+			throw new IllegalArgumentException("Centroids must not be empty");
+		}
+		this.dimensions = centroids[0].length;
+		if (dimensions == 0) {
+			throw new IllegalArgumentException("Centroids must have at least one dimension");
+		}
+		this.size = centroids.length;
+		for (int i = 0; i < size; i++) {
+			if (centroids[i].length != dimensions) {
+				throw new IllegalArgumentException("Centroid " + i + " has " + centroids[i].length
+						+ " dimensions, expected " + dimensions);
+			}
+		}
+		this.ids = new int[size];
+		for (int i = 0; i < size; i++) {
+			ids[i] = i;
+		}
+		this.splitDims = new int[size];
+		this.splitValues = new double[size];
+		build(centroids, 0, size);
+		this.points = new double[size * dimensions];
+		this.positions = new int[size];
+		for (int p = 0; p < size; p++) {
+			System.arraycopy(centroids[ids[p]], 0, points, p * dimensions, dimensions);
+			positions[ids[p]] = p;
+		}
+	}
+
+	/**
+	 * Places {@code centroids} points in {@code [0, 1]^dimensions} with Lloyd's k-means over
+	 * {@code samples} uniformly drawn points. The first {@code centroids} samples seed the
+	 * clusters, so the result depends only on the arguments.
+	 *
+	 * @param iterations upper bound on Lloyd iterations, fewer run once assignments stop changing
+	 */
+	public static CentroidalTessellation compute(int dimensions, int centroids, int samples,
+			int iterations, long seed) {
+		if (dimensions <= 0) {
+			throw new IllegalArgumentException("Dimensions must be positive");
+		}
+		if (centroids <= 0) {
+			throw new IllegalArgumentException("Centroids must be positive");
+		}
+		if (samples < centroids) {
+			throw new IllegalArgumentException("Samples must be at least the number of centroids");
+		}
+		if (iterations < 0) {
+			throw new IllegalArgumentException("Iterations must be non-negative");
+		}
+		var random = new Random(seed);
+		var points = new double[samples * dimensions];
+		for (int i = 0; i < points.length; i++) {
+			points[i] = random.nextDouble();
+		}
+		var means = new double[centroids][];
+		for (int c = 0; c < centroids; c++) {
+			means[c] = Arrays.copyOfRange(points, c * dimensions, (c + 1) * dimensions);
+		}
+		var assignment = new int[samples];
+		Arrays.fill(assignment, -1);
+		var point = new double[dimensions];
+		var sums = new double[centroids * dimensions];
+		var counts = new int[centroids];
+		var tessellation = new CentroidalTessellation(means);
+		for (int iteration = 0; iteration < iterations; iteration++) {
+			boolean changed = false;
+			Arrays.fill(sums, 0.0);
+			Arrays.fill(counts, 0);
+			for (int i = 0; i < samples; i++) {
+				System.arraycopy(points, i * dimensions, point, 0, dimensions);
+				int nearest = tessellation.nearest(point);
+				if (assignment[i] != nearest) {
+					assignment[i] = nearest;
+					changed = true;
+				}
+				counts[nearest]++;
+				for (int k = 0; k < dimensions; k++) {
+					sums[nearest * dimensions + k] += point[k];
+				}
+			}
+			if (!changed) {
+				break;
+			}
+			for (int c = 0; c < centroids; c++) {
+				// an empty cluster keeps its previous position
+				if (counts[c] > 0) {
+					for (int k = 0; k < dimensions; k++) {
+						means[c][k] = sums[c * dimensions + k] / counts[c];
+					}
+				}
+			}
+			tessellation = new CentroidalTessellation(means);
+		}
+		return tessellation;
+	}
+
+	/**
+	 * @return number of centroids, i.e. niches of the archive
+	 */
+	public int size() {
+		return size;
+	}
+
+	public int dimensions() {
+		return dimensions;
+	}
+
+	public double[] centroid(int id) {
+		int p = positions[Objects.checkIndex(id, size)];
+		return Arrays.copyOfRange(points, p * dimensions, (p + 1) * dimensions);
+	}
+
+	/**
+	 * @return id of the centroid closest to {@code point} in Euclidean distance, ties resolve to
+	 *         whichever the tree search reaches first
+	 */
+	public int nearest(double[] point) {
+		if (point.length != dimensions) {
+			throw new IllegalArgumentException(
+					"Expected " + dimensions + " coordinates but got " + point.length);
+		}
+		var query = new Query(point, new double[dimensions], 1);
+		search(query, 0, size, 0.0);
+		return ids[query.positions[0]];
+	}
+
+	/**
+	 * @return ids of the {@code k} centroids closest to {@code point}, nearest first; all of them
+	 *         if there are fewer
+	 */
+	public int[] nearest(double[] point, int k) {
+		if (point.length != dimensions) {
+			throw new IllegalArgumentException(
+					"Expected " + dimensions + " coordinates but got " + point.length);
+		}
+		if (k <= 0) {
+			throw new IllegalArgumentException("K must be positive");
+		}
+		var query = new Query(point, new double[dimensions], Math.min(k, size));
+		search(query, 0, size, 0.0);
+		var nearest = new int[query.count];
+		// popping the max-heap yields the farthest first
+		for (int i = nearest.length - 1; i >= 0; i--) {
+			nearest[i] = ids[query.positions[0]];
+			query.pop();
+		}
+		return nearest;
+	}
+
+	/**
+	 * @return ids of the {@code k} centroids closest to centroid {@code id}, nearest first, not
+	 *         including {@code id} itself; the niches adjacent to it in descriptor space
+	 */
+	public int[] neighbours(int id, int k) {
+		var nearest = nearest(centroid(id), k + 1);
+		var neighbours = new int[nearest.length - 1];
+		int n = 0;
+		for (int other : nearest) {
+			if (other != id && n < neighbours.length) {
+				neighbours[n++] = other;
+			}
+		}
+		return neighbours;
+	}
+
+	/**
+	 * Depth-first search that visits the far side of a split only if the box it covers is closer
+	 * than the k-th best centroid so far. {@code boxDistance} is the squared distance from the query to
+	 * that box, kept incrementally through {@link Query#offsets} (Arya and Mount).
+	 */
+	private void search(Query query, int lo, int hi, double boxDistance) {
+		if (hi - lo <= LEAF_SIZE) {
+			var point = query.point;
+			for (int p = lo; p < hi; p++) {
+				int offset = p * dimensions;
+				double distance = 0.0;
+				for (int k = 0; k < dimensions && distance < query.bestDistance; k++) {
+					double diff = point[k] - points[offset + k];
+					distance += diff * diff;
+				}
+				if (distance < query.bestDistance) {
+					query.offer(distance, p);
+				}
+			}
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		int dim = splitDims[mid];
+		double diff = query.point[dim] - splitValues[mid];
+		if (diff < 0) {
+			search(query, lo, mid, boxDistance);
+		} else {
+			search(query, mid, hi, boxDistance);
+		}
+		double previous = query.offsets[dim];
+		double farDistance = boxDistance - previous * previous + diff * diff;
+		if (farDistance < query.bestDistance) {
+			query.offsets[dim] = diff;
+			if (diff < 0) {
+				search(query, mid, hi, farDistance);
+			} else {
+				search(query, lo, mid, farDistance);
+			}
+			query.offsets[dim] = previous;
+		}
+	}
+
+	/**
+	 * Arranges {@code ids[lo, hi)} so the median along the widest dimension sits at the middle
+	 * position, smaller coordinates before it, then recurses into both halves until ranges fit a
+	 * leaf.
+	 */
+	private void build(double[][] centroids, int lo, int hi) {
+		if (hi - lo <= LEAF_SIZE) {
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		int split = 0;
+		double widest = -1.0;
+		for (int k = 0; k < dimensions; k++) {
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int i = lo; i < hi; i++) {
+				double value = centroids[ids[i]][k];
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+			}
+			if (max - min > widest) {
+				widest = max - min;
+				split = k;
+			}
+		}
+		select(centroids, split, lo, hi - 1, mid);
+		splitDims[mid] = split;
+		splitValues[mid] = centroids[ids[mid]][split];
+		build(centroids, lo, mid);
+		build(centroids, mid, hi);
+	}
+
+	/**
+	 * Quickselect on {@code ids[lo, hi]} by coordinate {@code split}, placing the {@code nth}
+	 * smallest at {@code nth}.
+	 */
+	private void select(double[][] centroids, int split, int lo, int hi, int nth) {
+		while (lo < hi) {
+			double pivot = centroids[ids[(lo + hi) >>> 1]][split];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (centroids[ids[i]][split] < pivot) {
+					i++;
+				}
+				while (centroids[ids[j]][split] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int swap = ids[i];
+					ids[i] = ids[j];
+					ids[j] = swap;
+					i++;
+					j--;
+				}
+			}
+			if (nth <= j) {
+				hi = j;
+			} else if (nth >= i) {
+				lo = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private static final class Query {
+
+		private final double[] point;
+		// per dimension, signed distance from the query to the box of the current node
+		private final double[] offsets;
+		// max-heap of the k closest tree positions so far, farthest at the root
+		private final double[] distances;
+		private final int[] positions;
+		private int count;
+		// distance a centroid must beat to enter the heap
+		private double bestDistance = Double.POSITIVE_INFINITY;
+
+		private Query(double[] point, double[] offsets, int k) {
+			this.point = point;
+			this.offsets = offsets;
+			this.distances = new double[k];
+			this.positions = new int[k];
+		}
+
+		private void offer(double distance, int position) {
+			if (count < distances.length) {
+				int i = count++;
+				while (i > 0 && distances[(i - 1) >>> 1] < distance) {
+					int parent = (i - 1) >>> 1;
+					distances[i] = distances[parent];
+					positions[i] = positions[parent];
+					i = parent;
+				}
+				distances[i] = distance;
+				positions[i] = position;
+			} else {
+				siftDown(distance, position);
+			}
+			if (count == distances.length) {
+				bestDistance = distances[0];
+			}
+		}
+
+		private void pop() {
+			count--;
+			if (count > 0) {
+				siftDown(distances[count], positions[count]);
+			}
+		}
+
+		/**
+		 * Replaces the root with {@code distance} and restores the heap over {@code [0, count)}.
+		 */
+		private void siftDown(double distance, int position) {
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= count) {
+					break;
+				}
+				if (child + 1 < count && distances[child + 1] > distances[child]) {
+					child++;
+				}
+				if (distances[child] <= distance) {
+					break;
+				}
+				distances[i] = distances[child];
+				positions[i] = positions[child];
+				i = child;
+			}
+			distances[i] = distance;
+			positions[i] = position;
+		}
+	}
+}
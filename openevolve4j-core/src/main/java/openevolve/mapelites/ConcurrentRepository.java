@@ -0,0 +1,299 @@
+package openevolve.mapelites;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Thread-safe repository that can be shared by concurrently running iterations.
+ *
+ * <p>Every island is a stripe with its own lock and its own ordered index, so saves to different
+ * islands do not contend. The global ordering used by {@link #best()} and {@link #findAll()} is a
+ * concurrent skip list, reads never block. Only the bounded archive has a lock of its own, which is
+ * held just long enough to replace its worst member.
+ *
+ * <p>Population trimming runs after the stripe lock is released and removes the worst solutions
+ * one at a time. Writers racing on the same victims can therefore leave the population up to one
+ * solution per concurrent writer below {@code populationSize}.
+ */
+public class ConcurrentRepository<T> implements Repository<T> {
+
+	private final Map<UUID, Solution<T>> solutionsById = new ConcurrentHashMap<>();
+	private final NavigableSet<Solution<T>> solutions;
+	private final NavigableSet<Solution<T>> archive;
+	private final ReentrantLock archiveLock = new ReentrantLock();
+	private final List<ChangeListener<T>> changeListeners = new CopyOnWriteArrayList<>();
+	private final AtomicInteger currentIsland = new AtomicInteger(-1);
+	private final Comparator<Solution<T>> comparator;
+	private final Comparator<Solution<T>> ordering;
+	private final int populationSize;
+	private final int archiveSize;
+	private volatile List<Stripe<T>> stripes;
+	private int archiveCount;
+
+	public ConcurrentRepository(Comparator<Solution<T>> comparator, int populationSize,
+			int archiveSize, int numIslands) {
+		Objects.requireNonNull(comparator, "Comparator must not be null");
+		if (populationSize <= 0) {
+			throw new IllegalArgumentException("Population size must be positive");
+		}
+		if (archiveSize <= 0) {
+			throw new IllegalArgumentException("Archive size must be positive");
+		}
+		if (numIslands <= 0) {
+			throw new IllegalArgumentException("Number of islands must be positive");
+		}
+		this.comparator = comparator;
+		this.ordering = comparator.thenComparing(Solution::id).reversed();
+		this.solutions = new ConcurrentSkipListSet<>(ordering);
+		this.archive = new ConcurrentSkipListSet<>(ordering);
+		this.populationSize = populationSize;
+		this.archiveSize = archiveSize;
+		var initial = new ArrayList<Stripe<T>>(numIslands);
+		for (int i = 0; i < numIslands; i++) {
+			initial.add(newStripe(i));
+		}
+		this.stripes = List.copyOf(initial);
+	}
+
+	@Override
+	public Solution<T> best() {
+		var iterator = solutions.iterator();
+		return iterator.hasNext() ? iterator.next() : null;
+	}
+
+	@Override
+	public List<Solution<T>> getArchive() {
+		return archive.stream().toList();
+	}
+
+	@Override
+	public Island findIslandById(int islandId) {
+		var current = stripes;
+		return current.get(islandId % current.size()).island();
+	}
+
+	@Override
+	public Island nextIsland() {
+		var current = stripes;
+		int next = currentIsland.updateAndGet(i -> (i + 1) % current.size());
+		return current.get(next).island();
+	}
+
+	@Override
+	public boolean dominates(Solution<T> a, Solution<T> b) {
+		if (comparator instanceof ParetoComparator<T> p) {
+			return p.dominates(a, b);
+		}
+		return compare(a, b) > 0;
+	}
+
+	@Override
+	public int compare(Solution<T> a, Solution<T> b) {
+		return comparator.compare(a, b);
+	}
+
+	@Override
+	public int count() {
+		return solutionsById.size();
+	}
+
+	@Override
+	public int countByIslandId(int islandId) {
+		return findIslandById(islandId).size();
+	}
+
+	@Override
+	public List<Solution<T>> findByIslandId(int islandId) {
+		var current = stripes;
+		return current.get(islandId % current.size()).solutions().stream().toList();
+	}
+
+	@Override
+	public void delete(UUID id) {
+		var solution = solutionsById.get(id);
+		if (solution == null) {
+			return;
+		}
+		var stripe = stripes.get(solution.islandId());
+		stripe.lock().lock();
+		try {
+			if (!solutionsById.remove(id, solution)) {
+				return;
+			}
+			solutions.remove(solution);
+			stripe.solutions().remove(solution);
+			stripe.island().archive().remove(id);
+			// under the stripe lock, so it cannot overtake the onSaved of the same solution
+			changeListeners.forEach(listener -> listener.onDeleted(solution));
+		} finally {
+			stripe.lock().unlock();
+		}
+		archiveLock.lock();
+		try {
+			if (archive.remove(solution)) {
+				archiveCount--;
+			}
+		} finally {
+			archiveLock.unlock();
+		}
+	}
+
+	@Override
+	public void addChangeListener(ChangeListener<T> listener) {
+		changeListeners.add(Objects.requireNonNull(listener, "listener must not be null"));
+	}
+
+	@Override
+	public List<Solution<T>> findAll() {
+		return solutions.stream().toList();
+	}
+
+	@Override
+	public List<Island> findAllIslands() {
+		return stripes.stream().map(Stripe::island).toList();
+	}
+
+	@Override
+	public Solution<T> findById(UUID id) {
+		return solutionsById.get(id);
+	}
+
+	@Override
+	public void save(Solution<T> solution) {
+		Objects.requireNonNull(solution, "solution must not be null");
+		Objects.requireNonNull(solution.id(), "solution id must not be null");
+		var stripe = stripes.get(solution.islandId());
+		stripe.lock().lock();
+		try {
+			solutionsById.put(solution.id(), solution);
+			solutions.add(solution);
+			stripe.solutions().add(solution);
+			stripe.island().archive().add(solution.id());
+			changeListeners.forEach(listener -> listener.onSaved(solution));
+		} finally {
+			stripe.lock().unlock();
+		}
+		trimPopulation(solution);
+		updateArchive(solution);
+	}
+
+	@Override
+	public RepositoryState<T> snapshot() {
+		var current = stripes;
+		lockAll(current);
+		try {
+			var islandsCopy = current.stream()
+					.map(s -> new IslandState(s.island().id(), new HashSet<>(s.island().archive())))
+					.collect(Collectors.toList());
+			var archiveCopy = archive.stream().map(Solution::id)
+					.collect(Collectors.toCollection(HashSet::new));
+			int currentId = currentIsland.get();
+			return new RepositoryState<>(new HashMap<>(solutionsById), archiveCopy, islandsCopy,
+					currentId >= 0 ? currentId : null);
+		} finally {
+			unlockAll(current);
+		}
+	}
+
+	@Override
+	public void restore(RepositoryState<T> state) {
+		Objects.requireNonNull(state, "repository state must not be null");
+		var current = stripes;
+		lockAll(current);
+		try {
+			solutionsById.clear();
+			solutions.clear();
+			archive.clear();
+			solutionsById.putAll(state.solutionsById());
+			solutions.addAll(state.solutionsById().values());
+			var restored = new ArrayList<Stripe<T>>(state.islands().size());
+			for (var is : state.islands()) {
+				var stripe = newStripe(is.id());
+				stripe.island().archive().addAll(is.archive());
+				is.archive().stream().map(solutionsById::get).filter(Objects::nonNull)
+						.forEach(stripe.solutions()::add);
+				restored.add(stripe);
+			}
+			state.archive().stream().map(solutionsById::get).filter(Objects::nonNull)
+					.forEach(archive::add);
+			archiveCount = archive.size();
+			currentIsland.set(state.currentIslandId() != null
+					? state.currentIslandId() % restored.size()
+					: -1);
+			stripes = List.copyOf(restored);
+		} finally {
+			unlockAll(current);
+		}
+	}
+
+	private void trimPopulation(Solution<T> saved) {
+		while (solutionsById.size() > populationSize) {
+			var best = best();
+			Solution<T> victim = null;
+			for (var it = solutions.descendingIterator(); it.hasNext();) {
+				var candidate = it.next();
+				if (!candidate.equals(saved) && !candidate.equals(best)) {
+					victim = candidate;
+					break;
+				}
+			}
+			if (victim == null) {
+				return;
+			}
+			delete(victim.id());
+		}
+	}
+
+	private void updateArchive(Solution<T> saved) {
+		archiveLock.lock();
+		try {
+			if (!solutionsById.containsKey(saved.id()) || archive.contains(saved)) {
+				return;
+			}
+			if (archiveCount < archiveSize) {
+				archive.add(saved);
+				archiveCount++;
+				return;
+			}
+			var worst = archive.isEmpty() ? null : archive.last();
+			if (worst != null && compare(saved, worst) > 0) {
+				archive.remove(worst);
+				archive.add(saved);
+			}
+		} finally {
+			archiveLock.unlock();
+		}
+	}
+
+	private Stripe<T> newStripe(int islandId) {
+		return new Stripe<>(new Island(islandId, ConcurrentHashMap.newKeySet()),
+				new ConcurrentSkipListSet<>(ordering), new ReentrantLock());
+	}
+
+	private void lockAll(List<Stripe<T>> current) {
+		current.forEach(s -> s.lock().lock());
+		archiveLock.lock();
+	}
+
+	private void unlockAll(List<Stripe<T>> current) {
+		archiveLock.unlock();
+		current.forEach(s -> s.lock().unlock());
+	}
+
+	private record Stripe<T>(Island island, NavigableSet<Solution<T>> solutions,
+			ReentrantLock lock) {
+	}
+}
@@ -6,26 +6,52 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Objects;
-import java.util.Set;
-import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
+/**
+ * In-memory repository backed by sorted sets. Besides the global ordering it keeps an ordered
+ * index per island and one for the archive, all updated incrementally on save/delete. Queries
+ * return immutable lists that are materialized from those indexes on first use and cached until
+ * the next mutation, so repeated reads within an iteration neither sort nor copy. All operations
+ * are synchronized on the repository instance so it can be read by concurrently running
+ * iterations.
+ * <p>
+ * By default the population is trimmed from the worst end of the comparator order. When a
+ * {@link ParetoRanking} is supplied, eviction instead removes the most crowded member of the last
+ * non-dominated front (NSGA-II truncation), which re-ranks the population on each eviction.
+ */
 public class DefaultRepository<T> implements Repository<T> {
 
 	private final Map<UUID, Solution<T>> solutionsById = new HashMap<>();
-	private final Set<UUID> archive = new HashSet<>();
 	private final List<Island> islands = new ArrayList<>();
-	private final SortedSet<Solution<T>> solutions;
+	private final List<NavigableSet<Solution<T>>> islandIndexes = new ArrayList<>();
+	private final List<List<Solution<T>>> islandViews = new ArrayList<>();
+	private final NavigableSet<Solution<T>> solutions;
+	private final NavigableSet<Solution<T>> archiveIndex;
 	private final Comparator<Solution<T>> comparator;
 	private final int populationSize;
 	private final int archiveSize;
+	private final ParetoRanking<T> ranking;
+	private final List<ChangeListener<T>> changeListeners = new CopyOnWriteArrayList<>();
 	private Island currentIsland;
+	private List<Solution<T>> allView;
+	private List<Solution<T>> archiveView;
 
 	public DefaultRepository(Comparator<Solution<T>> comparator, int populationSize,
 			int archiveSize, int numIslands) {
+		this(comparator, populationSize, archiveSize, numIslands, null);
+	}
+
+	/**
+	 * @param ranking ranking used to pick eviction victims, or {@code null} to evict by comparator
+	 */
+	public DefaultRepository(Comparator<Solution<T>> comparator, int populationSize,
+			int archiveSize, int numIslands, ParetoRanking<T> ranking) {
 		Objects.requireNonNull(comparator, "Comparator must not be null");
 		if (populationSize <= 0) {
 			throw new IllegalArgumentException("Population size must be positive");
@@ -38,32 +64,35 @@ public class DefaultRepository<T> implements Repository<T> {
 		}
 		this.comparator = comparator;
 		this.solutions = new TreeSet<>(this.comparator.thenComparing(Solution::id).reversed());
+		this.archiveIndex = new TreeSet<>(solutions.comparator());
 		this.populationSize = populationSize;
 		this.archiveSize = archiveSize;
+		this.ranking = ranking;
 		for (int i = 0; i < numIslands; i++) {
-			islands.add(new Island(i));
+			addIsland(new Island(i));
 		}
 	}
 
 	@Override
-	public Solution<T> best() {
+	public synchronized Solution<T> best() {
 		return solutions.isEmpty() ? null : solutions.first();
 	}
 
 	@Override
-	public List<Solution<T>> getArchive() {
-		return archive.stream().map(solutionsById::get).filter(Objects::nonNull)
-				.sorted(solutions.comparator())
-				.collect(Collectors.toList());
+	public synchronized List<Solution<T>> getArchive() {
+		if (archiveView == null) {
+			archiveView = List.copyOf(archiveIndex);
+		}
+		return archiveView;
 	}
 
 	@Override
-	public Island findIslandById(int islandId) {
+	public synchronized Island findIslandById(int islandId) {
 		return islands.get(islandId % islands.size());
 	}
 
 	@Override
-	public Island nextIsland() {
+	public synchronized Island nextIsland() {
 		if (currentIsland == null) {
 			currentIsland = islands.get(0);
 		} else {
@@ -86,63 +115,85 @@ public class DefaultRepository<T> implements Repository<T> {
 	}
 
 	@Override
-	public int count() {
+	public synchronized int count() {
 		return solutions.size();
 	}
 
 	@Override
-	public int countByIslandId(int islandId) {
+	public synchronized int countByIslandId(int islandId) {
 		return islands.get(islandId % islands.size()).archive().size();
 	}
 
 	@Override
-	public List<Solution<T>> findByIslandId(int islandId) {
-		return islands.get(islandId % islands.size()).archive().stream().map(solutionsById::get)
-				.filter(Objects::nonNull).sorted(solutions.comparator())
-				.collect(Collectors.toList());
+	public synchronized List<Solution<T>> findByIslandId(int islandId) {
+		int index = islandId % islands.size();
+		var view = islandViews.get(index);
+		if (view == null) {
+			view = List.copyOf(islandIndexes.get(index));
+			islandViews.set(index, view);
+		}
+		return view;
 	}
 
 	@Override
-	public void delete(UUID id) {
+	public synchronized void delete(UUID id) {
 		Solution<T> solution = solutionsById.remove(id);
-		if (solution != null) {
-			solutions.remove(solution);
+		if (solution == null) {
+			return;
 		}
-		for (var island : islands) {
-			island.archive().remove(id);
+		solutions.remove(solution);
+		islands.get(solution.islandId()).archive().remove(id);
+		islandIndexes.get(solution.islandId()).remove(solution);
+		islandViews.set(solution.islandId(), null);
+		allView = null;
+		if (archiveIndex.remove(solution)) {
+			archiveView = null;
 		}
-		archive.remove(id);
+		changeListeners.forEach(listener -> listener.onDeleted(solution));
 	}
 
 	@Override
-	public List<Solution<T>> findAll() {
-		return solutions.stream().toList();
+	public void addChangeListener(ChangeListener<T> listener) {
+		changeListeners.add(Objects.requireNonNull(listener, "listener must not be null"));
 	}
 
 	@Override
-	public List<Island> findAllIslands() {
+	public synchronized List<Solution<T>> findAll() {
+		if (allView == null) {
+			allView = List.copyOf(solutions);
+		}
+		return allView;
+	}
+
+	@Override
+	public synchronized List<Island> findAllIslands() {
 		return islands.stream().toList();
 	}
 
 	@Override
-	public Solution<T> findById(UUID id) {
+	public synchronized Solution<T> findById(UUID id) {
 		return solutionsById.get(id);
 	}
 
 	@Override
-	public void save(Solution<T> solution) {
+	public synchronized void save(Solution<T> solution) {
 		Objects.requireNonNull(solution, "solution must not be null");
 		Objects.requireNonNull(solution.id(), "solution id must not be null");
 		solutionsById.put(solution.id(), solution);
 		solutions.add(solution);
 		islands.get(solution.islandId()).archive().add(solution.id());
+		islandIndexes.get(solution.islandId()).add(solution);
+		islandViews.set(solution.islandId(), null);
+		allView = null;
+		changeListeners.forEach(listener -> listener.onSaved(solution));
 		afterSave(solution);
 	}
 
 	@Override
-    public RepositoryState<T> snapshot() {
+    public synchronized RepositoryState<T> snapshot() {
         var solutionsCopy = new HashMap<UUID, Solution<T>>(solutionsById);
-        var archiveCopy = new HashSet<UUID>(archive);
+        var archiveCopy = archiveIndex.stream().map(Solution::id)
+            .collect(Collectors.toCollection(HashSet::new));
         var islandsCopy = islands.stream()
             .map(i -> new Repository.IslandState(i.id(), new HashSet<>(i.archive())))
             .collect(Collectors.toList());
@@ -151,27 +202,36 @@ public class DefaultRepository<T> implements Repository<T> {
     }
 
     @Override
-    public void restore(RepositoryState<T> state) {
+    public synchronized void restore(RepositoryState<T> state) {
         Objects.requireNonNull(state, "repository state must not be null");
 
         // Clear all
         solutionsById.clear();
-        archive.clear();
         islands.clear();
+        islandIndexes.clear();
+        islandViews.clear();
         solutions.clear();
+        archiveIndex.clear();
+        allView = null;
+        archiveView = null;
 
-        // Restore solutions/sets
+        // Restore solutions
         solutionsById.putAll(state.solutionsById());
-        archive.addAll(state.archive());
 
         // Rebuild sorted set
         solutions.addAll(state.solutionsById().values());
 
-        // Rebuild islands
+        // Rebuild islands and ordered indexes
         for (var is : state.islands()) {
             var island = new Island(is.id());
             island.archive().addAll(is.archive());
-            islands.add(island);
+            addIsland(island);
+        }
+        for (var solution : solutionsById.values()) {
+            islandIndexes.get(solution.islandId()).add(solution);
+            if (state.archive().contains(solution.id())) {
+                archiveIndex.add(solution);
+            }
         }
 
         // Restore current island pointer
@@ -183,56 +243,71 @@ public class DefaultRepository<T> implements Repository<T> {
     }
 
 	private void afterSave(Solution<T> saved) {
-		int count = solutions.size();
-		if (count >= populationSize) {
-			var bestSolutionId = solutions.first().id();
-			var protectedSolutions = new HashSet<UUID>();
-			protectedSolutions.add(saved.id());
-			protectedSolutions.add(bestSolutionId);
-			var toRemove = count - populationSize;
-			var allSorted = solutions.reversed(); // start from worst
-			var programsToRemove = new ArrayList<Solution<T>>();
-
-			for (var solution : allSorted) {
-				if (protectedSolutions.contains(solution.id())) {
-					continue;
-				}
-				programsToRemove.add(solution);
-				if (programsToRemove.size() >= toRemove) {
+		trimPopulation(saved);
+		updateArchive(saved);
+	}
+
+	/**
+	 * Evicts from the worst end of the ordered population until it fits. The saved solution and
+	 * the current best are never evicted, so each eviction inspects at most three entries and a
+	 * save stays O(log n).
+	 */
+	private void trimPopulation(Solution<T> saved) {
+		if (ranking != null) {
+			trimByRank(saved);
+			return;
+		}
+		while (solutions.size() > populationSize) {
+			var best = solutions.first();
+			Solution<T> victim = null;
+			for (var it = solutions.descendingIterator(); it.hasNext();) {
+				var candidate = it.next();
+				if (candidate != saved && candidate != best) {
+					victim = candidate;
 					break;
 				}
 			}
-
-			if (programsToRemove.size() < toRemove) {
-				var remainingPrograms = allSorted.stream().filter(
-						p -> !programsToRemove.contains(p) && !p.id().equals(bestSolutionId))
-						.collect(Collectors.toList());
-				var additionalRemovals = remainingPrograms.stream()
-						.limit(toRemove - programsToRemove.size()).collect(Collectors.toList());
-				programsToRemove.addAll(additionalRemovals);
+			if (victim == null) {
+				return;
 			}
+			delete(victim.id());
+		}
+	}
 
-			for (var program : programsToRemove) {
-				delete(program.id());
+	private void trimByRank(Solution<T> saved) {
+		if (solutions.size() <= populationSize) {
+			return;
+		}
+		var best = solutions.first();
+		var ordered = ranking.rank(solutions).ordered();
+		for (int i = ordered.size() - 1; i >= 0 && solutions.size() > populationSize; i--) {
+			var candidate = ordered.get(i);
+			if (candidate != saved && candidate != best) {
+				delete(candidate.id());
 			}
 		}
-		if (archive.size() < archiveSize) {
-			archive.add(saved.id());
+	}
+
+	private void updateArchive(Solution<T> saved) {
+		if (archiveIndex.contains(saved)) {
 			return;
 		}
-
-		var archivePrograms =
-				solutions.stream().filter(s -> archive.contains(s.id())).toList();
-
-		if (archivePrograms.isEmpty()) {
+		if (archiveIndex.size() < archiveSize) {
+			archiveIndex.add(saved);
+			archiveView = null;
 			return;
 		}
-
-		var worstProgram = archivePrograms.getLast();
-
-		if (worstProgram != null && compare(saved, worstProgram) > 0) {
-			archive.remove(worstProgram.id());
-			archive.add(saved.id());
+		var worst = archiveIndex.last();
+		if (compare(saved, worst) > 0) {
+			archiveIndex.remove(worst);
+			archiveIndex.add(saved);
+			archiveView = null;
 		}
 	}
+
+	private void addIsland(Island island) {
+		islands.add(island);
+		islandIndexes.add(new TreeSet<>(solutions.comparator()));
+		islandViews.add(null);
+	}
 }
@@ -0,0 +1,229 @@
+package openevolve.mapelites;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Fitness cache keyed by a content hash of the candidate, so byte-identical candidates (no-op
+ * diffs, repeated rewrites) reuse the metrics of their first evaluation instead of running the
+ * fitness function again. Bounded by {@code maxEntries} with least-recently-used eviction.
+ *
+ * <p>
+ * With a {@code path}, every stored entry is appended to that file as one JSON line and the file
+ * is replayed on construction, so the cache survives restarts. The file is rewritten with only
+ * the live entries when it holds more than twice as many lines.
+ *
+ * <p>
+ * A hit skips the fitness function together with its side effects, so anything later candidates
+ * rely on (e.g. the evaluation workspace children are built from) must be restored by the
+ * {@code onHit} callback.
+ *
+ * <p>
+ * Thread-safe; the fitness function itself runs outside the cache lock, so two identical
+ * candidates evaluated at the same time are both computed.
+ */
+public class EvaluationCache<T> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(EvaluationCache.class);
+
+	private final Function<? super T, String> keyFunction;
+	private final Predicate<Map<String, Object>> cacheable;
+	private final Consumer<? super T> onHit;
+	private final int maxEntries;
+	private final Path path;
+	private final ObjectMapper mapper;
+	private final LinkedHashMap<String, Map<String, Object>> entries;
+	private long hits;
+	private long misses;
+	private long fileLines;
+
+	public EvaluationCache(Function<? super T, String> keyFunction, int maxEntries) {
+		this(keyFunction, maxEntries, _ -> true, null, null);
+	}
+
+	public EvaluationCache(Function<? super T, String> keyFunction, int maxEntries,
+			Predicate<Map<String, Object>> cacheable, Path path, ObjectMapper mapper) {
+		this(keyFunction, maxEntries, cacheable, path, mapper, _ -> {
+		});
+	}
+
+	/**
+	 * @param keyFunction content hash of a candidate, it must also cover everything else the
+	 *        fitness depends on (evaluator script, metric names, timeouts)
+	 * @param maxEntries maximum number of cached results
+	 * @param cacheable results failing this predicate (e.g. timeouts) are evaluated again next time
+	 * @param path file the cache is persisted to, or null to keep it in memory only
+	 * @param mapper JSON mapper for the persisted entries, required with a path
+	 * @param onHit runs on a candidate before its cached metrics are returned; if it throws, the
+	 *        candidate is evaluated instead
+	 */
+	public EvaluationCache(Function<? super T, String> keyFunction, int maxEntries,
+			Predicate<Map<String, Object>> cacheable, Path path, ObjectMapper mapper,
+			Consumer<? super T> onHit) {
+		Objects.requireNonNull(keyFunction, "Key function must not be null");
+		Objects.requireNonNull(cacheable, "Cacheable predicate must not be null");
+		Objects.requireNonNull(onHit, "Hit callback must not be null");
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("Max entries must be positive");
+		}
+		if (path != null) {
+			Objects.requireNonNull(mapper, "ObjectMapper must not be null when persisting");
+		}
+		this.keyFunction = keyFunction;
+		this.cacheable = cacheable;
+		this.onHit = onHit;
+		this.maxEntries = maxEntries;
+		this.path = path;
+		this.mapper = mapper;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+				return size() > EvaluationCache.this.maxEntries;
+			}
+		};
+		if (path != null) {
+			load();
+		}
+	}
+
+	/**
+	 * Returns the cached fitness of {@code candidate}, or evaluates it with {@code fitnessFunction}
+	 * and caches the result.
+	 */
+	public Lookup evaluate(T candidate, Function<? super T, Map<String, Object>> fitnessFunction) {
+		var key = keyFunction.apply(candidate);
+		Map<String, Object> cached;
+		synchronized (this) {
+			cached = entries.get(key);
+		}
+		if (cached != null && prepare(candidate)) {
+			synchronized (this) {
+				hits++;
+				return new Lookup(cached, true, stats());
+			}
+		}
+		synchronized (this) {
+			misses++;
+		}
+		var fitness = fitnessFunction.apply(candidate);
+		if (fitness == null || !cacheable.test(fitness)) {
+			return new Lookup(fitness, false, stats());
+		}
+		// null values are legal in parsed metrics, so no Map.copyOf
+		var stored = Collections.unmodifiableMap(new HashMap<>(fitness));
+		synchronized (this) {
+			entries.put(key, stored);
+			append(key, stored);
+			return new Lookup(stored, false, stats());
+		}
+	}
+
+	private boolean prepare(T candidate) {
+		try {
+			onHit.accept(candidate);
+			return true;
+		} catch (RuntimeException e) {
+			LOG.warn("Failed to prepare cached candidate, evaluating it instead", e);
+			return false;
+		}
+	}
+
+	public synchronized Stats stats() {
+		return new Stats(hits, misses, entries.size());
+	}
+
+	private void load() {
+		if (!Files.exists(path)) {
+			return;
+		}
+		try (var lines = Files.lines(path, StandardCharsets.UTF_8)) {
+			lines.forEach(line -> {
+				fileLines++;
+				try {
+					var entry = mapper.readValue(line, Entry.class);
+					if (entry.key() != null && entry.fitness() != null) {
+						entries.put(entry.key(), Collections.unmodifiableMap(entry.fitness()));
+					}
+				} catch (IOException e) {
+					// a torn last line after a crash, skip it
+					LOG.warn("Skipping unreadable evaluation cache entry in {}", path);
+				}
+			});
+		} catch (IOException | RuntimeException e) {
+			LOG.warn("Failed to load evaluation cache from {}", path, e);
+		}
+		if (fileLines > 2L * maxEntries) {
+			compact();
+		}
+	}
+
+	private void append(String key, Map<String, Object> fitness) {
+		if (path == null) {
+			return;
+		}
+		try {
+			var parent = path.toAbsolutePath().getParent();
+			if (parent != null) {
+				Files.createDirectories(parent);
+			}
+			Files.writeString(path, mapper.writeValueAsString(new Entry(key, fitness)) + "\n",
+					StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+			if (++fileLines > 2L * maxEntries) {
+				compact();
+			}
+		} catch (IOException e) {
+			LOG.warn("Failed to persist evaluation cache entry to {}", path, e);
+		}
+	}
+
+	private void compact() {
+		try {
+			var lines = new ArrayList<String>(entries.size());
+			for (var entry : entries.entrySet()) {
+				lines.add(mapper.writeValueAsString(new Entry(entry.getKey(), entry.getValue())));
+			}
+			var tmp = path.resolveSibling(path.getFileName() + ".tmp");
+			Files.write(tmp, lines, StandardCharsets.UTF_8);
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			fileLines = lines.size();
+		} catch (IOException e) {
+			LOG.warn("Failed to compact evaluation cache {}", path, e);
+		}
+	}
+
+	/**
+	 * @param fitness metrics of the candidate
+	 * @param hit whether they came from the cache
+	 * @param stats cache counters after this lookup
+	 */
+	public record Lookup(Map<String, Object> fitness, boolean hit, Stats stats) {
+	}
+
+	public record Stats(long hits, long misses, int size) {
+
+		public double hitRate() {
+			long total = hits + misses;
+			return total == 0 ? 0.0 : (double) hits / total;
+		}
+	}
+
+	private record Entry(String key, Map<String, Object> fitness) {
+	}
+}
@@ -0,0 +1,189 @@
+package openevolve.mapelites;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import openevolve.mapelites.MAPElites.Cell;
+import openevolve.mapelites.Repository.Solution;
+
+/**
+ * MAP-Elites grid addressed by a packed index computed arithmetically from the cell coordinates
+ * ({@code sum(coord[i] * bins^i)}). Cell state lives in parallel primitive arrays indexed by slot.
+ * When {@code bins^dimensions} is small every cell has a preallocated slot (dense mode); otherwise
+ * slots are appended as cells are first touched and found through a {@link CellIndex}.
+ * Not thread-safe; {@link MAPElites} only touches it under its archive lock.
+ */
+public final class Grid {
+
+	static final int DENSE_LIMIT = 1 << 16;
+
+	private final int dimensions;
+	private final int bins;
+	private final CellIndex sparse;
+	private long[] indexes;
+	private int[] trials;
+	private double[] curiosity;
+	private int[] improveIter;
+	private long[] idHigh;
+	private long[] idLow;
+	private int size;
+
+	public Grid(int dimensions, int bins) {
+		if (dimensions < 0) {
+			throw new IllegalArgumentException("Dimensions must be non-negative");
+		}
+		if (bins <= 0) {
+			throw new IllegalArgumentException("Bins must be positive");
+		}
+		long cells = 1;
+		for (int i = 0; i < dimensions; i++) {
+			if (cells > Long.MAX_VALUE / bins) {
+				throw new IllegalArgumentException(
+						"Grid of " + bins + "^" + dimensions + " cells cannot be indexed");
+			}
+			cells *= bins;
+		}
+		this.dimensions = dimensions;
+		this.bins = bins;
+		boolean dense = cells <= DENSE_LIMIT;
+		this.sparse = dense ? null : new CellIndex(64);
+		allocate(dense ? (int) cells : 64);
+	}
+
+	/**
+	 * @return packed index of {@code cell}, or -1 if a coordinate lies outside {@code [0, bins)}
+	 */
+	public static long pack(int[] cell, int bins) {
+		long index = 0;
+		long stride = 1;
+		for (int coord : cell) {
+			if (coord < 0 || coord >= bins) {
+				return -1;
+			}
+			index += coord * stride;
+			stride *= bins;
+		}
+		return index;
+	}
+
+	public long index(int[] cell) {
+		if (cell.length != dimensions) {
+			throw new IllegalArgumentException(
+					"Expected " + dimensions + " coordinates but got " + cell.length);
+		}
+		long index = pack(cell, bins);
+		if (index < 0) {
+			throw new IllegalArgumentException("Cell " + Arrays.toString(cell)
+					+ " is outside the grid of " + bins + " bins per dimension");
+		}
+		return index;
+	}
+
+	/**
+	 * @return slot of an occupied cell, or -1 if the cell was never written
+	 */
+	public int find(long index) {
+		if (sparse != null) {
+			return sparse.get(index);
+		}
+		return trials[(int) index] > 0 ? (int) index : -1;
+	}
+
+	/**
+	 * Writes the state of the cell at {@code index}.
+	 * @return slot of the cell
+	 */
+	public int put(long index, int trials, double curiosity, int improveIter, UUID solutionId) {
+		if (trials <= 0) {
+			throw new IllegalArgumentException("Trials must be positive");
+		}
+		int slot = find(index);
+		if (slot < 0) {
+			slot = sparse != null ? appendSlot(index) : (int) index;
+			size++;
+		}
+		this.trials[slot] = trials;
+		this.curiosity[slot] = curiosity;
+		this.improveIter[slot] = improveIter;
+		this.idHigh[slot] = solutionId.getMostSignificantBits();
+		this.idLow[slot] = solutionId.getLeastSignificantBits();
+		return slot;
+	}
+
+	public int trials(int slot) {
+		return trials[slot];
+	}
+
+	public double curiosity(int slot) {
+		return curiosity[slot];
+	}
+
+	public int improveIter(int slot) {
+		return improveIter[slot];
+	}
+
+	public UUID solutionId(int slot) {
+		return new UUID(idHigh[slot], idLow[slot]);
+	}
+
+	/**
+	 * @return number of occupied cells
+	 */
+	public int size() {
+		return size;
+	}
+
+	public Cell cell(int slot) {
+		return new Cell(coordinates(sparse != null ? indexes[slot] : slot), trials[slot],
+				curiosity[slot], improveIter[slot], solutionId(slot));
+	}
+
+	/**
+	 * @return occupied cells keyed by {@link Solution#cellToKey}, the checkpoint representation
+	 */
+	public Map<String, Cell> toMap() {
+		var result = new HashMap<String, Cell>(size * 2);
+		int slots = sparse != null ? size : trials.length;
+		for (int slot = 0; slot < slots; slot++) {
+			if (trials[slot] > 0) {
+				var cell = cell(slot);
+				result.put(cell.key(), cell);
+			}
+		}
+		return result;
+	}
+
+	private int[] coordinates(long index) {
+		var coords = new int[dimensions];
+		for (int i = 0; i < dimensions; i++) {
+			coords[i] = (int) (index % bins);
+			index /= bins;
+		}
+		return coords;
+	}
+
+	private int appendSlot(long index) {
+		if (size == trials.length) {
+			int capacity = size * 2;
+			indexes = Arrays.copyOf(indexes, capacity);
+			trials = Arrays.copyOf(trials, capacity);
+			curiosity = Arrays.copyOf(curiosity, capacity);
+			improveIter = Arrays.copyOf(improveIter, capacity);
+			idHigh = Arrays.copyOf(idHigh, capacity);
+			idLow = Arrays.copyOf(idLow, capacity);
+		}
+		indexes[size] = index;
+		sparse.put(index, size);
+		return size;
+	}
+
+	private void allocate(int capacity) {
+		indexes = sparse != null ? new long[capacity] : null;
+		trials = new int[capacity];
+		curiosity = new double[capacity];
+		improveIter = new int[capacity];
+		idHigh = new long[capacity];
+		idLow = new long[capacity];
+	}
+}
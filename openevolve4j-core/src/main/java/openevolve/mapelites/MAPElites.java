@@ -1,11 +1,21 @@
 package openevolve.mapelites;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import openevolve.mapelites.listener.MAPElitesListener;
@@ -22,14 +32,19 @@ public class MAPElites<T> {
 	private static final Logger LOG = LoggerFactory.getLogger(MAPElites.class);
 
 	private final Function<T, Map<String, Object>> fitnessFunction;
-	private final Function<List<Solution<T>>, T> evolveOperator;
+	private Function<List<Solution<T>>, List<T>> evolveOperator;
 	private final Function<Island, List<Solution<T>>> selection;
 	private final Supplier<List<T>> initialSolutionGenerator;
 	private final Predicate<Solution<T>> stopCondition;
 
-	private final Map<String, Cell> grid = new HashMap<>();
+	private Grid grid;
+	private CentroidalTessellation tessellation;
+	private EvaluationCache<T> evaluationCache;
+	private Cascade<T> cascade;
+	private final AtomicLong fullEvaluations = new AtomicLong();
+	private final AtomicLong fullEvaluationNanos = new AtomicLong();
+	private final AtomicLong savedNanos = new AtomicLong();
 	private final Map<String, FeatureScaler> featureStats = new HashMap<>();
-	private final Map<String, Integer> featureBinsPerDim = new HashMap<>();
 	private final List<String> featureDimensions;
 	private final int featureBins;
 	private final ScaleMethod featureScaleMethod;
@@ -37,6 +52,13 @@ public class MAPElites<T> {
 	private final Repository<T> repository;
 	private final Migration<T> migration;
 	private final List<MAPElitesListener<T>> listeners = new ArrayList<>();
+	private final ReentrantLock archiveLock = new ReentrantLock();
+	private final Candidate<T> endOfStream = new Candidate<>(0, null, List.of(), null, null, null);
+	private int parallelism = 1;
+	private boolean pipelined = false;
+	private int generators = 1;
+	private int evaluators = 1;
+	private int queueCapacity = 1;
 	private int currentIteration = 1;
 	private boolean initialized = false;
 
@@ -58,8 +80,12 @@ public class MAPElites<T> {
 		}
 		this.featureDimensions = featureDimensions;
 		this.featureBins = defaultFeatureBins;
+		this.grid = new Grid(featureDimensions.size(), defaultFeatureBins);
 		this.fitnessFunction = fitnessFunction;
-		this.evolveOperator = evolveOperator;
+		this.evolveOperator = parents -> {
+			var evolved = evolveOperator.apply(parents);
+			return evolved == null ? List.of() : List.of(evolved);
+		};
 		this.initialSolutionGenerator = initialSolutionGenerator;
 		this.repository = repository;
 		this.selection = selection;
@@ -72,6 +98,106 @@ public class MAPElites<T> {
 		this.currentIteration = iteration;
 	}
 
+	/**
+	 * Sets the number of iterations kept in flight by {@link #run(int)}. With a value greater than
+	 * one, selection, evolution and fitness evaluation run on virtual threads while archive
+	 * mutations (grid, repository and migration) are serialized. Archive callbacks (iteration
+	 * start and end, selection, generated solutions, cell and best solution updates) are invoked
+	 * while holding the archive lock, so they never overlap each other. The evaluation and
+	 * failure callbacks ({@link MAPElitesListener#onEvaluationCacheLookup},
+	 * {@link MAPElitesListener#onCascadeStage}, {@link MAPElitesListener#onStageCompleted} and
+	 * {@link MAPElitesListener#onIterationFailed}) run on worker threads without it, so
+	 * listeners implementing them must be thread-safe.
+	 *
+	 * @param parallelism number of concurrent iterations, 1 means the serial loop
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("Parallelism must be positive");
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Switches {@link #run(int)} to a steady-state pipeline: generation (selection and evolve
+	 * operator), evaluation (fitness function) and insertion (archive update) run as separate
+	 * stages connected by bounded queues. Generators block when the evaluation queue is full, so a
+	 * slow evaluator applies back-pressure to the LLM calls. Insertion is a single worker because
+	 * archive mutations are serialized anyway. Stage latencies and queue depths are reported via
+	 * {@link MAPElitesListener#onStageCompleted}.
+	 *
+	 * @param generators number of generation workers
+	 * @param evaluators number of evaluation workers
+	 * @param queueCapacity capacity of each inter-stage queue
+	 */
+	public void setPipeline(int generators, int evaluators, int queueCapacity) {
+		if (generators <= 0 || evaluators <= 0 || queueCapacity <= 0) {
+			throw new IllegalArgumentException(
+					"Pipeline workers and queue capacity must be positive");
+		}
+		this.pipelined = true;
+		this.generators = generators;
+		this.evaluators = evaluators;
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Switches the archive to CVT-MAP-Elites: instead of {@code bins^d} grid cells, each solution
+	 * lands in the niche of the centroid nearest to its scaled feature vector, so the cell of a
+	 * solution is the single coordinate {@code {centroidId}}. Must be called before the first
+	 * solution is added.
+	 *
+	 * @param tessellation centroids over the scaled {@code [0, 1]^d} descriptor space, with one
+	 *        dimension per feature dimension
+	 */
+	public void setTessellation(CentroidalTessellation tessellation) {
+		Objects.requireNonNull(tessellation, "Tessellation must not be null");
+		if (tessellation.dimensions() != featureDimensions.size()) {
+			throw new IllegalArgumentException("Tessellation has " + tessellation.dimensions()
+					+ " dimensions but there are " + featureDimensions.size() + " features");
+		}
+		if (grid.size() > 0) {
+			throw new IllegalStateException("Tessellation must be set before the archive is filled");
+		}
+		this.tessellation = tessellation;
+		this.grid = new Grid(1, tessellation.size());
+	}
+
+	/**
+	 * Replaces the evolve operator by one that may produce several children from one selection,
+	 * e.g. all proposals of one LLM call. The children of an iteration are evaluated concurrently
+	 * and inserted one by one; migration and {@link MAPElitesListener#onAfterIteration} follow
+	 * once all of them are inserted. An empty list is an iteration without a child.
+	 */
+	public void setBatchEvolveOperator(Function<List<Solution<T>>, List<T>> evolveOperator) {
+		this.evolveOperator =
+				Objects.requireNonNull(evolveOperator, "Evolve operator must not be null");
+	}
+
+	/**
+	 * Puts {@code evaluationCache} in front of the fitness function, so candidates with a known
+	 * content hash reuse the stored metrics. Every lookup is reported via
+	 * {@link MAPElitesListener#onEvaluationCacheLookup}.
+	 */
+	public void setEvaluationCache(EvaluationCache<T> evaluationCache) {
+		this.evaluationCache = evaluationCache;
+	}
+
+	/**
+	 * Runs the stages of {@code cascade} before the fitness function. After each stage the
+	 * candidate must pass the stage gate and, if the stage compares against the incumbent,
+	 * must not be dominated by the solution currently holding the cell its stage metrics map to.
+	 * Otherwise the remaining stages are skipped and the candidate is dropped: it is reported via
+	 * {@link MAPElitesListener#onSolutionGenerated} with its stage metrics, marked with
+	 * {@link Cascade#REJECTED_AT}, as fitness, but never enters the grid or the repository. Every
+	 * stage outcome is reported via
+	 * {@link MAPElitesListener#onCascadeStage}, with the evaluator time a rejection saved estimated
+	 * from the mean duration of the fitness function so far.
+	 */
+	public void setCascade(Cascade<T> cascade) {
+		this.cascade = cascade;
+	}
+
 	public void printArchive() {
 		// group by island
 		Map<Integer, List<Solution<T>>> groupedByIsland =
@@ -107,26 +233,50 @@ public class MAPElites<T> {
 			initialized = true;
 		}
 
+		if (pipelined) {
+			runPipeline(iterations);
+			return;
+		}
+		if (parallelism > 1) {
+			runConcurrent(iterations);
+			return;
+		}
+
 		for (; currentIteration <= iterations && !shouldStop(); currentIteration++) {
+			Island island = null;
 			try {
-				var island = repository.nextIsland();
+				island = repository.nextIsland();
+				var selected = island;
 				callListeners(
-						listener -> listener.onBeforeIteration(island, currentIteration, this));
+						listener -> listener.onBeforeIteration(selected, currentIteration, this));
 				evolveIsland(island, currentIteration);
-				migration.migrateSolutions(island, currentIteration);
-				callListeners(
-						listener -> listener.onAfterIteration(island, currentIteration, this));
 			} catch (Throwable t) {
-				LOG.error("Error occurred during MAP-Elites iteration", t);
+				iterationFailed(island, currentIteration, t);
+				continue;
 			}
+			finishIteration(island, currentIteration);
 		}
 	}
 
 	public Snapshot<T> snapshot() {
-		return new Snapshot<>(currentIteration, repository.snapshot(), new HashMap<>(grid), new HashMap<>(featureStats));
+		archiveLock.lock();
+		try {
+			return new Snapshot<>(currentIteration, repository.snapshot(), grid.toMap(),
+					new HashMap<>(featureStats));
+		} finally {
+			archiveLock.unlock();
+		}
 	}
 
 	public int[] calculateFeatureCoords(T evolved, Map<String, Object> fitness) {
+		if (tessellation != null) {
+			var descriptor = new double[featureDimensions.size()];
+			for (int i = 0; i < descriptor.length; i++) {
+				String dim = featureDimensions.get(i);
+				descriptor[i] = calculateDescriptor(dim, getFeatureValue(dim, evolved, fitness));
+			}
+			return new int[] {tessellation.nearest(descriptor)};
+		}
 		int[] coords = new int[featureDimensions.size()];
 		for (int i = 0; i < featureDimensions.size(); i++) {
 			String dim = featureDimensions.get(i);
@@ -138,26 +288,26 @@ public class MAPElites<T> {
 	}
 
 	public boolean addToGrid(Solution<T> newSolution) {
-		var coords = newSolution.cellId();
-		var cell = grid.get(coords);
-		var currentId = cell != null ? cell.solutionId() : null;
+		long index = grid.index(newSolution.cell());
+		int slot = grid.find(index);
+		var currentId = slot >= 0 ? grid.solutionId(slot) : null;
 		var current = currentId != null ? repository.findById(currentId) : null;
 
 		boolean isImprovement = current == null || repository.dominates(newSolution, current);
 
 		repository.save(newSolution);
 		if (isImprovement) {
-			var newCell = new Cell(coords, cell != null ? cell.trials() + 1 : 1,
-					cell != null ? cell.curiosity() : 0.0, newSolution.iteration(),
+			int updated = grid.put(index, slot >= 0 ? grid.trials(slot) + 1 : 1,
+					slot >= 0 ? grid.curiosity(slot) : 0.0, newSolution.iteration(),
 					newSolution.id());
-			grid.put(coords, newCell);
+			var newCell = grid.cell(updated);
 			callListeners(listener -> listener.onCellImproved(newSolution, current, newCell,
 					newSolution.iteration()));
 			return true;
-		} else if (cell != null) {
-			var updatedCell = new Cell(cell.key(), cell.trials() + 1, cell.curiosity(),
-					cell.improveIter(), cell.solutionId());
-			grid.put(coords, updatedCell);
+		} else if (slot >= 0) {
+			grid.put(index, grid.trials(slot) + 1, grid.curiosity(slot), grid.improveIter(slot),
+					currentId);
+			var updatedCell = grid.cell(slot);
 			callListeners(listener -> listener.onCellRejected(newSolution, current, updatedCell,
 					newSolution.iteration()));
 		}
@@ -177,11 +327,20 @@ public class MAPElites<T> {
 			return 0;
 		}
 		double scaledValue = scaleFeature(dim, featureValue);
-		int numBins = featureBinsPerDim.getOrDefault(dim, defaultBins);
+		int numBins = defaultBins;
 		int idx = (int) (scaledValue * numBins);
 		return Math.max(0, Math.min(numBins - 1, idx));
 	}
 
+	protected double calculateDescriptor(String dim, double featureValue) {
+		if (Constants.DIVERSITY.equals(dim) && repository.count() < 2) {
+			return 0.0;
+		}
+		double scaledValue = scaleFeature(dim, featureValue);
+		// NaN lands in the first bin on the grid, mirror that here
+		return Double.isNaN(scaledValue) ? 0.0 : Math.max(0.0, Math.min(1.0, scaledValue));
+	}
+
 	protected double scaleFeature(String feature, double value) {
 		FeatureScaler scaler =
 				featureStats.computeIfAbsent(feature, _ -> new FeatureScaler(featureScaleMethod)).apply(value);
@@ -190,28 +349,418 @@ public class MAPElites<T> {
 	}
 
 	private boolean shouldStop() {
-		var best = repository.findAll().getFirst();
-		return stopCondition.test(best);
+		return stopCondition.test(repository.best());
 	}
 
-	private void evolveIsland(Island island, int iteration) {
+	private void runConcurrent(int iterations) {
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < parallelism; i++) {
+				executor.submit(() -> {
+					int iteration;
+					while ((iteration = claimIteration(iterations)) > 0) {
+						runIteration(iteration);
+					}
+				});
+			}
+		}
+	}
+
+	private int claimIteration(int iterations) {
+		archiveLock.lock();
+		try {
+			if (currentIteration > iterations || shouldStop()) {
+				return -1;
+			}
+			return currentIteration++;
+		} finally {
+			archiveLock.unlock();
+		}
+	}
+
+	private void runIteration(int iteration) {
+		Island island = null;
+		List<Candidate<T>> candidates;
+		try {
+			var started = start(iteration);
+			island = started.island();
+			candidates = evolve(started);
+			if (candidates.getFirst().evolved() != null) {
+				candidates = evaluate(candidates);
+			}
+		} catch (Throwable t) {
+			iterationFailed(island, iteration, t);
+			return;
+		}
+		for (var candidate : candidates) {
+			try {
+				insert(candidate);
+			} catch (Throwable t) {
+				LOG.error("Error occurred while inserting MAP-Elites candidate", t);
+			}
+		}
+	}
+
+	private void runPipeline(int iterations) {
+		var evaluationQueue = new ArrayBlockingQueue<Candidate<T>>(queueCapacity);
+		var insertionQueue = new ArrayBlockingQueue<Candidate<T>>(queueCapacity);
+		try (var inserter = Executors.newVirtualThreadPerTaskExecutor()) {
+			inserter.submit(() -> insertStage(evaluationQueue, insertionQueue));
+			try (var evaluatorPool = Executors.newVirtualThreadPerTaskExecutor()) {
+				for (int i = 0; i < evaluators; i++) {
+					evaluatorPool.submit(() -> evaluateStage(evaluationQueue, insertionQueue));
+				}
+				try (var generatorPool = Executors.newVirtualThreadPerTaskExecutor()) {
+					for (int i = 0; i < generators; i++) {
+						generatorPool.submit(
+								() -> generateStage(iterations, evaluationQueue, insertionQueue));
+					}
+				}
+				for (int i = 0; i < evaluators; i++) {
+					evaluationQueue.put(endOfStream);
+				}
+			}
+			insertionQueue.put(endOfStream);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOG.warn("MAP-Elites pipeline interrupted");
+		}
+	}
+
+	private void generateStage(int iterations, BlockingQueue<Candidate<T>> evaluationQueue,
+			BlockingQueue<Candidate<T>> insertionQueue) {
+		int iteration;
+		while ((iteration = claimIteration(iterations)) > 0) {
+			long start = System.nanoTime();
+			Island island = null;
+			List<Candidate<T>> candidates;
+			try {
+				var started = start(iteration);
+				island = started.island();
+				candidates = evolve(started);
+			} catch (Throwable t) {
+				iterationFailed(island, iteration, t);
+				continue;
+			}
+			try {
+				for (var candidate : candidates) {
+					// nothing to evaluate, let the inserter finish the iteration
+					(candidate.evolved() != null ? evaluationQueue : insertionQueue).put(candidate);
+				}
+				stageCompleted(Stage.GENERATE, iteration, start, evaluationQueue, insertionQueue);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private void evaluateStage(BlockingQueue<Candidate<T>> evaluationQueue,
+			BlockingQueue<Candidate<T>> insertionQueue) {
+		try {
+			Candidate<T> candidate;
+			while ((candidate = evaluationQueue.take()) != endOfStream) {
+				long start = System.nanoTime();
+				Candidate<T> evaluated;
+				try {
+					evaluated = evaluate(candidate);
+				} catch (Throwable t) {
+					LOG.error("Error occurred while evaluating MAP-Elites candidate", t);
+					// dropped, but its siblings still complete the iteration
+					evaluated = new Candidate<>(candidate.iteration(), candidate.island(),
+							candidate.parents(), null, null, candidate.remaining());
+				}
+				insertionQueue.put(evaluated);
+				stageCompleted(Stage.EVALUATE, candidate.iteration(), start, evaluationQueue,
+						insertionQueue);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void insertStage(BlockingQueue<Candidate<T>> evaluationQueue,
+			BlockingQueue<Candidate<T>> insertionQueue) {
+		try {
+			Candidate<T> candidate;
+			while ((candidate = insertionQueue.take()) != endOfStream) {
+				long start = System.nanoTime();
+				try {
+					insert(candidate);
+					stageCompleted(Stage.INSERT, candidate.iteration(), start, evaluationQueue,
+							insertionQueue);
+				} catch (Throwable t) {
+					LOG.error("Error occurred while inserting MAP-Elites candidate", t);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void stageCompleted(Stage stage, int iteration, long startNanos,
+			BlockingQueue<Candidate<T>> evaluationQueue,
+			BlockingQueue<Candidate<T>> insertionQueue) {
+		var latency = Duration.ofNanos(System.nanoTime() - startNanos);
+		int evaluationDepth = evaluationQueue.size();
+		int insertionDepth = insertionQueue.size();
+		callListeners(listener -> listener.onStageCompleted(stage, iteration, latency,
+				evaluationDepth, insertionDepth));
+	}
+
+	/**
+	 * Picks the island of the iteration and selects its parents.
+	 *
+	 * @return a candidate without a child
+	 */
+	private Candidate<T> start(int iteration) {
+		archiveLock.lock();
+		try {
+			var island = repository.nextIsland();
+			callListeners(listener -> listener.onBeforeIteration(island, iteration, this));
+			return new Candidate<>(iteration, island, select(island, iteration), null, null,
+					new AtomicInteger(1));
+		} finally {
+			archiveLock.unlock();
+		}
+	}
+
+	/**
+	 * @return the children of the iteration, or {@code started} if there are none
+	 */
+	private List<Candidate<T>> evolve(Candidate<T> started) {
+		// the expensive part (LLM call and evaluation) runs outside the archive lock
+		var selected = started.parents();
+		var children = selected.isEmpty() ? List.<T>of() : evolveOperator.apply(selected);
+		if (children.isEmpty()) {
+			return List.of(started);
+		}
+		var remaining = new AtomicInteger(children.size());
+		return children.stream()
+				.map(child -> new Candidate<>(started.iteration(), started.island(), selected,
+						child, null, remaining))
+				.toList();
+	}
+
+	private Candidate<T> evaluate(Candidate<T> candidate) {
+		return new Candidate<>(candidate.iteration(), candidate.island(), candidate.parents(),
+				candidate.evolved(), fitness(candidate.evolved(), candidate.iteration()),
+				candidate.remaining());
+	}
+
+	private List<Candidate<T>> evaluate(List<Candidate<T>> candidates)
+			throws InterruptedException, ExecutionException {
+		var fitness = fitness(candidates.stream().map(Candidate::evolved).toList(),
+				candidates.getFirst().iteration());
+		var evaluated = new ArrayList<Candidate<T>>(candidates.size());
+		for (int i = 0; i < candidates.size(); i++) {
+			var candidate = candidates.get(i);
+			evaluated.add(new Candidate<>(candidate.iteration(), candidate.island(),
+					candidate.parents(), candidate.evolved(), fitness.get(i), candidate.remaining()));
+		}
+		return evaluated;
+	}
+
+	private void insert(Candidate<T> candidate) {
+		var island = candidate.island();
+		var iteration = candidate.iteration();
+		archiveLock.lock();
+		try {
+			if (candidate.evolved() != null) {
+				var solution = insertSolution(candidate.evolved(), candidate.fitness(), island,
+						iteration);
+				callListeners(listener -> listener.onSolutionGenerated(solution,
+						candidate.parents(), iteration));
+			}
+		} finally {
+			try {
+				// the last sibling finishes the iteration, even if its own insertion failed
+				if (candidate.remaining().decrementAndGet() == 0) {
+					finishIteration(island, iteration);
+				}
+			} finally {
+				archiveLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Migrates and reports the end of the iteration, via
+	 * {@link MAPElitesListener#onIterationFailed} if migration fails.
+	 */
+	private void finishIteration(Island island, int iteration) {
+		try {
+			migration.migrateSolutions(island, iteration);
+		} catch (Throwable t) {
+			iterationFailed(island, iteration, t);
+			return;
+		}
+		callListeners(listener -> listener.onAfterIteration(island, iteration, this));
+	}
+
+	private void iterationFailed(Island island, int iteration, Throwable error) {
+		LOG.error("Error occurred during MAP-Elites iteration", error);
+		callListeners(listener -> listener.onIterationFailed(island, iteration, error, this));
+	}
+
+	private void evolveIsland(Island island, int iteration)
+			throws InterruptedException, ExecutionException {
+		var selected = select(island, iteration);
+		if (selected.isEmpty()) {
+			return;
+		}
+		var children = evolveOperator.apply(selected);
+		if (children.isEmpty()) {
+			return;
+		}
+		var fitness = fitness(children, iteration);
+		for (int i = 0; i < children.size(); i++) {
+			var solution = insertSolution(children.get(i), fitness.get(i), island, iteration);
+			callListeners(listener -> listener.onSolutionGenerated(solution, selected, iteration));
+		}
+	}
+
+	private List<Solution<T>> select(Island island, int iteration) {
 		var selected = selection.apply(island);
 		if (selected.isEmpty()) {
 			LOG.warn("No solutions selected for evolution on island {} at iteration {}",
 					island.id(), iteration);
-			return;
+			return selected;
 		}
 		callListeners(listener -> listener.onSolutionSelection(selected, island, iteration));
-		var evolved = evolveOperator.apply(selected);
-		if (evolved == null) {
-			return;
-		}
-		var solution = addSolution(evolved, island, iteration);
-		callListeners(listener -> listener.onSolutionGenerated(solution, selected, iteration));
+		return selected;
 	}
 
 	private Solution<T> addSolution(T evolved, Island island, int iteration) {
+		return insertSolution(evolved, fitness(evolved, iteration), island, iteration);
+	}
+
+	/**
+	 * Evaluates the children of one iteration, concurrently if there are several.
+	 */
+	private List<Map<String, Object>> fitness(List<T> children, int iteration)
+			throws InterruptedException, ExecutionException {
+		if (children.size() == 1) {
+			return List.of(fitness(children.getFirst(), iteration));
+		}
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			var futures = new ArrayList<Future<Map<String, Object>>>(children.size());
+			for (var child : children) {
+				futures.add(executor.submit(() -> fitness(child, iteration)));
+			}
+			var fitness = new ArrayList<Map<String, Object>>(children.size());
+			for (var future : futures) {
+				fitness.add(future.get());
+			}
+			return fitness;
+		}
+	}
+
+	private Map<String, Object> fitness(T evolved, int iteration) {
+		Function<T, Map<String, Object>> function =
+				cascade == null ? fitnessFunction : candidate -> cascaded(candidate, iteration);
+		if (evaluationCache == null) {
+			return function.apply(evolved);
+		}
+		var lookup = evaluationCache.evaluate(evolved, function);
+		callListeners(listener -> listener.onEvaluationCacheLookup(lookup.hit(), lookup.stats(),
+				iteration));
+		return lookup.fitness();
+	}
+
+	private Map<String, Object> cascaded(T evolved, int iteration) {
+		for (var stage : cascade.stages()) {
+			long start = System.nanoTime();
+			var metrics = stage.evaluator().apply(evolved);
+			var elapsed = Duration.ofNanos(System.nanoTime() - start);
+			boolean passed = stage.gate().test(metrics)
+					&& !(stage.compareIncumbent() && dominatedByIncumbent(evolved, metrics));
+			long count = fullEvaluations.get();
+			var saved = passed || count == 0 ? Duration.ZERO
+					: Duration.ofNanos(fullEvaluationNanos.get() / count);
+			var totalSaved = Duration.ofNanos(savedNanos.addAndGet(saved.toNanos()));
+			callListeners(listener -> listener.onCascadeStage(stage.name(), passed, elapsed, saved,
+					totalSaved, iteration));
+			if (!passed) {
+				var rejected = new HashMap<>(metrics);
+				rejected.put(Cascade.REJECTED_AT, stage.name());
+				return rejected;
+			}
+		}
+		long start = System.nanoTime();
 		var fitness = fitnessFunction.apply(evolved);
+		fullEvaluationNanos.addAndGet(System.nanoTime() - start);
+		fullEvaluations.incrementAndGet();
+		return fitness;
+	}
+
+	/**
+	 * @return fitness of the solution holding the cell {@code metrics} map {@code evolved} to,
+	 *         null if the cell is empty. Feature statistics are not updated.
+	 */
+	public Map<String, Object> incumbentFitness(T evolved, Map<String, Object> metrics) {
+		var incumbent = incumbent(evolved, metrics);
+		return incumbent != null ? incumbent.fitness() : null;
+	}
+
+	/**
+	 * Checks whether the current holder of the cell the stage metrics map to dominates the
+	 * candidate.
+	 */
+	private boolean dominatedByIncumbent(T evolved, Map<String, Object> metrics) {
+		var incumbent = incumbent(evolved, metrics);
+		if (incumbent == null) {
+			return false;
+		}
+		var candidate = new Solution<T>(UUID.randomUUID(), evolved, null, metrics,
+				incumbent.iteration(), incumbent.islandId(), incumbent.cell());
+		return repository.dominates(incumbent, candidate);
+	}
+
+	/**
+	 * Places the candidate with {@code metrics} on the grid without recording its feature values.
+	 */
+	private Solution<T> incumbent(T evolved, Map<String, Object> metrics) {
+		if (metrics == null || metrics.isEmpty()) {
+			return null;
+		}
+		archiveLock.lock();
+		try {
+			int slot = grid.find(grid.index(peekFeatureCoords(evolved, metrics)));
+			return slot >= 0 ? repository.findById(grid.solutionId(slot)) : null;
+		} finally {
+			archiveLock.unlock();
+		}
+	}
+
+	/**
+	 * {@link #calculateFeatureCoords} without recording the feature values.
+	 */
+	private int[] peekFeatureCoords(T evolved, Map<String, Object> metrics) {
+		archiveLock.lock();
+		try {
+			var stats = new HashMap<>(featureStats);
+			try {
+				return calculateFeatureCoords(evolved, metrics);
+			} finally {
+				featureStats.clear();
+				featureStats.putAll(stats);
+			}
+		} finally {
+			archiveLock.unlock();
+		}
+	}
+
+	/**
+	 * Adds the candidate to the archive, unless the cascade rejected it: a rejected candidate is
+	 * only reported, it never takes a cell or a repository slot and leaves the feature statistics
+	 * untouched.
+	 */
+	private Solution<T> insertSolution(T evolved, Map<String, Object> fitness, Island island,
+			int iteration) {
+		if (cascade != null && fitness != null && fitness.containsKey(Cascade.REJECTED_AT)) {
+			return new Solution<T>(UUID.randomUUID(), evolved, null, fitness, iteration, island.id(),
+					peekFeatureCoords(evolved, fitness));
+		}
 		var coords = calculateFeatureCoords(evolved, fitness);
 		var solution = new Solution<T>(UUID.randomUUID(), evolved, null, fitness, iteration, island.id(), coords);
 		var bestBefore = repository.best();
@@ -234,7 +783,32 @@ public class MAPElites<T> {
 		});
 	}
 
-	public record Cell(String key, int trials, double curiosity, int improveIter, UUID solutionId) {
+	public enum Stage {
+		GENERATE, EVALUATE, INSERT
+	}
+
+	/**
+	 * @param remaining children of the iteration not inserted yet, shared by siblings
+	 */
+	private record Candidate<T>(int iteration, Island island, List<Solution<T>> parents,
+			T evolved, Map<String, Object> fitness, AtomicInteger remaining) {
+	}
+
+	public record Cell(int[] coords, int trials, double curiosity, int improveIter, UUID solutionId) {
+
+		/**
+		 * @return coordinates in the {@link Solution#cellToKey} form
+		 */
+		@JsonIgnore
+		public String key() {
+			return Solution.cellToKey(coords);
+		}
+
+		@Override
+		public String toString() {
+			return "Cell[key=" + key() + ", trials=" + trials + ", curiosity=" + curiosity
+					+ ", improveIter=" + improveIter + ", solutionId=" + solutionId + "]";
+		}
 	}
 
 	public record Snapshot<T>(int iteration, Repository.RepositoryState<T> repository, Map<String, Cell> grid, Map<String, FeatureScaler> featureStats) {
@@ -5,6 +5,10 @@ import java.util.Objects;
 import java.util.function.Function;
 import openevolve.mapelites.Repository.Solution;
 
+/**
+ * Pareto dominance comparator. Objective vectors are computed once per solution and extractor and
+ * cached on the solution (see {@link Solution#objectives}), so comparisons do not allocate.
+ */
 public class ParetoComparator<T> implements Comparator<Solution<T>> {
 
     private final boolean[] maximize;
@@ -17,6 +21,14 @@ public class ParetoComparator<T> implements Comparator<Solution<T>> {
         this.extractor = extractor;
     }
 
+    public boolean[] maximize() {
+        return maximize.clone();
+    }
+
+    public Function<Solution<T>, double[]> extractor() {
+        return extractor;
+    }
+
     /**
      * Compares two solutions based on Pareto dominance.
      * Returns a positive number if a dominates b, a negative number if b dominates a.
@@ -25,8 +37,8 @@ public class ParetoComparator<T> implements Comparator<Solution<T>> {
      * for strict Pareto dominance checks.
      */
     public int compare(Solution<T> a, Solution<T> b) {
-        double[] aObj = extractor.apply(a);
-        double[] bObj = extractor.apply(b);
+        double[] aObj = a.objectives(extractor);
+        double[] bObj = b.objectives(extractor);
 
         boolean aDominatesB = true;
         boolean bDominatesA = true;
@@ -89,8 +101,8 @@ public class ParetoComparator<T> implements Comparator<Solution<T>> {
         // Strict Pareto dominance: a is at least as good as b on all objectives
         // and strictly better on at least one objective. Lexicographic tiebreak
         // used in compare() is intentionally ignored here.
-        double[] aObj = extractor.apply(a);
-        double[] bObj = extractor.apply(b);
+        double[] aObj = a.objectives(extractor);
+        double[] bObj = b.objectives(extractor);
 
         boolean strictlyBetterOnAtLeastOne = false;
         for (int i = 0; i < aObj.length; i++) {
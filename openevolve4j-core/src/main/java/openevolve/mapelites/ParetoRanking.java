@@ -0,0 +1,253 @@
+package openevolve.mapelites;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import openevolve.mapelites.Repository.Solution;
+
+/**
+ * NSGA-II style ranking: non-dominated sorting into Pareto fronts followed by crowding distance
+ * within each front. Fronts are built with the binary-search variant of Efficient Non-dominated
+ * Sort (ENS-BS): solutions are visited in lexicographic order, so a solution can only be dominated
+ * by ones already placed, and it joins the first front none of whose members dominates it. When
+ * the number of fronts is small this needs O(M N log N) dominance checks instead of the O(M N^2)
+ * of the naive sort.
+ */
+public class ParetoRanking<T> {
+
+	private final boolean[] maximize;
+	private final Function<Solution<T>, double[]> extractor;
+
+	public ParetoRanking(boolean[] maximize, Function<Solution<T>, double[]> extractor) {
+		Objects.requireNonNull(maximize, "Maximize array must not be null");
+		Objects.requireNonNull(extractor, "Extractor function must not be null");
+		this.maximize = maximize.clone();
+		this.extractor = extractor;
+	}
+
+	/**
+	 * Ranks with the objectives of {@code comparator}, sharing its cached objective vectors.
+	 */
+	public ParetoRanking(ParetoComparator<T> comparator) {
+		this(comparator.maximize(), comparator.extractor());
+	}
+
+	public Ranking<T> rank(Collection<Solution<T>> solutions) {
+		var items = new ArrayList<>(solutions);
+		int n = items.size();
+		int m = maximize.length;
+		// objectives normalized so that lower is better on every axis
+		var objectives = new double[n][];
+		for (int i = 0; i < n; i++) {
+			var raw = items.get(i).objectives(extractor);
+			if (raw.length != m) {
+				throw new IllegalArgumentException("Expected " + m + " objectives but got " + raw.length);
+			}
+			var normalized = new double[m];
+			for (int k = 0; k < m; k++) {
+				normalized[k] = maximize[k] ? -raw[k] : raw[k];
+			}
+			objectives[i] = normalized;
+		}
+
+		var order = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Arrays.compare(objectives[a], objectives[b]));
+
+		var fronts = new ArrayList<Front>();
+		var frontOf = new int[n];
+		for (int s : order) {
+			int lo = 0;
+			int hi = fronts.size();
+			// "some member of front k dominates s" is monotone in k, so binary search applies
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (fronts.get(mid).dominates(objectives[s])) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			if (lo == fronts.size()) {
+				fronts.add(new Front(m));
+			}
+			fronts.get(lo).add(s, objectives[s]);
+			frontOf[s] = lo;
+		}
+
+		var crowding = new double[n];
+		for (var front : fronts) {
+			assignCrowding(front, objectives, crowding);
+		}
+		return new Ranking<>(items, fronts, frontOf, crowding);
+	}
+
+	private void assignCrowding(Front front, double[][] objectives, double[] crowding) {
+		int size = front.size;
+		if (size <= 2) {
+			for (int i = 0; i < size; i++) {
+				crowding[front.members[i]] = Double.POSITIVE_INFINITY;
+			}
+			return;
+		}
+		var members = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			members[i] = front.members[i];
+		}
+		for (int k = 0; k < maximize.length; k++) {
+			int axis = k;
+			Arrays.sort(members, (a, b) -> Double.compare(objectives[a][axis], objectives[b][axis]));
+			int first = members[0];
+			int last = members[size - 1];
+			crowding[first] = Double.POSITIVE_INFINITY;
+			crowding[last] = Double.POSITIVE_INFINITY;
+			double range = objectives[last][axis] - objectives[first][axis];
+			if (!(range > 0) || Double.isInfinite(range)) {
+				continue;
+			}
+			for (int i = 1; i < size - 1; i++) {
+				crowding[members[i]] += (objectives[members[i + 1]][axis]
+						- objectives[members[i - 1]][axis]) / range;
+			}
+		}
+	}
+
+	/**
+	 * Members of one front in insertion (lexicographic) order, with their objective vectors copied
+	 * into one contiguous array so dominance scans read memory sequentially.
+	 */
+	private static final class Front {
+		private final int m;
+		private int[] members = new int[8];
+		private double[] values;
+		private int size;
+
+		Front(int m) {
+			this.m = m;
+			this.values = new double[8 * m];
+		}
+
+		void add(int index, double[] objectives) {
+			if (size == members.length) {
+				members = Arrays.copyOf(members, size * 2);
+				values = Arrays.copyOf(values, size * 2 * m);
+			}
+			System.arraycopy(objectives, 0, values, size * m, m);
+			members[size++] = index;
+		}
+
+		boolean dominates(double[] b) {
+			// with two objectives members are strictly monotone on both axes, so only the last one
+			// can dominate a solution visited after all of them
+			int stop = m == 2 ? size - 1 : 0;
+			// recently added members are the closest in lexicographic order, check them first
+			for (int i = size - 1; i >= stop; i--) {
+				if (dominates(i * m, b)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private boolean dominates(int offset, double[] b) {
+			boolean strictlyBetter = false;
+			for (int k = 0; k < m; k++) {
+				double a = values[offset + k];
+				if (a > b[k]) {
+					return false;
+				}
+				if (a < b[k]) {
+					strictlyBetter = true;
+				}
+			}
+			return strictlyBetter;
+		}
+	}
+
+	/**
+	 * Result of {@link ParetoRanking#rank}: front index (0 is the non-dominated front) and crowding
+	 * distance of every ranked solution.
+	 */
+	public static final class Ranking<T> {
+		private final List<Solution<T>> solutions;
+		private final Map<Solution<T>, Integer> indexes;
+		private final List<List<Solution<T>>> fronts;
+		private final int[] frontOf;
+		private final double[] crowding;
+
+		private Ranking(List<Solution<T>> solutions, List<Front> fronts, int[] frontOf,
+				double[] crowding) {
+			this.solutions = solutions;
+			this.frontOf = frontOf;
+			this.crowding = crowding;
+			this.indexes = new HashMap<>(solutions.size() * 2);
+			for (int i = 0; i < solutions.size(); i++) {
+				indexes.put(solutions.get(i), i);
+			}
+			var result = new ArrayList<List<Solution<T>>>(fronts.size());
+			for (var front : fronts) {
+				var members = new Integer[front.size];
+				for (int i = 0; i < front.size; i++) {
+					members[i] = front.members[i];
+				}
+				Arrays.sort(members, (a, b) -> Double.compare(crowding[b], crowding[a]));
+				result.add(Arrays.stream(members).map(solutions::get).toList());
+			}
+			this.fronts = List.copyOf(result);
+		}
+
+		/**
+		 * @return fronts from best to worst, each ordered by descending crowding distance
+		 */
+		public List<List<Solution<T>>> fronts() {
+			return fronts;
+		}
+
+		/**
+		 * @return all ranked solutions, best first: by front, then by descending crowding distance
+		 */
+		public List<Solution<T>> ordered() {
+			return fronts.stream().flatMap(List::stream).toList();
+		}
+
+		public int front(Solution<T> solution) {
+			return frontOf[indexOf(solution)];
+		}
+
+		public double crowding(Solution<T> solution) {
+			return crowding[indexOf(solution)];
+		}
+
+		/**
+		 * Crowded comparison: positive if {@code a} is in a better front, or in the same front with
+		 * a larger crowding distance.
+		 */
+		public int compare(Solution<T> a, Solution<T> b) {
+			int ia = indexOf(a);
+			int ib = indexOf(b);
+			if (frontOf[ia] != frontOf[ib]) {
+				return Integer.compare(frontOf[ib], frontOf[ia]);
+			}
+			return Double.compare(crowding[ia], crowding[ib]);
+		}
+
+		public int size() {
+			return solutions.size();
+		}
+
+		private int indexOf(Solution<T> solution) {
+			var index = indexes.get(solution);
+			if (index == null) {
+				throw new IllegalArgumentException("Solution " + solution.id() + " was not ranked");
+			}
+			return index;
+		}
+	}
+}
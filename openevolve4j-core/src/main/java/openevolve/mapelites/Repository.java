@@ -1,12 +1,13 @@
 package openevolve.mapelites;
 
-import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 public interface Repository<T> {
 	
@@ -18,10 +19,19 @@ public interface Repository<T> {
 
 	Solution<T> findById(UUID id);
 
+	/**
+	 * @return all solutions ordered best first; the list is read-only
+	 */
 	List<Solution<T>> findAll();
 
+	/**
+	 * @return solutions of the island ordered best first; the list is read-only
+	 */
 	List<Solution<T>> findByIslandId(int islandId);
 
+	/**
+	 * @return archived solutions ordered best first; the list is read-only
+	 */
 	List<Solution<T>> getArchive();
 
 	int count();
@@ -38,6 +48,14 @@ public interface Repository<T> {
 
 	List<Island> findAllIslands();
 
+	/**
+	 * Registers a listener notified after every save and delete, including the evictions the
+	 * repository performs on its own while saving. Notifications for one solution arrive in the
+	 * order of its mutations; they run on the mutating thread while the repository holds its locks,
+	 * so listeners must be quick and must not call back into the repository.
+	 */
+	void addChangeListener(ChangeListener<T> listener);
+
 	// Snapshot/restore support
     RepositoryState<T> snapshot();
     void restore(RepositoryState<T> state);
@@ -52,14 +70,29 @@ public interface Repository<T> {
 
     public record IslandState(int id, Set<UUID> archive) {}
 
+	public interface ChangeListener<T> {
+
+		default void onSaved(Solution<T> solution) {
+		}
+
+		default void onDeleted(Solution<T> solution) {
+		}
+	}
+
 	public record Solution<T>(UUID id, T solution, UUID migratedFrom, Map<String, Object> fitness,
-			int iteration, int islandId, int[] cell, String cellId) {
+			int iteration, int islandId, int[] cell, String cellId,
+			@JsonIgnore ObjectiveCache objectiveCache) {
 
 		public Solution(UUID id, T solution, UUID migratedFrom, Map<String, Object> fitness,
 				int iteration, int islandId, int[] cell) {
 			this(id, solution, migratedFrom, fitness, iteration, islandId, cell, cellToKey(cell));
 		}
 
+		public Solution(UUID id, T solution, UUID migratedFrom, Map<String, Object> fitness,
+				int iteration, int islandId, int[] cell, String cellId) {
+			this(id, solution, migratedFrom, fitness, iteration, islandId, cell, cellId, null);
+		}
+
 		public Solution {
 			Objects.requireNonNull(id, "id must not be null");
 			Objects.requireNonNull(solution, "solution must not be null");
@@ -72,11 +105,32 @@ public interface Repository<T> {
 			if (cellId == null || cellId.trim().isEmpty()) {
 				throw new IllegalArgumentException("cellId must not be null or empty");
 			}
+			objectiveCache = objectiveCache == null ? new ObjectiveCache() : objectiveCache;
+		}
+
+		/**
+		 * Returns the objective vector produced by {@code extractor}, computing it on first use and
+		 * caching it for subsequent calls with the same extractor instance. The returned array is
+		 * shared and must not be modified.
+		 */
+		public double[] objectives(Function<? super Solution<T>, double[]> extractor) {
+			double[] values = objectiveCache.get(extractor);
+			if (values == null) {
+				values = extractor.apply(this);
+				objectiveCache.put(extractor, values);
+			}
+			return values;
 		}
 
 		public static String cellToKey(int[] cell) {
-			return String.join("-",
-					Arrays.stream(cell).mapToObj(String::valueOf).toArray(String[]::new));
+			var key = new StringBuilder(cell.length * 3);
+			for (int i = 0; i < cell.length; i++) {
+				if (i > 0) {
+					key.append('-');
+				}
+				key.append(cell[i]);
+			}
+			return key.toString();
 		}
 
 		public Solution<T> copy(int targetIslandId) {
@@ -111,12 +165,42 @@ public interface Repository<T> {
 		}
 	}
 
+	/**
+	 * Per-solution slot holding the last objective vector computed for it, keyed by the extractor
+	 * that produced it. Racing writers compute the same values, so publishing either is fine.
+	 * Excluded from equality and serialization.
+	 */
+	public static final class ObjectiveCache {
+		private volatile Entry entry;
+
+		private record Entry(Object extractor, double[] values) {}
+
+		double[] get(Object extractor) {
+			var current = entry;
+			return current != null && current.extractor() == extractor ? current.values() : null;
+		}
+
+		void put(Object extractor, double[] values) {
+			entry = new Entry(extractor, values);
+		}
+
+		@Override
+		public String toString() {
+			return "ObjectiveCache";
+		}
+	}
+
 	public static class Island {
 		private final int id;
-		private final Set<UUID> archive = new HashSet<>();
+		private final Set<UUID> archive;
 
 		public Island(int id) {
+			this(id, new HashSet<>());
+		}
+
+		public Island(int id, Set<UUID> archive) {
 			this.id = id;
+			this.archive = archive;
 		}
 
 		public int id() {
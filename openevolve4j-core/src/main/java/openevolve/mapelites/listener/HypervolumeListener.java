@@ -0,0 +1,344 @@
+package openevolve.mapelites.listener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import openevolve.mapelites.MAPElites.Cell;
+import openevolve.mapelites.ParetoComparator;
+import openevolve.mapelites.Repository.Solution;
+
+/**
+ * Tracks the hypervolume dominated by every solution reported through {@link #onCellImproved},
+ * {@link #onNewBestSolution} and {@link #onCellRejected} (a candidate that loses its cell can
+ * still be non-dominated globally), relative to a reference point. Each offered solution updates the
+ * value incrementally:
+ * <ul>
+ * <li>two objectives: exact, O(log n) amortized via a staircase of non-dominated points;</li>
+ * <li>three objectives: exact, the new point's box minus the hypervolume of the front limited by
+ * that point, computed with a sweep in O(n log n);</li>
+ * <li>four or more: Monte Carlo estimate over a fixed set of uniform samples, each new point only
+ * tests the samples not yet dominated.</li>
+ * </ul>
+ * Solutions later evicted from the repository keep contributing, so exact values never decrease;
+ * the estimate can move slightly when its sampling box has to grow. Objective values that do not
+ * strictly dominate the reference point are ignored.
+ * <p>
+ * {@link #hypervolume()} is a volatile read and {@link #reaches(double)} turns it into a
+ * {@code stopCondition} for {@link openevolve.mapelites.MAPElites}.
+ */
+public class HypervolumeListener<T> implements MAPElitesListener<T> {
+
+	private static final int DEFAULT_SAMPLES = 100_000;
+
+	private final boolean[] maximize;
+	private final Function<Solution<T>, double[]> extractor;
+	// reference point and all stored points are negated on maximized axes, lower is better
+	private final double[] reference;
+	private final int m;
+	private final List<double[]> front = new ArrayList<>();
+	private final Staircase staircase;
+	private final MonteCarlo monteCarlo;
+	private volatile double hypervolume;
+
+	public HypervolumeListener(ParetoComparator<T> comparator, double[] reference) {
+		this(comparator.maximize(), comparator.extractor(), reference, DEFAULT_SAMPLES,
+				new Random(42));
+	}
+
+	/**
+	 * @param reference reference point in objective units, worse than any solution of interest
+	 * @param samples sample count of the Monte Carlo estimate used for four or more objectives
+	 */
+	public HypervolumeListener(boolean[] maximize, Function<Solution<T>, double[]> extractor,
+			double[] reference, int samples, Random random) {
+		Objects.requireNonNull(maximize, "Maximize array must not be null");
+		Objects.requireNonNull(extractor, "Extractor function must not be null");
+		Objects.requireNonNull(reference, "Reference point must not be null");
+		Objects.requireNonNull(random, "Random must not be null");
+		if (maximize.length == 0 || reference.length != maximize.length) {
+			throw new IllegalArgumentException(
+					"Reference point must have one coordinate per objective");
+		}
+		if (samples <= 0) {
+			throw new IllegalArgumentException("Sample count must be positive");
+		}
+		this.maximize = maximize.clone();
+		this.extractor = extractor;
+		this.m = maximize.length;
+		this.reference = normalize(reference);
+		this.staircase = m == 2 ? new Staircase(this.reference[0], this.reference[1]) : null;
+		this.monteCarlo = m >= 4 ? new MonteCarlo(samples, random) : null;
+	}
+
+	@Override
+	public void onCellImproved(Solution<T> newSolution, Solution<T> previousSolution, Cell cell,
+			int iteration) {
+		offer(newSolution);
+	}
+
+	@Override
+	public void onCellRejected(Solution<T> candidateSolution, Solution<T> existingSolution,
+			Cell cell, int iteration) {
+		offer(candidateSolution);
+	}
+
+	@Override
+	public void onNewBestSolution(Solution<T> newBest, Solution<T> previousBest, int iteration) {
+		offer(newBest);
+	}
+
+	/**
+	 * @return current hypervolume; exact for up to three objectives, an estimate above that
+	 */
+	public double hypervolume() {
+		return hypervolume;
+	}
+
+	/**
+	 * @return stop condition that holds once the hypervolume reaches {@code target}
+	 */
+	public Predicate<Solution<T>> reaches(double target) {
+		return _ -> hypervolume >= target;
+	}
+
+	/**
+	 * Adds a solution to the tracked set, e.g. when replaying solutions from a checkpoint.
+	 * @return hypervolume gained by the solution
+	 */
+	public synchronized double offer(Solution<T> solution) {
+		var point = normalize(solution.objectives(extractor));
+		for (int k = 0; k < m; k++) {
+			if (!(point[k] < reference[k])) {
+				return 0.0;
+			}
+		}
+		double gain = switch (m) {
+			case 1 -> addSingle(point);
+			case 2 -> staircase.add(point[0], point[1]);
+			case 3 -> addExact3d(point);
+			default -> addSampled(point);
+		};
+		hypervolume += gain;
+		return gain;
+	}
+
+	private double[] normalize(double[] values) {
+		if (values.length != m) {
+			throw new IllegalArgumentException("Expected " + m + " objectives but got " + values.length);
+		}
+		var result = new double[m];
+		for (int k = 0; k < m; k++) {
+			result[k] = maximize[k] ? -values[k] : values[k];
+		}
+		return result;
+	}
+
+	private double addSingle(double[] point) {
+		double best = front.isEmpty() ? reference[0] : front.get(0)[0];
+		if (point[0] >= best) {
+			return 0.0;
+		}
+		front.clear();
+		front.add(point);
+		return best - point[0];
+	}
+
+	private double addExact3d(double[] point) {
+		if (isCovered(point)) {
+			return 0.0;
+		}
+		// exclusive contribution: box of the point minus what the front already covers inside it,
+		// including the points about to be dropped as dominated
+		var limited = new ArrayList<double[]>(front.size());
+		for (var other : front) {
+			limited.add(new double[] {Math.max(point[0], other[0]), Math.max(point[1], other[1]),
+					Math.max(point[2], other[2])});
+		}
+		double box = (reference[0] - point[0]) * (reference[1] - point[1])
+				* (reference[2] - point[2]);
+		addToFront(point);
+		return box - volume3d(limited);
+	}
+
+	private double addSampled(double[] point) {
+		if (isCovered(point)) {
+			return 0.0;
+		}
+		addToFront(point);
+		return monteCarlo.add(point) - hypervolume;
+	}
+
+	private boolean isCovered(double[] point) {
+		for (var other : front) {
+			if (weaklyDominates(other, point)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Inserts a point into the non-dominated front, dropping the points it dominates.
+	 */
+	private void addToFront(double[] point) {
+		front.removeIf(other -> weaklyDominates(point, other));
+		front.add(point);
+	}
+
+	private static boolean weaklyDominates(double[] a, double[] b) {
+		for (int k = 0; k < a.length; k++) {
+			if (a[k] > b[k]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private double volume3d(List<double[]> points) {
+		points.sort(Comparator.comparingDouble(p -> p[2]));
+		var slice = new Staircase(reference[0], reference[1]);
+		double volume = 0.0;
+		for (int i = 0; i < points.size(); i++) {
+			var p = points.get(i);
+			slice.add(p[0], p[1]);
+			double nextZ = i + 1 < points.size() ? points.get(i + 1)[2] : reference[2];
+			volume += slice.area() * (nextZ - p[2]);
+		}
+		return volume;
+	}
+
+	/**
+	 * Two-dimensional non-dominated set ordered by x, where y strictly decreases with x. Adding a
+	 * point only touches its left neighbour and the points it dominates.
+	 */
+	private static final class Staircase {
+		private final double refX;
+		private final double refY;
+		private final TreeMap<Double, Double> points = new TreeMap<>();
+		private double area;
+
+		Staircase(double refX, double refY) {
+			this.refX = refX;
+			this.refY = refY;
+		}
+
+		double area() {
+			return area;
+		}
+
+		double add(double x, double y) {
+			if (!(x < refX && y < refY)) {
+				return 0.0;
+			}
+			var floor = points.floorEntry(x);
+			if (floor != null && floor.getValue() <= y) {
+				return 0.0;
+			}
+			var left = points.lowerEntry(x);
+			double top = left != null ? left.getValue() : refY;
+			double fromX = x;
+			double gain = 0.0;
+			var dominated = points.tailMap(x, true).entrySet().iterator();
+			while (dominated.hasNext()) {
+				Map.Entry<Double, Double> next = dominated.next();
+				if (next.getValue() < y) {
+					gain += (next.getKey() - fromX) * (top - y);
+					area += gain;
+					points.put(x, y);
+					return gain;
+				}
+				gain += (next.getKey() - fromX) * (top - y);
+				top = next.getValue();
+				fromX = next.getKey();
+				dominated.remove();
+			}
+			gain += (refX - fromX) * (top - y);
+			area += gain;
+			points.put(x, y);
+			return gain;
+		}
+	}
+
+	/**
+	 * Uniform samples in the box between the lower corner of the front and the reference point.
+	 * The box is grown with some slack whenever a point falls outside it, which redraws the samples.
+	 */
+	private final class MonteCarlo {
+		private final int samples;
+		private final Random random;
+		private final double[] lower = new double[m];
+		private double[] coordinates;
+		private boolean[] covered;
+		private int coveredCount;
+		private boolean initialized;
+
+		MonteCarlo(int samples, Random random) {
+			this.samples = samples;
+			this.random = random;
+		}
+
+		/**
+		 * @return estimated hypervolume after adding the point, which is already in the front
+		 */
+		double add(double[] point) {
+			boolean outside = !initialized;
+			for (int k = 0; k < m && !outside; k++) {
+				outside = point[k] < lower[k];
+			}
+			if (outside) {
+				resample(point);
+			} else {
+				for (int s = 0; s < samples; s++) {
+					if (!covered[s] && weaklyDominates(point, s)) {
+						covered[s] = true;
+						coveredCount++;
+					}
+				}
+			}
+			double box = 1.0;
+			for (int k = 0; k < m; k++) {
+				box *= reference[k] - lower[k];
+			}
+			return box * coveredCount / samples;
+		}
+
+		private void resample(double[] point) {
+			for (int k = 0; k < m; k++) {
+				double bound = initialized ? Math.min(lower[k], point[k]) : point[k];
+				lower[k] = bound - 0.25 * (reference[k] - bound);
+			}
+			initialized = true;
+			coordinates = new double[samples * m];
+			covered = new boolean[samples];
+			coveredCount = 0;
+			for (int s = 0; s < samples; s++) {
+				for (int k = 0; k < m; k++) {
+					coordinates[s * m + k] = lower[k] + random.nextDouble() * (reference[k] - lower[k]);
+				}
+				for (var p : front) {
+					if (weaklyDominates(p, s)) {
+						covered[s] = true;
+						coveredCount++;
+						break;
+					}
+				}
+			}
+		}
+
+		private boolean weaklyDominates(double[] point, int sample) {
+			int offset = sample * m;
+			for (int k = 0; k < m; k++) {
+				if (point[k] > coordinates[offset + k]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
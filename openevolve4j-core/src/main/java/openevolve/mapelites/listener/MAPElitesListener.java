@@ -1,13 +1,25 @@
 package openevolve.mapelites.listener;
 
+import java.time.Duration;
+import openevolve.mapelites.EvaluationCache;
 import openevolve.mapelites.MAPElites;
 import openevolve.mapelites.MAPElites.Cell;
+import openevolve.mapelites.MAPElites.Stage;
 import openevolve.mapelites.Repository.Island;
 import openevolve.mapelites.Repository.Solution;
 
 /**
  * Listener interface for tracking various events during MAP-Elites algorithm execution.
  * Provides hooks for monitoring, logging, and extending algorithm behavior.
+ *
+ * <p>
+ * In the serial run mode callbacks come from the thread calling {@link MAPElites#run}. In the
+ * concurrent and pipelined modes, callbacks about the archive are serialized by the archive lock
+ * but may come from different threads. {@link #onEvaluationCacheLookup}, {@link #onCascadeStage},
+ * {@link #onStageCompleted} and {@link #onIterationFailed} are invoked without that lock and may
+ * run concurrently with each other and with archive callbacks, as may the first two in any mode
+ * when the children of a batch evolve operator are evaluated; implementations must be
+ * thread-safe.
  */
 public interface MAPElitesListener<T> {
 
@@ -33,6 +45,19 @@ public interface MAPElitesListener<T> {
     default void onAfterIteration(Island island, int iteration, MAPElites<T> mapElites) {
     }
 
+    /**
+     * Called instead of {@link #onAfterIteration} when an iteration ends with an error, e.g. a
+     * failed evolve operator, evaluation or migration. Every started iteration ends with exactly
+     * one of the two, so per-iteration state can be released in both. In concurrent and pipelined
+     * run modes this may run concurrently.
+     * @param island the island that was evolved, null if the error occurred before it was picked
+     * @param iteration iteration number that failed
+     * @param error the cause
+     */
+    default void onIterationFailed(Island island, int iteration, Throwable error,
+            MAPElites<T> mapElites) {
+    }
+
     /**
      * Called when a solution is selected for evolution.
      * @param selectedSolutions solutions chosen for evolution
@@ -88,4 +113,45 @@ public interface MAPElitesListener<T> {
      */
     default void onCellRejected(Solution<T> candidateSolution, Solution<T> existingSolution, Cell cell, int iteration) {
     }
+
+    /**
+     * Called by the pipelined run mode when a stage finished processing a candidate. Unlike the
+     * other callbacks this one is invoked from stage worker threads and may run concurrently.
+     * @param stage the stage that completed
+     * @param iteration iteration the candidate belongs to
+     * @param latency time the stage spent on the candidate
+     * @param evaluationQueueDepth candidates waiting for evaluation
+     * @param insertionQueueDepth candidates waiting for archive insertion
+     */
+    default void onStageCompleted(Stage stage, int iteration, Duration latency,
+            int evaluationQueueDepth, int insertionQueueDepth) {
+    }
+
+    /**
+     * Called after the fitness of a candidate was looked up in the evaluation cache set via
+     * {@link MAPElites#setEvaluationCache}. In concurrent and pipelined run modes, and for the
+     * children of a batch evolve operator, this is invoked from evaluation threads and may run
+     * concurrently.
+     * @param hit whether the cached metrics were reused instead of evaluating the candidate
+     * @param stats cumulative cache counters, including the hit rate
+     * @param iteration iteration the candidate belongs to
+     */
+    default void onEvaluationCacheLookup(boolean hit, EvaluationCache.Stats stats, int iteration) {
+    }
+
+    /**
+     * Called after a cascade stage set via {@link MAPElites#setCascade} evaluated a candidate. In
+     * concurrent and pipelined run modes, and for the children of a batch evolve operator, this is
+     * invoked from evaluation threads and may run concurrently.
+     * @param stage name of the stage
+     * @param passed whether the candidate proceeds to the next stage
+     * @param elapsed time the stage took
+     * @param saved estimated fitness function time skipped by rejecting the candidate, zero when
+     *        it passed
+     * @param totalSaved estimated fitness function time skipped by all rejections so far
+     * @param iteration iteration the candidate belongs to
+     */
+    default void onCascadeStage(String stage, boolean passed, Duration elapsed, Duration saved,
+            Duration totalSaved, int iteration) {
+    }
 }
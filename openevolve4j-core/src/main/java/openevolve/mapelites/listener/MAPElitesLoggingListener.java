@@ -1,10 +1,13 @@
 package openevolve.mapelites.listener;
 
+import java.time.Duration;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import openevolve.mapelites.EvaluationCache;
 import openevolve.mapelites.MAPElites;
 import openevolve.mapelites.MAPElites.Cell;
+import openevolve.mapelites.MAPElites.Stage;
 import openevolve.mapelites.Repository.Island;
 import openevolve.mapelites.Repository.Solution;
 
@@ -79,4 +82,31 @@ public class MAPElitesLoggingListener<T> implements MAPElitesListener<T> {
 		}
 	}
 
+	@Override
+	public void onStageCompleted(Stage stage, int iteration, Duration latency,
+			int evaluationQueueDepth, int insertionQueueDepth) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Stage {} completed at iteration {} in {} ms (evaluation queue: {}, insertion queue: {})",
+					stage, iteration, latency.toMillis(), evaluationQueueDepth, insertionQueueDepth);
+		}
+	}
+
+	@Override
+	public void onEvaluationCacheLookup(boolean hit, EvaluationCache.Stats stats, int iteration) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Evaluation cache {} at iteration {} (hit rate: {}%, entries: {})",
+					hit ? "hit" : "miss", iteration, Math.round(stats.hitRate() * 100), stats.size());
+		}
+	}
+
+	@Override
+	public void onCascadeStage(String stage, boolean passed, Duration elapsed, Duration saved,
+			Duration totalSaved, int iteration) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Cascade stage {} {} candidate at iteration {} in {} ms (saved: {} ms, total saved: {} s)",
+					stage, passed ? "passed" : "rejected", iteration, elapsed.toMillis(),
+					saved.toMillis(), totalSaved.toSeconds());
+		}
+	}
+
 }
@@ -2,121 +2,261 @@ package openevolve.util;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import openevolve.Constants;
 
 public final class BashExecutor {
 
+	private static final String USAGE_FILE_ENV = "OPENEVOLVE_USAGE_FILE";
+	private static final Pattern TIMES_PATTERN = Pattern.compile("(\\d+)m(\\d+)[.,](\\d+)s");
+	private static final Path PROC = Path.of("/proc");
+
 	private BashExecutor() {}
 
 	public static ExecResult run(String command, Duration timeout, Path workingDir,
 			Map<String, String> environment, Charset charset)
 			throws IOException, InterruptedException {
 		Objects.requireNonNull(command, "command");
-		Objects.requireNonNull(timeout, "timeout");
-		Objects.requireNonNull(environment, "environment");
-		Objects.requireNonNull(charset, "charset");
-
-		List<String> fullCmd = buildShellCommand(command);
-
-		ProcessBuilder pb = new ProcessBuilder(fullCmd);
-		if (workingDir != null) {
-			pb.directory(workingDir.toFile());
-		}
-		// Merge/override environment
-		if (!environment.isEmpty()) {
-			pb.environment().putAll(environment);
-		}
-
-		Instant start = Instant.now();
-		Process process = pb.start();
-
-		StringBuilder stdout = new StringBuilder();
-		StringBuilder stderr = new StringBuilder();
-
-		Thread outThread = gobble(process.getInputStream(), stdout, charset);
-		Thread errThread = gobble(process.getErrorStream(), stderr, charset);
-		outThread.start();
-		errThread.start();
-
-		boolean finished = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
-		int exitCode;
-
-		if (!finished) {
-			// Timed out: forcefully kill and mark result
-			process.destroyForcibly();
-			exitCode = -1;
-		} else {
-			exitCode = process.exitValue();
-		}
-
-		// Ensure gobblers finish
-		outThread.join();
-		errThread.join();
-
-		Instant end = Instant.now();
-
-		return new ExecResult(stdout.toString(), stderr.toString(), exitCode,
-				Duration.between(start, end), !finished);
+		return execute(buildShellCommand(command), timeout, workingDir, environment, charset,
+				null, null, null, Limits.NONE);
 	}
 
 	// Executes a script file directly with bash (no -lc), useful for .sh files with shebangs.
 	public static ExecResult runScript(Path scriptPath, List<String> args, Duration timeout,
 			Path workingDir, Map<String, String> environment, Charset charset)
 			throws IOException, InterruptedException {
-		Objects.requireNonNull(scriptPath, "scriptPath");
-		Objects.requireNonNull(timeout, "timeout");
-		Objects.requireNonNull(environment, "environment");
-		Objects.requireNonNull(charset, "charset");
+		return runScript(scriptPath, args, timeout, workingDir, environment, charset, null, null,
+				null, Limits.NONE);
+	}
+
+	/**
+	 * Like {@link #runScript(Path, List, Duration, Path, Map, Charset)}, but stdout is fed into a
+	 * {@link StreamingJsonParser} as it arrives instead of being collected. The first JSON object
+	 * containing one of {@code metricNames} becomes {@link ExecResult#metrics()}. Only the last
+	 * {@link Streaming#tailChars()} characters of stdout and stderr are kept for diagnostics, so
+	 * memory stays bounded however much the script logs. With {@link Streaming#stopOnMetrics()}
+	 * the script is killed as soon as its metrics were found.
+	 */
+	public static ExecResult runScript(Path scriptPath, List<String> args, Duration timeout,
+			Path workingDir, Map<String, String> environment, Charset charset, ObjectMapper mapper,
+			Collection<String> metricNames, Streaming streaming)
+			throws IOException, InterruptedException {
+		Objects.requireNonNull(streaming, "streaming");
+		return runScript(scriptPath, args, timeout, workingDir, environment, charset, mapper,
+				metricNames, streaming, Limits.NONE);
+	}
 
-		String shell = detectShellExecutable();
+	/**
+	 * Runs the script under {@code limits}, streaming its output when {@code streaming} is set.
+	 * On timeout the whole process tree is killed, not only the shell.
+	 *
+	 * @param streaming null to collect stdout and stderr completely
+	 */
+	public static ExecResult runScript(Path scriptPath, List<String> args, Duration timeout,
+			Path workingDir, Map<String, String> environment, Charset charset, ObjectMapper mapper,
+			Collection<String> metricNames, Streaming streaming, Limits limits)
+			throws IOException, InterruptedException {
+		Objects.requireNonNull(scriptPath, "scriptPath");
+		if (streaming != null) {
+			Objects.requireNonNull(mapper, "mapper");
+			Objects.requireNonNull(metricNames, "metricNames");
+		}
 		List<String> cmd = new ArrayList<>();
-		cmd.add(shell);
+		cmd.add(detectShellExecutable());
 		cmd.add(scriptPath.toAbsolutePath().toString());
 		if (args != null)
 			cmd.addAll(args);
+		return execute(cmd, timeout, workingDir, environment, charset, mapper, metricNames,
+				streaming, limits);
+	}
+
+	private static ExecResult execute(List<String> command, Duration timeout, Path workingDir,
+			Map<String, String> environment, Charset charset, ObjectMapper mapper,
+			Collection<String> metricNames, Streaming streaming, Limits limits)
+			throws IOException, InterruptedException {
+		Objects.requireNonNull(timeout, "timeout");
+		Objects.requireNonNull(environment, "environment");
+		Objects.requireNonNull(charset, "charset");
+		Objects.requireNonNull(limits, "limits");
+
+		// the wrapper applies the limits and reports the CPU time of the tree, it needs bash
+		Path usageFile = isWindows() ? null : Files.createTempFile("openevolve-usage", ".txt");
+		List<String> cmd = usageFile != null ? wrap(command, limits) : command;
 
 		ProcessBuilder pb = new ProcessBuilder(cmd);
 		if (workingDir != null) {
 			pb.directory(workingDir.toFile());
 		}
+		// Merge/override environment
 		if (!environment.isEmpty()) {
 			pb.environment().putAll(environment);
 		}
+		if (usageFile != null) {
+			pb.environment().put(USAGE_FILE_ENV, usageFile.toString());
+		}
 
-		Instant start = Instant.now();
-		Process process = pb.start();
+		try {
+			Instant start = Instant.now();
+			Process process = pb.start();
+			var memory = new MemorySampler(process);
 
-		StringBuilder stdout = new StringBuilder();
-		StringBuilder stderr = new StringBuilder();
+			Thread outThread;
+			Thread errThread;
+			Supplier<String> stdout;
+			Supplier<String> stderr;
+			var metrics = new AtomicReference<Map<String, Object>>();
+			var stoppedEarly = new AtomicBoolean();
+			StreamingJsonParser parser = null;
+			if (streaming == null) {
+				var out = new StringBuilder();
+				var err = new StringBuilder();
+				outThread = gobble(process.getInputStream(), out, charset);
+				errThread = gobble(process.getErrorStream(), err, charset);
+				stdout = out::toString;
+				stderr = err::toString;
+			} else {
+				var out = new Tail(streaming.tailChars());
+				var err = new Tail(streaming.tailChars());
+				var streamParser = new StreamingJsonParser(mapper, false);
+				streamParser.consume(node -> {
+					if (node.isObject() && metricNames.stream().anyMatch(node::has)) {
+						metrics.set(mapper.convertValue(node, Constants.MAP_TYPE_REF));
+						streamParser.shouldStop();
+						if (streaming.stopOnMetrics()) {
+							stoppedEarly.set(true);
+							// children inherit stdout, the stream only ends once they are gone too
+							killTree(process);
+						}
+					}
+				});
+				outThread = gobble(process.getInputStream(), charset, (chunk, length) -> {
+					out.append(chunk, length);
+					if (!streamParser.isStopped()) {
+						streamParser.feedText(new String(chunk, 0, length));
+					}
+				});
+				errThread = gobble(process.getErrorStream(), charset, err::append);
+				stdout = out::toString;
+				stderr = err::toString;
+				parser = streamParser;
+			}
+			outThread.start();
+			errThread.start();
 
-		Thread outThread = gobble(process.getInputStream(), stdout, charset);
-		Thread errThread = gobble(process.getErrorStream(), stderr, charset);
-		outThread.start();
-		errThread.start();
+			boolean finished = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+			int exitCode;
 
-		boolean finished = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
-		int exitCode;
+			if (!finished) {
+				// Timed out: kill the whole tree, grandchildren would keep running otherwise
+				killTree(process);
+				exitCode = -1;
+			} else {
+				exitCode = process.exitValue();
+			}
 
-		if (!finished) {
-			process.destroyForcibly();
-			exitCode = -1;
-		} else {
-			exitCode = process.exitValue();
+			// Ensure gobblers finish
+			outThread.join();
+			errThread.join();
+			if (parser != null) {
+				parser.close();
+			}
+			long peakRss = memory.stop();
+
+			Instant end = Instant.now();
+
+			return new ExecResult(stdout.get(), stderr.get(), exitCode,
+					Duration.between(start, end), !finished, metrics.get(), stoppedEarly.get(),
+					readCpuTime(usageFile), peakRss);
+		} finally {
+			if (usageFile != null) {
+				Files.deleteIfExists(usageFile);
+			}
 		}
+	}
 
-		outThread.join();
-		errThread.join();
+	/**
+	 * Wraps {@code command} in a shell that applies the limits with {@code ulimit}, runs the
+	 * command as its child (under {@code taskset} when pinned) and then writes the CPU time of
+	 * its waited-for descendants to the usage file.
+	 */
+	private static List<String> wrap(List<String> command, Limits limits) {
+		var script = new StringBuilder();
+		if (limits.cpuTime() != null) {
+			long seconds = Math.max(1, (limits.cpuTime().toMillis() + 999) / 1000);
+			script.append("ulimit -t ").append(seconds).append(" || exit 125; ");
+		}
+		if (limits.addressSpaceBytes() != null) {
+			long kilobytes = Math.max(1, limits.addressSpaceBytes() / 1024);
+			script.append("ulimit -v ").append(kilobytes).append(" || exit 125; ");
+		}
+		if (limits.openFiles() != null) {
+			script.append("ulimit -n ").append(limits.openFiles()).append(" || exit 125; ");
+		}
+		if (limits.cpus() != null) {
+			script.append("taskset -c ").append(limits.cpus().stream().map(String::valueOf)
+					.collect(Collectors.joining(","))).append(' ');
+		}
+		script.append("\"$0\" \"$@\"; status=$?; times > \"$").append(USAGE_FILE_ENV)
+				.append("\"; exit $status");
+		var wrapped = new ArrayList<String>(command.size() + 3);
+		wrapped.add(detectShellExecutable());
+		wrapped.add("-c");
+		wrapped.add(script.toString());
+		wrapped.addAll(command);
+		return wrapped;
+	}
 
-		Instant end = Instant.now();
+	/**
+	 * Kills the descendants first, so the wrapper can still reap them and report their CPU time,
+	 * then the process itself if it did not exit on its own.
+	 */
+	private static void killTree(Process process) {
+		process.descendants().forEach(ProcessHandle::destroyForcibly);
+		try {
+			if (!process.waitFor(1, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+		} catch (InterruptedException e) {
+			process.destroyForcibly();
+			Thread.currentThread().interrupt();
+		}
+	}
 
-		return new ExecResult(stdout.toString(), stderr.toString(), exitCode,
-				Duration.between(start, end), !finished);
+	/**
+	 * @return user plus system time of the children line written by {@code times}, null when
+	 *         the wrapper did not get to write it
+	 */
+	private static Duration readCpuTime(Path usageFile) {
+		if (usageFile == null) {
+			return null;
+		}
+		try {
+			var lines = Files.readAllLines(usageFile);
+			if (lines.size() < 2) {
+				return null;
+			}
+			var matcher = TIMES_PATTERN.matcher(lines.get(1));
+			var total = Duration.ZERO;
+			while (matcher.find()) {
+				total = total.plusMinutes(Long.parseLong(matcher.group(1)))
+						.plusSeconds(Long.parseLong(matcher.group(2)))
+						.plusMillis(Long.parseLong((matcher.group(3) + "00").substring(0, 3)));
+			}
+			return total;
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
 	}
 
 	private static List<String> buildShellCommand(String command) {
@@ -124,11 +264,15 @@ public final class BashExecutor {
 	}
 
 	private static String detectShellExecutable() {
-		return System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("win") ? "bash" : "/bin/bash";
+		return isWindows() ? "bash" : "/bin/bash";
+	}
+
+	private static boolean isWindows() {
+		return System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("win");
 	}
 
 	private static Thread gobble(InputStream stream, StringBuilder sink, Charset charset) {
-		return new Thread(() -> {
+		return Thread.ofVirtual().name("stream-gobbler-" + UUID.randomUUID()).unstarted(() -> {
 			try (BufferedReader br = new BufferedReader(new InputStreamReader(stream, charset))) {
 				String line;
 				while ((line = br.readLine()) != null) {
@@ -137,17 +281,196 @@ public final class BashExecutor {
 			} catch (IOException ignored) {
 				// Swallow to avoid masking the main process result; you may log if desired.
 			}
-		}, "stream-gobbler-" + UUID.randomUUID());
+		});
+	}
+
+	private static Thread gobble(InputStream stream, Charset charset, ChunkConsumer sink) {
+		return Thread.ofVirtual().name("stream-gobbler-" + UUID.randomUUID()).unstarted(() -> {
+			try (var reader = new InputStreamReader(stream, charset)) {
+				var chunk = new char[8192];
+				int read;
+				while ((read = reader.read(chunk)) >= 0) {
+					sink.accept(chunk, read);
+				}
+			} catch (IOException ignored) {
+				// the stream closes when the process is killed
+			}
+		});
+	}
+
+	@FunctionalInterface
+	private interface ChunkConsumer {
+		void accept(char[] chunk, int length);
+	}
+
+	/**
+	 * Ring buffer keeping the last {@code capacity} characters appended to it.
+	 */
+	private static final class Tail {
+		private final char[] buffer;
+		private int end;
+		private boolean wrapped;
+
+		Tail(int capacity) {
+			this.buffer = new char[capacity];
+		}
+
+		synchronized void append(char[] chunk, int length) {
+			int offset = Math.max(0, length - buffer.length);
+			if (offset > 0) {
+				wrapped = true;
+			}
+			for (int i = offset; i < length;) {
+				int n = Math.min(length - i, buffer.length - end);
+				System.arraycopy(chunk, i, buffer, end, n);
+				i += n;
+				end += n;
+				if (end == buffer.length) {
+					end = 0;
+					wrapped = true;
+				}
+			}
+		}
+
+		@Override
+		public synchronized String toString() {
+			if (!wrapped) {
+				return new String(buffer, 0, end);
+			}
+			return new String(buffer, end, buffer.length - end) + new String(buffer, 0, end);
+		}
 	}
 
+	/**
+	 * Samples the resident set size of a process and its descendants from {@code /proc} on a
+	 * virtual thread, keeping the highest total.
+	 */
+	private static final class MemorySampler {
+		private final Thread thread;
+		private volatile boolean stopped;
+		private volatile long peak;
+
+		MemorySampler(Process process) {
+			if (!Files.isDirectory(PROC.resolve("self"))) {
+				thread = null;
+				return;
+			}
+			thread = Thread.ofVirtual().name("rss-sampler-" + process.pid()).start(() -> {
+				while (!stopped && process.isAlive()) {
+					long total = rss(process.pid());
+					for (var it = process.descendants().iterator(); it.hasNext();) {
+						total += rss(it.next().pid());
+					}
+					peak = Math.max(peak, total);
+					try {
+						Thread.sleep(ExecResult.RSS_SAMPLE_MILLIS);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			});
+		}
+
+		long stop() throws InterruptedException {
+			if (thread == null) {
+				return -1;
+			}
+			stopped = true;
+			thread.interrupt();
+			thread.join();
+			return peak;
+		}
+
+		private static long rss(long pid) {
+			try {
+				for (var line : Files.readAllLines(PROC.resolve(Long.toString(pid)).resolve("status"))) {
+					if (line.startsWith("VmRSS:")) {
+						return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				// the process exited between listing and reading
+			}
+			return 0;
+		}
+	}
+
+	/**
+	 * Per-evaluation resource limits, applied with {@code ulimit} in a wrapping shell. Null
+	 * components are not limited. Exceeding the CPU time kills the script with SIGXCPU, exceeding
+	 * the address space makes its allocations fail.
+	 *
+	 * @param cpus CPUs the script and its children are pinned to with {@code taskset}
+	 */
+	public record Limits(Duration cpuTime, Long addressSpaceBytes, Integer openFiles,
+			List<Integer> cpus) {
+		public static final Limits NONE = new Limits(null, null, null);
+
+		public Limits {
+			if ((cpuTime != null && (cpuTime.isNegative() || cpuTime.isZero()))
+					|| (addressSpaceBytes != null && addressSpaceBytes <= 0)
+					|| (openFiles != null && openFiles <= 0)) {
+				throw new IllegalArgumentException("Limits must be positive");
+			}
+			if (cpus != null && cpus.isEmpty()) {
+				throw new IllegalArgumentException("CPUs must not be empty");
+			}
+			cpus = cpus == null ? null : List.copyOf(cpus);
+		}
+
+		public Limits(Duration cpuTime, Long addressSpaceBytes, Integer openFiles) {
+			this(cpuTime, addressSpaceBytes, openFiles, null);
+		}
+
+		public Limits withCpus(List<Integer> cpus) {
+			return new Limits(cpuTime, addressSpaceBytes, openFiles, cpus);
+		}
+	}
+
+	/**
+	 * @param tailChars characters of stdout and stderr kept for diagnostics
+	 * @param stopOnMetrics kill the script as soon as its metrics were found on stdout
+	 */
+	public record Streaming(int tailChars, boolean stopOnMetrics) {
+		public Streaming {
+			if (tailChars <= 0) {
+				throw new IllegalArgumentException("Tail size must be positive");
+			}
+		}
+	}
+
+	/**
+	 * @param metrics metrics found while streaming stdout, null when stdout was buffered or held
+	 *        none
+	 * @param stoppedEarly the script was killed because its metrics were found
+	 * @param cpuTime user and system time of the script and the descendants it waited for, also
+	 *        reported for a killed script since its descendants are killed first; null on Windows
+	 *        or when the wrapper itself did not get to write the usage file
+	 * @param peakRssBytes highest resident set size of the whole process tree seen while sampling
+	 *        every {@value #RSS_SAMPLE_MILLIS} ms, -1 when {@code /proc} is not available
+	 */
 	public record ExecResult(
 		String stdout,
 		String stderr,
 		int exitCode,
 		Duration duration,
-		boolean timedOut
+		boolean timedOut,
+		Map<String, Object> metrics,
+		boolean stoppedEarly,
+		Duration cpuTime,
+		long peakRssBytes
 	) {
+		public static final int RSS_SAMPLE_MILLIS = 50;
+
+		public ExecResult(String stdout, String stderr, int exitCode, Duration duration,
+				boolean timedOut) {
+			this(stdout, stderr, exitCode, duration, timedOut, null, false, null, -1);
+		}
+
 		public Map<String, Object> extractMetrics(ObjectMapper mapper, Collection<String> metricNames) {
+			if (stoppedEarly() && metrics() != null) {
+				return metrics();
+			}
 			if (timedOut()) {
 				var errorMessage = "Bash script timed out";
 				return Map.of(Constants.COMBINED_SCORE, 0.0, "error", errorMessage);
@@ -156,6 +479,9 @@ public final class BashExecutor {
 				var errorMessage = stderr() != null ? stderr() : "Bash script failed with exit code " + exitCode();
 				return Map.of(Constants.COMBINED_SCORE, 0.0, "error", errorMessage);
 			}
+			if (metrics() != null) {
+				return metrics();
+			}
 			if (stdout() == null || stdout().isEmpty()) {
 				var errorMessage = "Bash script did not produce any output";
 				return Map.of(Constants.COMBINED_SCORE, 0.0, "error", errorMessage);
@@ -11,6 +11,12 @@ import java.util.regex.Pattern;
  */
 public class CodeParsingUtils {
 
+    /**
+     * Heading that starts each proposal of a response holding several, e.g. {@code ### Proposal 2}
+     */
+    public static final Pattern PROPOSAL_PATTERN =
+        Pattern.compile("^#+\\s*Proposal\\s+\\d+.*$", Pattern.MULTILINE);
+
     /**
      * Represents an evolve block with start line, end line, and content
      */
@@ -148,6 +154,201 @@ public class CodeParsingUtils {
         return diffBlocks;
     }
 
+    /**
+     * Parses an LLM response while it arrives and tells when to abandon it: once it is longer
+     * than the budget, or when a SEARCH block cannot match the code it will be applied to (the
+     * parent with the preceding blocks applied, as in {@link #applyDiff}). SEARCH lines are
+     * checked one by one, so a block is rejected at the first line that matches nowhere.
+     */
+    public static class DiffStream {
+        private final String[] parent;
+        private final boolean proposals;
+        private final List<String> code;
+        private final int maxChars;
+        private final StringBuilder response = new StringBuilder();
+        private int parsed;
+        private List<String> search;
+        private List<String> replace;
+        private List<Integer> matches;
+        private int checked;
+        private int blocks;
+        private String reason;
+
+        /**
+         * @param parent code the diffs apply to; null to only enforce the budget, e.g. for full
+         *        rewrites
+         * @param maxChars response length to abandon at; 0 for no limit
+         */
+        public DiffStream(String parent, int maxChars) {
+            this(parent, maxChars, false);
+        }
+
+        /**
+         * @param proposals whether the response holds several proposals, each applying to the
+         *        parent on its own, see {@link #PROPOSAL_PATTERN}
+         */
+        public DiffStream(String parent, int maxChars, boolean proposals) {
+            this.parent = parent != null ? parent.split("\n") : null;
+            this.proposals = proposals;
+            this.code = parent != null ? new ArrayList<>(List.of(this.parent)) : null;
+            this.maxChars = maxChars;
+        }
+
+        /**
+         * @param chunk next part of the response
+         * @return false once the response should be abandoned, see {@link #getReason()}
+         */
+        public boolean append(String chunk) {
+            if (reason != null) {
+                return false;
+            }
+            response.append(chunk);
+            if (maxChars > 0 && response.length() > maxChars) {
+                reason = "Response exceeds " + maxChars + " characters";
+                return false;
+            }
+            if (code == null) {
+                return true;
+            }
+            for (int end = response.indexOf("\n", parsed); end >= 0 && reason == null;
+                    end = response.indexOf("\n", parsed)) {
+                line(response.substring(parsed, end));
+                parsed = end + 1;
+            }
+            return reason == null;
+        }
+
+        private void line(String line) {
+            if (search == null) {
+                if (proposals && PROPOSAL_PATTERN.matcher(line).matches()) {
+                    code.clear();
+                    code.addAll(List.of(parent));
+                } else if (line.endsWith("<<<<<<< SEARCH")) {
+                    search = new ArrayList<>();
+                    matches = new ArrayList<>();
+                    for (int i = 0; i < code.size(); i++) {
+                        matches.add(i);
+                    }
+                    checked = 0;
+                }
+            } else if (replace == null) {
+                if (line.endsWith("=======")) {
+                    addSearch(line.substring(0, line.length() - "=======".length()));
+                    replace = new ArrayList<>();
+                    if (matches.isEmpty()) {
+                        reason = "SEARCH block " + (blocks + 1) + " does not match the code";
+                    }
+                } else {
+                    search.add(line);
+                    if (!line.isBlank()) {
+                        // blank lines may be trailing ones, which are stripped, so check later
+                        check();
+                    }
+                }
+            } else if (line.endsWith(">>>>>>> REPLACE")) {
+                replace.add(line.substring(0, line.length() - ">>>>>>> REPLACE".length()));
+                apply();
+                search = null;
+                replace = null;
+                blocks++;
+            } else {
+                replace.add(line);
+            }
+        }
+
+        private void addSearch(String line) {
+            if (!line.isEmpty()) {
+                search.add(line);
+                check();
+            }
+            // exact match of the block as applyDiff sees it
+            var lines = String.join("\n", search).replaceAll("\\s+$", "").split("\n");
+            matches.removeIf(start -> !matches(start, lines, 0));
+        }
+
+        private void check() {
+            var lines = search.toArray(String[]::new);
+            matches.removeIf(start -> !matchesStripped(start, lines, checked));
+            checked = lines.length;
+            if (matches.isEmpty()) {
+                reason = "SEARCH block " + (blocks + 1) + " does not match the code";
+            }
+        }
+
+        private boolean matches(int start, String[] lines, int from) {
+            if (start + lines.length > code.size()) {
+                return false;
+            }
+            for (int i = from; i < lines.length; i++) {
+                if (!code.get(start + i).equals(lines[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean matchesStripped(int start, String[] lines, int from) {
+            if (start + lines.length > code.size()) {
+                return false;
+            }
+            for (int i = from; i < lines.length; i++) {
+                if (!code.get(start + i).stripTrailing().equals(lines[i].stripTrailing())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void apply() {
+            var searchLines = String.join("\n", search).replaceAll("\\s+$", "").split("\n");
+            var replaceLines = String.join("\n", replace).replaceAll("\\s+$", "").split("\n");
+            int start = matches.getFirst();
+            for (int i = 0; i < searchLines.length; i++) {
+                code.remove(start);
+            }
+            code.addAll(start, List.of(replaceLines));
+        }
+
+        /**
+         * @return the response so far
+         */
+        public String getContent() { return response.toString(); }
+
+        /**
+         * @return why the response should be abandoned, null while it looks fine
+         */
+        public String getReason() { return reason; }
+
+        /**
+         * @return number of complete SEARCH/REPLACE blocks so far
+         */
+        public int getBlocks() { return blocks; }
+    }
+
+    /**
+     * Split a response holding several proposals into one response per proposal
+     *
+     * @param llmResponse Response from the LLM
+     * @return Text after each {@link #PROPOSAL_PATTERN} heading, or the whole response if there
+     *         is none
+     */
+    public static List<String> splitProposals(String llmResponse) {
+        Matcher matcher = PROPOSAL_PATTERN.matcher(llmResponse);
+        List<String> proposals = new ArrayList<>();
+        int start = -1;
+        while (matcher.find()) {
+            if (start >= 0) {
+                proposals.add(llmResponse.substring(start, matcher.start()));
+            }
+            start = matcher.end();
+        }
+        if (start < 0) {
+            return List.of(llmResponse);
+        }
+        proposals.add(llmResponse.substring(start));
+        return proposals;
+    }
+
     /**
      * Extract a full rewrite from an LLM response
      *
@@ -0,0 +1,130 @@
+package openevolve.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Partitions CPUs into disjoint slots of {@code coresPerSlot} cores and runs at most one
+ * evaluation per slot, so concurrent benchmark runners do not compete for the same cores and
+ * their timings stay comparable. Further evaluations wait for a slot in arrival order.
+ *
+ * <p>
+ * The slot's CPUs are handed to the task, which pins its process to them, e.g. with
+ * {@link BashExecutor.Limits#withCpus}. When {@code taskset} is not installed the tasks get
+ * null and only the concurrency limit applies.
+ */
+public final class CpuScheduler {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CpuScheduler.class);
+
+	private final BlockingQueue<List<Integer>> slots;
+	private final int size;
+	private final boolean pinning;
+
+	@FunctionalInterface
+	public interface Task<T> {
+		/**
+		 * @param cpus CPUs reserved for the task, null when pinning is not supported
+		 */
+		T run(List<Integer> cpus) throws IOException, InterruptedException;
+	}
+
+	/**
+	 * @param cpus CPUs to partition, leftover CPUs that do not fill a slot stay unused
+	 */
+	public CpuScheduler(List<Integer> cpus, int coresPerSlot) {
+		this(cpus, coresPerSlot, tasksetAvailable());
+	}
+
+	CpuScheduler(List<Integer> cpus, int coresPerSlot, boolean pinning) {
+		Objects.requireNonNull(cpus, "cpus");
+		if (coresPerSlot <= 0) {
+			throw new IllegalArgumentException("Cores per slot must be positive");
+		}
+		if (cpus.size() < coresPerSlot) {
+			throw new IllegalArgumentException(
+					cpus.size() + " CPUs do not fill a slot of " + coresPerSlot + " cores");
+		}
+		this.size = cpus.size() / coresPerSlot;
+		this.slots = new ArrayBlockingQueue<>(size, true);
+		for (int i = 0; i < size; i++) {
+			slots.add(List.copyOf(cpus.subList(i * coresPerSlot, (i + 1) * coresPerSlot)));
+		}
+		this.pinning = pinning;
+		if (!pinning) {
+			LOG.warn("taskset not found, evaluations are limited to {} at a time but not pinned",
+					size);
+		}
+	}
+
+	/**
+	 * Runs {@code task} once a slot is free, holding the slot until it returns.
+	 */
+	public <T> T run(Task<T> task) throws IOException, InterruptedException {
+		var slot = slots.take();
+		try {
+			return task.run(pinning ? slot : null);
+		} finally {
+			slots.add(slot);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return CPUs this process may run on, from {@code /proc/self/status} on Linux, otherwise
+	 *         {@code 0 .. availableProcessors - 1}
+	 */
+	public static List<Integer> availableCpus() {
+		try {
+			for (var line : Files.readAllLines(Path.of("/proc/self/status"))) {
+				if (line.startsWith("Cpus_allowed_list:")) {
+					return parseCpuList(line.substring(line.indexOf(':') + 1));
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			// not Linux, fall through
+		}
+		return IntStream.range(0, Runtime.getRuntime().availableProcessors()).boxed().toList();
+	}
+
+	/**
+	 * @param list CPU list in the kernel / taskset format, e.g. {@code 0-3,6,8-9}
+	 */
+	public static List<Integer> parseCpuList(String list) {
+		var cpus = new ArrayList<Integer>();
+		for (var part : list.trim().split(",")) {
+			var range = part.trim().split("-");
+			int from = Integer.parseInt(range[0]);
+			int to = range.length > 1 ? Integer.parseInt(range[1]) : from;
+			for (int cpu = from; cpu <= to; cpu++) {
+				cpus.add(cpu);
+			}
+		}
+		return List.copyOf(cpus);
+	}
+
+	private static boolean tasksetAvailable() {
+		var path = System.getenv("PATH");
+		if (path == null) {
+			return false;
+		}
+		for (var dir : path.split(java.io.File.pathSeparator)) {
+			if (!dir.isEmpty() && Files.isExecutable(Path.of(dir, "taskset"))) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
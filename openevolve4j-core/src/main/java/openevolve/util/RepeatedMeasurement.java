@@ -0,0 +1,268 @@
+package openevolve.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs a noisy measurement several times and aggregates its numeric metrics, so a single lucky
+ * or unlucky run does not decide whether a candidate replaces a cell incumbent.
+ *
+ * <p>
+ * After {@code minRuns} runs more are added, up to {@code maxRuns}, while the 95% confidence
+ * interval of any target metric is wider than {@code tolerance} times its mean, or while any
+ * target metric is within {@code margin} (relative) of the incumbent's. A failed run (one
+ * reporting an {@code error}) is returned as is. The aggregated result carries
+ * {@value #MEASUREMENT}: the number of runs and the sample variance of every aggregated metric.
+ *
+ * <p>
+ * Up to {@code parallelism} runs execute at once, each in one of as many slots. Runs in the same
+ * slot never overlap, so a measurement writing to its working directory must give each slot its
+ * own directory; otherwise concurrent runs overwrite each other's output and the variance
+ * measures their interference.
+ */
+public final class RepeatedMeasurement {
+
+	public static final String MEASUREMENT = "measurement";
+
+	// two-sided 95% quantiles of Student's t for 1..30 degrees of freedom
+	private static final double[] T_95 = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306,
+			2.262, 2.228, 2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+			2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
+	public enum Aggregate {
+		MEDIAN, TRIMMED_MEAN
+	}
+
+	@FunctionalInterface
+	public interface Run {
+
+		/**
+		 * @param slot {@code 0} to {@code parallelism - 1}, not shared with any concurrent run
+		 */
+		Map<String, Object> measure(int slot) throws IOException, InterruptedException;
+	}
+
+	private final int minRuns;
+	private final int maxRuns;
+	private final Aggregate aggregate;
+	private final double trim;
+	private final double tolerance;
+	private final double margin;
+	private final int parallelism;
+
+	/**
+	 * @param trim fraction of runs dropped at each end by {@link Aggregate#TRIMMED_MEAN}
+	 * @param parallelism runs started at once, e.g. the number of CPU slots
+	 */
+	public RepeatedMeasurement(int minRuns, int maxRuns, Aggregate aggregate, double trim,
+			double tolerance, double margin, int parallelism) {
+		Objects.requireNonNull(aggregate, "aggregate");
+		if (minRuns <= 0 || maxRuns < minRuns) {
+			throw new IllegalArgumentException("Runs must be positive and at most max runs");
+		}
+		if (trim < 0 || trim >= 0.5) {
+			throw new IllegalArgumentException("Trim must be in [0, 0.5)");
+		}
+		if (tolerance < 0 || margin < 0 || parallelism <= 0) {
+			throw new IllegalArgumentException(
+					"Tolerance and margin must not be negative, parallelism must be positive");
+		}
+		this.minRuns = minRuns;
+		this.maxRuns = maxRuns;
+		this.aggregate = aggregate;
+		this.trim = trim;
+		this.tolerance = tolerance;
+		this.margin = margin;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * @return the settings that shape a measurement, i.e. all but the parallelism, e.g. to key
+	 *         stored results
+	 */
+	public String settings() {
+		return "runs=" + minRuns + ", maxRuns=" + maxRuns + ", aggregate=" + aggregate + ", trim="
+				+ trim + ", tolerance=" + tolerance + ", margin=" + margin;
+	}
+
+	/**
+	 * @param targets metrics whose spread and distance to the incumbent decide about more runs
+	 * @param incumbent maps the aggregated metrics so far to those of the solution they compete
+	 *        with, returning null when there is none; null to ignore incumbents
+	 */
+	public Map<String, Object> measure(Run run, Collection<String> targets,
+			UnaryOperator<Map<String, Object>> incumbent)
+			throws IOException, InterruptedException {
+		var runs = new ArrayList<Map<String, Object>>();
+		int batch = minRuns;
+		while (true) {
+			for (var result : batch(run, batch)) {
+				if (result.containsKey("error")) {
+					return result;
+				}
+				runs.add(result);
+			}
+			var aggregated = aggregate(runs);
+			if (runs.size() >= maxRuns) {
+				return aggregated;
+			}
+			var reference = incumbent != null ? incumbent.apply(aggregated) : null;
+			if (confident(runs, targets) && !close(aggregated, reference, targets)) {
+				return aggregated;
+			}
+			batch = Math.min(parallelism, maxRuns - runs.size());
+		}
+	}
+
+	private List<Map<String, Object>> batch(Run run, int size)
+			throws IOException, InterruptedException {
+		int slots = Math.min(size, parallelism);
+		if (slots == 1) {
+			var results = new ArrayList<Map<String, Object>>(size);
+			for (int i = 0; i < size; i++) {
+				var result = run.measure(0);
+				results.add(result);
+				if (result.containsKey("error")) {
+					// ends the measurement anyway
+					break;
+				}
+			}
+			return results;
+		}
+		var free = new ArrayBlockingQueue<Integer>(slots);
+		for (int slot = 0; slot < slots; slot++) {
+			free.add(slot);
+		}
+		var tasks = new ArrayList<Callable<Map<String, Object>>>(size);
+		for (int i = 0; i < size; i++) {
+			tasks.add(() -> {
+				int slot = free.take();
+				try {
+					return run.measure(slot);
+				} finally {
+					free.add(slot);
+				}
+			});
+		}
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			var results = new ArrayList<Map<String, Object>>(size);
+			for (var future : executor.invokeAll(tasks)) {
+				results.add(future.get());
+			}
+			return results;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException io) {
+				throw io;
+			}
+			if (e.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Aggregates the numeric metrics every run reported; other values are taken from the last run.
+	 */
+	Map<String, Object> aggregate(List<Map<String, Object>> runs) {
+		var aggregated = new LinkedHashMap<>(runs.getLast());
+		var variance = new LinkedHashMap<String, Object>();
+		for (var name : runs.getLast().keySet()) {
+			var values = values(runs, name);
+			if (values == null) {
+				continue;
+			}
+			aggregated.put(name, aggregate == Aggregate.MEDIAN ? median(values)
+					: trimmedMean(values, trim));
+			variance.put(name, variance(values));
+		}
+		var measurement = new HashMap<String, Object>();
+		measurement.put("runs", runs.size());
+		measurement.put("variance", variance);
+		aggregated.put(MEASUREMENT, measurement);
+		return aggregated;
+	}
+
+	private boolean confident(List<Map<String, Object>> runs, Collection<String> targets) {
+		if (runs.size() < 2) {
+			return false;
+		}
+		for (var name : targets) {
+			var values = values(runs, name);
+			if (values == null) {
+				continue;
+			}
+			double mean = Arrays.stream(values).average().orElse(0);
+			double halfWidth = T_95[Math.min(values.length - 1, T_95.length) - 1]
+					* Math.sqrt(variance(values) / values.length);
+			if (halfWidth > tolerance * Math.abs(mean)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean close(Map<String, Object> metrics, Map<String, Object> reference,
+			Collection<String> targets) {
+		if (reference == null) {
+			return false;
+		}
+		for (var name : targets) {
+			if (metrics.get(name) instanceof Number value
+					&& reference.get(name) instanceof Number other && Math.abs(
+							value.doubleValue() - other.doubleValue()) <= margin
+									* Math.abs(other.doubleValue())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the values of {@code name} across all runs, null unless every run reported a number
+	 */
+	private static double[] values(List<Map<String, Object>> runs, String name) {
+		var values = new double[runs.size()];
+		for (int i = 0; i < values.length; i++) {
+			if (!(runs.get(i).get(name) instanceof Number value)) {
+				return null;
+			}
+			values[i] = value.doubleValue();
+		}
+		return values;
+	}
+
+	static double median(double[] values) {
+		var sorted = values.clone();
+		Arrays.sort(sorted);
+		int middle = sorted.length / 2;
+		return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+	}
+
+	static double trimmedMean(double[] values, double trim) {
+		var sorted = values.clone();
+		Arrays.sort(sorted);
+		int drop = (int) Math.floor(sorted.length * trim);
+		return Arrays.stream(sorted, drop, sorted.length - drop).average().orElse(median(values));
+	}
+
+	static double variance(double[] values) {
+		if (values.length < 2) {
+			return 0;
+		}
+		double mean = Arrays.stream(values).average().orElse(0);
+		return Arrays.stream(values).map(v -> (v - mean) * (v - mean)).sum() / (values.length - 1);
+	}
+}
@@ -0,0 +1,418 @@
+package openevolve.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only key/value store on local disk for evaluation results that outlive a single run.
+ * Any number of JVMs on one host may open the same directory: lookups take no file lock, writes
+ * and compaction are serialized through a {@link java.nio.channels.FileLock}.
+ *
+ * <p>
+ * The directory holds three files. {@code data-<generation>.log} is a sequence of records
+ * {@code [sha256(key) | length | value | crc32]} that is only ever appended to.
+ * {@code index} is a memory-mapped open-addressing table of 16-byte slots
+ * {@code [key tag | record offset]}, whose header names the generation of the data file it points
+ * into. {@code lock} is used for the writer lock.
+ *
+ * <p>
+ * A record is written before its index slot, and lookups verify the full key digest and checksum
+ * of the record a slot points to. A reader that races a writer therefore sees either the old or
+ * the new state, never a wrong value. When the data file grows past {@code maxBytes}, the newest
+ * live records up to half of that are copied into a new generation. A new index is then renamed
+ * over the old one. Readers notice the replaced index by its file key and remap it.
+ */
+public final class ResultStore implements Closeable {
+
+	private static final int INDEX_MAGIC = 0x52534958; // RSIX
+	private static final long DATA_MAGIC = 0x5253544f52453031L; // RSTORE01
+	private static final int HEADER_BYTES = 64;
+	private static final int SLOT_BYTES = 16;
+	private static final int DIGEST_BYTES = 32;
+	// digest, length, crc
+	private static final int RECORD_OVERHEAD = DIGEST_BYTES + 4 + 4;
+	private static final int MIN_CAPACITY = 1024;
+
+	private final Path directory;
+	private final Path indexPath;
+	private final long maxBytes;
+	// file locks are held per JVM, so stores of one JVM on the same directory share a lock too
+	private static final Map<Path, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+	private final FileChannel lockChannel;
+	// guards the mapping below and keeps this JVM's threads off the file lock at the same time
+	private final ReentrantLock lock;
+	private Object indexKey;
+	private MappedByteBuffer index;
+	private int capacity;
+	private long generation;
+	private FileChannel data;
+
+	public ResultStore(Path directory, long maxBytes) throws IOException {
+		Objects.requireNonNull(directory, "Directory must not be null");
+		if (maxBytes < 1024) {
+			throw new IllegalArgumentException("Max bytes must be at least 1024");
+		}
+		this.directory = directory;
+		this.indexPath = directory.resolve("index");
+		this.maxBytes = maxBytes;
+		Files.createDirectories(directory);
+		this.lock = LOCKS.computeIfAbsent(directory.toRealPath(), _ -> new ReentrantLock());
+		this.lockChannel = FileChannel.open(directory.resolve("lock"), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE);
+		lock.lock();
+		try (var _ = lockChannel.lock()) {
+			if (!Files.exists(indexPath)) {
+				writeGeneration(0, List.of(), null, MIN_CAPACITY);
+			}
+			refresh();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return value stored for {@code key}, or null if absent
+	 */
+	public byte[] get(String key) throws IOException {
+		var digest = digest(key);
+		lock.lock();
+		try {
+			refresh();
+			long offset = find(digest);
+			return offset < 0 ? null : readValue(data, offset, digest);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stores {@code value} under {@code key}, replacing a previous value. Compacts the data file
+	 * first if the record would take it past the size cap.
+	 */
+	public void put(String key, byte[] value) throws IOException {
+		var digest = digest(key);
+		long recordBytes = RECORD_OVERHEAD + (long) value.length;
+		if (Long.BYTES + recordBytes > maxBytes / 2) {
+			throw new IllegalArgumentException("Value of " + value.length
+					+ " bytes does not fit a store capped at " + maxBytes + " bytes");
+		}
+		lock.lock();
+		try (var _ = lockChannel.lock()) {
+			refresh();
+			if (data.size() + recordBytes > maxBytes) {
+				compact(maxBytes / 2 - recordBytes);
+			} else if ((count() + 1) * 2L > capacity) {
+				compact(Long.MAX_VALUE);
+			}
+			long offset = data.size();
+			var record = ByteBuffer.allocate((int) recordBytes);
+			record.put(digest).putInt(value.length).put(value).putInt(crc(digest, value)).flip();
+			writeFully(data, record, offset);
+			// the record is complete before any reader can reach it through the index
+			insert(digest, offset);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return number of keys stored
+	 */
+	public int count() throws IOException {
+		lock.lock();
+		try {
+			refresh();
+			return index.getInt(12);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return current size of the data file in bytes
+	 */
+	public long size() throws IOException {
+		lock.lock();
+		try {
+			refresh();
+			return data.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			if (data != null) {
+				data.close();
+			}
+			lockChannel.close();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Remaps the index and reopens the data file if another writer replaced them.
+	 */
+	private void refresh() throws IOException {
+		for (int attempt = 0;; attempt++) {
+			try {
+				tryRefresh();
+				return;
+			} catch (NoSuchFileException e) {
+				// a compaction removed the data file between reading the index and opening it
+				if (attempt == 2) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	private void tryRefresh() throws IOException {
+		var key = Files.readAttributes(indexPath, BasicFileAttributes.class).fileKey();
+		if (index != null && key != null && key.equals(indexKey)) {
+			return;
+		}
+		try (var channel = FileChannel.open(indexPath, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			var mapped = channel.map(MapMode.READ_WRITE, 0, channel.size());
+			if (mapped.getInt(0) != INDEX_MAGIC) {
+				throw new IOException("Not a result store index: " + indexPath);
+			}
+			long newGeneration = mapped.getLong(16);
+			if (data == null || newGeneration != generation) {
+				var newData = FileChannel.open(dataPath(newGeneration), StandardOpenOption.READ,
+						StandardOpenOption.WRITE);
+				if (data != null) {
+					data.close();
+				}
+				data = newData;
+			}
+			index = mapped;
+			indexKey = key;
+			capacity = mapped.getInt(8);
+			generation = newGeneration;
+		}
+	}
+
+	/**
+	 * @return offset of the record of {@code digest}, or -1
+	 */
+	private long find(byte[] digest) throws IOException {
+		long tag = tag(digest);
+		int mask = capacity - 1;
+		for (int i = slot(tag, mask);; i = (i + 1) & mask) {
+			int position = HEADER_BYTES + i * SLOT_BYTES;
+			long current = index.getLong(position);
+			if (current == 0) {
+				return -1;
+			}
+			if (current == tag) {
+				long offset = index.getLong(position + 8);
+				if (matches(data, offset, digest)) {
+					return offset;
+				}
+			}
+		}
+	}
+
+	private void insert(byte[] digest, long offset) throws IOException {
+		long tag = tag(digest);
+		int mask = capacity - 1;
+		for (int i = slot(tag, mask);; i = (i + 1) & mask) {
+			int position = HEADER_BYTES + i * SLOT_BYTES;
+			long current = index.getLong(position);
+			if (current == tag && matches(data, index.getLong(position + 8), digest)) {
+				index.putLong(position + 8, offset);
+				return;
+			}
+			if (current == 0) {
+				// offset first, so a slot with a tag always has its offset
+				index.putLong(position + 8, offset);
+				index.putLong(position, tag);
+				index.putInt(12, index.getInt(12) + 1);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Rewrites the newest live records that fit in {@code budget} bytes into a new generation
+	 * with an index sized for them. Called with the file lock held.
+	 */
+	private void compact(long budget) throws IOException {
+		var live = new ArrayList<long[]>();
+		for (int i = 0; i < capacity; i++) {
+			int position = HEADER_BYTES + i * SLOT_BYTES;
+			if (index.getLong(position) != 0) {
+				long offset = index.getLong(position + 8);
+				live.add(new long[] {offset, RECORD_OVERHEAD + readLength(data, offset)});
+			}
+		}
+		live.sort(Comparator.comparingLong((long[] record) -> record[0]).reversed());
+		var kept = new ArrayList<long[]>();
+		long total = Long.BYTES;
+		for (var record : live) {
+			if (total + record[1] > budget) {
+				break;
+			}
+			kept.add(record);
+			total += record[1];
+		}
+		int newCapacity = MIN_CAPACITY;
+		while (newCapacity < (kept.size() + 1) * 4L) {
+			newCapacity <<= 1;
+		}
+		writeGeneration(generation + 1, kept, data, newCapacity);
+		Files.deleteIfExists(dataPath(generation));
+		refresh();
+	}
+
+	/**
+	 * Writes {@code data-<generation>.log} with the given records of {@code source}, oldest first,
+	 * and renames a matching index over the current one.
+	 */
+	private void writeGeneration(long generation, List<long[]> records, FileChannel source,
+			int capacity) throws IOException {
+		var dataFile = dataPath(generation);
+		var indexTmp = directory.resolve("index.tmp");
+		try (var out = FileChannel.open(dataFile, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+				var indexOut = FileChannel.open(indexTmp, StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+						StandardOpenOption.WRITE)) {
+			writeFully(out, ByteBuffer.allocate(Long.BYTES).putLong(DATA_MAGIC).flip(), 0);
+			var table = indexOut.map(MapMode.READ_WRITE, 0,
+					HEADER_BYTES + (long) capacity * SLOT_BYTES);
+			table.putInt(0, INDEX_MAGIC);
+			table.putInt(8, capacity);
+			table.putLong(16, generation);
+			int mask = capacity - 1;
+			int count = 0;
+			for (int r = records.size() - 1; r >= 0; r--) {
+				var record = records.get(r);
+				var buffer = ByteBuffer.allocate((int) record[1]);
+				readFully(source, buffer, record[0]);
+				long offset = out.size();
+				writeFully(out, buffer.flip(), offset);
+				long tag = tag(Arrays.copyOf(buffer.array(), DIGEST_BYTES));
+				int i = slot(tag, mask);
+				while (table.getLong(HEADER_BYTES + i * SLOT_BYTES) != 0) {
+					i = (i + 1) & mask;
+				}
+				table.putLong(HEADER_BYTES + i * SLOT_BYTES, tag);
+				table.putLong(HEADER_BYTES + i * SLOT_BYTES + 8, offset);
+				count++;
+			}
+			table.putInt(12, count);
+			out.force(true);
+			table.force();
+		}
+		Files.move(indexTmp, indexPath, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private Path dataPath(long generation) {
+		return directory.resolve("data-" + generation + ".log");
+	}
+
+	private static boolean matches(FileChannel data, long offset, byte[] digest)
+			throws IOException {
+		if (offset < Long.BYTES || offset + RECORD_OVERHEAD > data.size()) {
+			return false;
+		}
+		var stored = ByteBuffer.allocate(DIGEST_BYTES);
+		readFully(data, stored, offset);
+		return Arrays.equals(stored.array(), digest);
+	}
+
+	private static int readLength(FileChannel data, long offset) throws IOException {
+		var length = ByteBuffer.allocate(Integer.BYTES);
+		readFully(data, length, offset + DIGEST_BYTES);
+		return length.getInt(0);
+	}
+
+	/**
+	 * @return the value of the record at {@code offset}, or null if it is torn or corrupt
+	 */
+	private static byte[] readValue(FileChannel data, long offset, byte[] digest)
+			throws IOException {
+		int length = readLength(data, offset);
+		if (length < 0 || offset + RECORD_OVERHEAD + length > data.size()) {
+			return null;
+		}
+		var record = ByteBuffer.allocate(length + Integer.BYTES);
+		readFully(data, record, offset + DIGEST_BYTES + Integer.BYTES);
+		var value = Arrays.copyOf(record.array(), length);
+		return record.getInt(length) == crc(digest, value) ? value : null;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+			throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of result store data");
+			}
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+			throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, position + buffer.position());
+		}
+	}
+
+	private static int crc(byte[] digest, byte[] value) {
+		var crc = new CRC32();
+		crc.update(digest);
+		crc.update(value);
+		return (int) crc.getValue();
+	}
+
+	private static long tag(byte[] digest) {
+		long tag = ByteBuffer.wrap(digest).getLong();
+		// zero marks an empty slot
+		return tag == 0 ? 1 : tag;
+	}
+
+	private static int slot(long tag, int mask) {
+		return (int) (tag ^ (tag >>> 32)) & mask;
+	}
+
+	private static byte[] digest(String key) {
+		Objects.requireNonNull(key, "Key must not be null");
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package openevolve.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Budget of {@code perMinute} units refilled continuously, e.g. requests or tokens per minute.
+ * Waiters are woken in arrival order. Amounts larger than the whole budget are admitted once the
+ * bucket is full and leave it in debt, as do {@link #debit debits} of usage only known afterwards.
+ */
+public final class TokenBucket {
+
+	private final double capacity;
+	private final double perNano;
+	private final ReentrantLock lock = new ReentrantLock(true);
+	private final Condition refilled = lock.newCondition();
+	private double available;
+	private long last;
+
+	public TokenBucket(double perMinute) {
+		if (perMinute <= 0) {
+			throw new IllegalArgumentException("Budget per minute must be positive");
+		}
+		this.capacity = perMinute;
+		this.perNano = perMinute / TimeUnit.MINUTES.toNanos(1);
+		this.available = perMinute;
+		this.last = System.nanoTime();
+	}
+
+	/**
+	 * Takes {@code amount} from the budget, waiting until it has refilled enough.
+	 */
+	public void acquire(double amount) throws InterruptedException {
+		lock.lock();
+		try {
+			double needed = Math.min(amount, capacity);
+			for (refill(); available < needed; refill()) {
+				refilled.awaitNanos(Math.max(1, (long) ((needed - available) / perNano)));
+			}
+			available -= amount;
+			// a refund or a smaller request may be satisfiable now
+			refilled.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return whether {@code amount} was available and taken
+	 */
+	public boolean tryAcquire(double amount) {
+		lock.lock();
+		try {
+			refill();
+			if (available < Math.min(amount, capacity)) {
+				return false;
+			}
+			available -= amount;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Takes {@code amount} without waiting, a negative amount refunds.
+	 */
+	public void debit(double amount) {
+		lock.lock();
+		try {
+			refill();
+			available = Math.min(capacity, available - amount);
+			if (amount < 0) {
+				refilled.signalAll();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public double available() {
+		lock.lock();
+		try {
+			refill();
+			return available;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void refill() {
+		long now = System.nanoTime();
+		available = Math.min(capacity, available + (now - last) * perNano);
+		last = now;
+	}
+}
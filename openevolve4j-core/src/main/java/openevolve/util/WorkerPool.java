@@ -0,0 +1,328 @@
+package openevolve.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import openevolve.Constants;
+
+/**
+ * Pool of long-lived runner processes, so interpreter and dataset startup are paid once per
+ * worker instead of once per evaluation.
+ *
+ * <p>
+ * A worker is started as {@code bash <script> --worker} and speaks line-delimited JSON over
+ * stdin/stdout, one object per line:
+ * <ul>
+ * <li>{@code {"id": 7, "type": "evaluate", "path": "/abs/solution/dir"}} is answered with
+ * {@code {"id": 7, "metrics": {...}}} or {@code {"id": 7, "error": "..."}}</li>
+ * <li>{@code {"id": 8, "type": "ping"}} is answered with any object carrying {@code "id": 8}</li>
+ * </ul>
+ * Stdout lines that are not JSON or carry another id are skipped, stderr is logged at debug level.
+ * Workers must exit when stdin is closed.
+ *
+ * <p>
+ * A worker is replaced when it exits, when a request times out (it is killed together with its
+ * descendants), when it fails the ping sent after it sat idle for {@code healthCheckInterval},
+ * and after {@code maxEvaluations} evaluations. Workers are started lazily, at most {@code size}
+ * at a time.
+ */
+public final class WorkerPool implements AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WorkerPool.class);
+	// compared by identity, so no stdout line can be mistaken for it
+	private static final String EOF = new String("<eof>");
+
+	private final Path script;
+	private final Path workingDir;
+	private final int size;
+	private final int maxEvaluations;
+	private final Duration healthCheckInterval;
+	private final Duration startTimeout;
+	private final ObjectMapper mapper;
+	private final BlockingQueue<Slot> slots;
+	private final AtomicLong requestIds = new AtomicLong();
+	private volatile boolean closed;
+
+	/**
+	 * @param script runner script started in worker mode
+	 * @param workingDir working directory of the worker processes, null for the current one
+	 * @param size maximum number of concurrently running workers
+	 * @param maxEvaluations evaluations after which a worker is recycled
+	 * @param healthCheckInterval idle time after which a worker is pinged before reuse
+	 * @param startTimeout time a fresh worker gets to answer its first ping
+	 */
+	public WorkerPool(Path script, Path workingDir, int size, int maxEvaluations,
+			Duration healthCheckInterval, Duration startTimeout, ObjectMapper mapper) {
+		Objects.requireNonNull(script, "script");
+		Objects.requireNonNull(healthCheckInterval, "healthCheckInterval");
+		Objects.requireNonNull(startTimeout, "startTimeout");
+		Objects.requireNonNull(mapper, "mapper");
+		if (size <= 0) {
+			throw new IllegalArgumentException("Worker pool size must be positive");
+		}
+		if (maxEvaluations <= 0) {
+			throw new IllegalArgumentException("Max evaluations per worker must be positive");
+		}
+		this.script = script;
+		this.workingDir = workingDir;
+		this.size = size;
+		this.maxEvaluations = maxEvaluations;
+		this.healthCheckInterval = healthCheckInterval;
+		this.startTimeout = startTimeout;
+		this.mapper = mapper;
+		this.slots = new LinkedBlockingQueue<>(size);
+		for (int i = 0; i < size; i++) {
+			slots.add(new Slot());
+		}
+	}
+
+	/**
+	 * Evaluates the solution in {@code solutionDir} on an idle worker, waiting for one if all are
+	 * busy. Failures are reported like {@link BashExecutor.ExecResult#extractMetrics}, as metrics
+	 * with a zero combined score and an {@code error} entry.
+	 *
+	 * @param metricNames at least one of these must be present in the returned metrics
+	 */
+	public Map<String, Object> evaluate(Path solutionDir, Duration timeout,
+			Collection<String> metricNames) throws InterruptedException {
+		var slot = slots.take();
+		try {
+			var worker = healthy(slot.worker);
+			slot.worker = worker;
+			var reply = worker.request("evaluate", solutionDir.toAbsolutePath().toString(),
+					timeout);
+			if (reply == null) {
+				var message = worker.alive() ? "Worker timed out" : "Worker exited unexpectedly";
+				slot.worker = null;
+				worker.kill();
+				return error(message);
+			}
+			if (++worker.evaluations >= maxEvaluations || closed) {
+				slot.worker = null;
+				// the next evaluation starts a fresh worker without waiting for this one to exit
+				Thread.ofVirtual().start(worker::stop);
+			}
+			return metrics(reply, metricNames);
+		} catch (IOException e) {
+			LOG.warn("Worker for {} failed", script, e);
+			if (slot.worker != null) {
+				slot.worker.kill();
+				slot.worker = null;
+			}
+			return error("Worker failed: " + e.getMessage());
+		} finally {
+			slots.add(slot);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public Path script() {
+		return script;
+	}
+
+	/**
+	 * Closes the stdin of all idle workers and kills those that do not exit within a second.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		var idle = new ArrayList<Slot>();
+		slots.drainTo(idle);
+		for (var slot : idle) {
+			if (slot.worker != null) {
+				slot.worker.stop();
+				slot.worker = null;
+			}
+		}
+		slots.addAll(idle);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> metrics(Map<String, Object> reply,
+			Collection<String> metricNames) {
+		if (reply.get("error") != null) {
+			return error(String.valueOf(reply.get("error")));
+		}
+		if (reply.get("metrics") instanceof Map<?, ?> metrics
+				&& metrics.keySet().stream().anyMatch(metricNames::contains)) {
+			return (Map<String, Object>) metrics;
+		}
+		return error("No valid metrics found in worker reply");
+	}
+
+	private static Map<String, Object> error(String message) {
+		return Map.of(Constants.COMBINED_SCORE, 0.0, "error", message);
+	}
+
+	private Worker healthy(Worker worker) throws IOException, InterruptedException {
+		if (closed) {
+			throw new IOException("Worker pool is closed");
+		}
+		if (worker != null && worker.alive()) {
+			if (worker.idleFor() < healthCheckInterval.toNanos()
+					|| worker.request("ping", null, startTimeout) != null) {
+				return worker;
+			}
+			LOG.warn("Worker {} failed its health check, restarting it", worker.process.pid());
+		}
+		if (worker != null) {
+			worker.kill();
+		}
+		var fresh = start();
+		if (fresh.request("ping", null, startTimeout) == null) {
+			fresh.kill();
+			throw new IOException("Worker did not answer within " + startTimeout);
+		}
+		return fresh;
+	}
+
+	private Worker start() throws IOException {
+		var pb = new ProcessBuilder(List.of(shell(), script.toAbsolutePath().toString(),
+				"--worker"));
+		if (workingDir != null) {
+			pb.directory(workingDir.toFile());
+		}
+		return new Worker(pb.start());
+	}
+
+	private static String shell() {
+		return System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("win") ? "bash"
+				: "/bin/bash";
+	}
+
+	private static final class Slot {
+		private Worker worker;
+	}
+
+	private final class Worker {
+		private final Process process;
+		private final BufferedWriter stdin;
+		private final BlockingQueue<String> stdout = new LinkedBlockingQueue<>();
+		private long lastUsed = System.nanoTime();
+		private int evaluations;
+		// stdout reached its end, the process may not have been reaped yet
+		private volatile boolean exited;
+
+		Worker(Process process) {
+			this.process = process;
+			this.stdin = new BufferedWriter(
+					new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+			Thread.ofVirtual().name("worker-stdout-" + process.pid()).start(() -> {
+				try (var reader = new BufferedReader(
+						new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+					String line;
+					while ((line = reader.readLine()) != null) {
+						stdout.add(line);
+					}
+				} catch (IOException ignored) {
+					// the process is gone, signalled below
+				}
+				stdout.add(EOF);
+			});
+			Thread.ofVirtual().name("worker-stderr-" + process.pid()).start(() -> {
+				try (var reader = new BufferedReader(
+						new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+					String line;
+					while ((line = reader.readLine()) != null) {
+						LOG.debug("worker {}: {}", process.pid(), line);
+					}
+				} catch (IOException ignored) {
+					// the process is gone
+				}
+			});
+		}
+
+		boolean alive() {
+			return !exited && process.isAlive();
+		}
+
+		long idleFor() {
+			return System.nanoTime() - lastUsed;
+		}
+
+		/**
+		 * @return the reply carrying the request id, or null if none arrived within
+		 *         {@code timeout} or the worker exited
+		 */
+		Map<String, Object> request(String type, String path, Duration timeout)
+				throws IOException, InterruptedException {
+			long id = requestIds.incrementAndGet();
+			var request = path != null ? Map.of("id", id, "type", type, "path", path)
+					: Map.of("id", id, "type", type);
+			stdin.write(mapper.writeValueAsString(request));
+			stdin.newLine();
+			stdin.flush();
+			long deadline = System.nanoTime() + timeout.toNanos();
+			try {
+				for (long left = timeout.toNanos(); left > 0; left = deadline - System.nanoTime()) {
+					var line = stdout.poll(left, TimeUnit.NANOSECONDS);
+					if (line == EOF) {
+						exited = true;
+						return null;
+					}
+					if (line == null) {
+						return null;
+					}
+					var reply = parse(line);
+					if (reply != null && reply.get("id") instanceof Number n && n.longValue() == id) {
+						return reply;
+					}
+				}
+				return null;
+			} finally {
+				lastUsed = System.nanoTime();
+			}
+		}
+
+		private Map<String, Object> parse(String line) {
+			if (!line.startsWith("{")) {
+				return null;
+			}
+			try {
+				return mapper.readValue(line, Constants.MAP_TYPE_REF);
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
+		void stop() {
+			try {
+				stdin.close();
+				if (!process.waitFor(1, TimeUnit.SECONDS)) {
+					kill();
+				}
+			} catch (IOException e) {
+				kill();
+			} catch (InterruptedException e) {
+				kill();
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		void kill() {
+			process.descendants().forEach(ProcessHandle::destroyForcibly);
+			process.destroyForcibly();
+		}
+	}
+}
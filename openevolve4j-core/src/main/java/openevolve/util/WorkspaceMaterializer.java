@@ -0,0 +1,151 @@
+package openevolve.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds the directory of a child solution from its parent directory plus the child's source
+ * files. Files the child does not change are copied ({@link Strategy#COPY}) or hard-linked
+ * ({@link Strategy#LINK}) from the parent; only sources whose content differs from the parent are
+ * written. With links, the I/O per evaluation is the size of the changed sources instead of the
+ * whole directory, datasets included.
+ *
+ * <p>
+ * A linked file shares its contents with the parent and every other descendant, so with
+ * {@link Strategy#LINK} the runner must not modify existing files in place (writing new files
+ * or replacing existing ones is fine). Changed sources are always written as new files, never
+ * through a link. If the file system refuses a link (another device, no hard link support) the
+ * file is copied and so are the remaining files of that call; the next call tries linking again,
+ * since a scratch root on tmpfs can only link within itself.
+ */
+public final class WorkspaceMaterializer {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WorkspaceMaterializer.class);
+
+	public enum Strategy {
+		COPY, LINK
+	}
+
+	private final Strategy strategy;
+
+	public WorkspaceMaterializer(Strategy strategy) {
+		this.strategy = Objects.requireNonNull(strategy, "Strategy must not be null");
+	}
+
+	/**
+	 * Materializes {@code target} as {@code parent} with {@code sources} applied.
+	 *
+	 * @param sources full content of the child's source files, keyed by their path under
+	 *        {@code target}; files of {@code parent} not listed here are taken over unchanged
+	 */
+	public void materialize(Path parent, Path target, Map<Path, String> sources)
+			throws IOException {
+		var changed = new HashMap<Path, byte[]>(sources.size() * 2);
+		sources.forEach((path, content) -> changed.put(path.toAbsolutePath().normalize(),
+				content.getBytes(StandardCharsets.UTF_8)));
+		var absoluteTarget = target.toAbsolutePath().normalize();
+		var link = new boolean[] {strategy == Strategy.LINK};
+		Files.walkFileTree(parent, new SimpleFileVisitor<>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+					throws IOException {
+				Files.createDirectories(absoluteTarget.resolve(parent.relativize(dir).toString()));
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+					throws IOException {
+				var targetFile = absoluteTarget.resolve(parent.relativize(file).toString());
+				var content = changed.get(targetFile);
+				if (content != null && !sameContent(file, attrs, content)) {
+					// written below
+					return FileVisitResult.CONTINUE;
+				}
+				changed.remove(targetFile);
+				link[0] = takeOver(file, attrs, targetFile, link[0]);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		for (var entry : changed.entrySet()) {
+			var path = entry.getKey();
+			Files.createDirectories(path.getParent());
+			// never write through a link shared with the parent
+			Files.deleteIfExists(path);
+			Files.write(path, entry.getValue(), StandardOpenOption.CREATE_NEW);
+		}
+	}
+
+	public Strategy strategy() {
+		return strategy;
+	}
+
+	/**
+	 * Deletes {@code path} recursively; a path that does not exist is ignored. Links only drop
+	 * this directory's reference, the parent keeps its files.
+	 */
+	public static void delete(Path path) throws IOException {
+		try {
+			Files.walkFileTree(path, new SimpleFileVisitor<>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+						throws IOException {
+					Files.delete(file);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult postVisitDirectory(Path dir, IOException exc)
+						throws IOException {
+					if (exc != null) {
+						throw exc;
+					}
+					Files.delete(dir);
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (NoSuchFileException e) {
+			// never materialized
+		}
+	}
+
+	/**
+	 * @return whether the next file may be linked
+	 */
+	private static boolean takeOver(Path file, BasicFileAttributes attrs, Path targetFile,
+			boolean link) throws IOException {
+		if (link && attrs.isRegularFile()) {
+			try {
+				Files.deleteIfExists(targetFile);
+				Files.createLink(targetFile, file);
+				return true;
+			} catch (IOException | UnsupportedOperationException e) {
+				link = false;
+				LOG.debug("Hard links are not supported from {} to {}, copying files instead",
+						file, targetFile, e);
+			}
+		}
+		Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
+		return link;
+	}
+
+	private static boolean sameContent(Path file, BasicFileAttributes attrs, byte[] content)
+			throws IOException {
+		return attrs.isRegularFile() && attrs.size() == content.length
+				&& Arrays.equals(Files.readAllBytes(file), content);
+	}
+}
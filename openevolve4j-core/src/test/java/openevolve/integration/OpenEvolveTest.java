@@ -2,6 +2,7 @@ package openevolve.integration;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import openevolve.Constants;
@@ -13,13 +14,20 @@ public class OpenEvolveTest {
 	
 	@Test
 	@Disabled
-	void testLLM() {
+	void testLLM() throws Exception {
 		var config = loadConfig("/openevolve/llm_prompt_eval/config.yml");
 		assertNotNull(config);
-		var openEvolve = OpenEvolve.create(config, Constants.OBJECT_MAPPER);
+		var resources = new ArrayList<AutoCloseable>();
+		var openEvolve = OpenEvolve.create(config, Constants.OBJECT_MAPPER, resources::add);
 		assertNotNull(openEvolve);
 		openEvolve.addListener(new MAPElitesLoggingListener<>());
-		openEvolve.run(config.mapelites().numIterations());
+		try {
+			openEvolve.run(config.mapelites().numIterations());
+		} finally {
+			for (var resource : resources.reversed()) {
+				resource.close();
+			}
+		}
 	}
 
 	public OpenEvolveConfig loadConfig(String path) {
@@ -8,6 +8,7 @@ import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import openevolve.Constants;
+import openevolve.mapelites.listener.HypervolumeListener;
 import openevolve.mapelites.listener.MAPElitesLoggingListener;
 import openevolve.mapelites.DefaultRepository;
 import openevolve.mapelites.MAPElites;
@@ -81,9 +82,20 @@ public class DTLZ2Test {
                 createEvolutionOperator(M), createInitialSolutionGenerator(),
                 createSelectionFunction(repository), createStopCondition(M), ScaleMethod.MIN_MAX, featureDims, 6);
         mapElites.addListener(new MAPElitesLoggingListener<>());
+        // objectives are bounded by 1 + g <= 1 + 0.25 * (n - M + 1) = 3.5
+        var hypervolume = new HypervolumeListener<>(pareto, new double[] {4.0, 4.0, 4.0});
+        mapElites.addListener(hypervolume);
 
         mapElites.run(ITERATIONS);
 
+        // exact for three objectives: positive and inside the reference box
+        assertTrue(hypervolume.hypervolume() > 0.0, "Hypervolume should be tracked");
+        assertTrue(hypervolume.hypervolume() <= 64.0);
+        var check = new HypervolumeListener<>(pareto, new double[] {4.0, 4.0, 4.0});
+        findParetoFront(repository.findAll(), pareto).forEach(check::offer);
+        assertTrue(hypervolume.hypervolume() >= check.hypervolume() - 1e-9,
+                "Tracked hypervolume should cover the final non-dominated set");
+
         // Basic validations
         List<Solution<double[]>> all = repository.findAll();
         assertFalse(all.isEmpty(), "Should produce solutions");
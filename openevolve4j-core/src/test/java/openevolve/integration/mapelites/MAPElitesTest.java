@@ -2,15 +2,20 @@ package openevolve.integration.mapelites;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import openevolve.mapelites.listener.MAPElitesListener;
+import openevolve.mapelites.Cascade;
 import openevolve.mapelites.DefaultRepository;
+import openevolve.mapelites.EvaluationCache;
 import openevolve.mapelites.MAPElites;
+import openevolve.mapelites.MAPElites.Stage;
 import openevolve.mapelites.Migration;
 import openevolve.mapelites.Repository;
 import openevolve.mapelites.FeatureScaler.ScaleMethod;
@@ -108,7 +113,7 @@ public class MAPElitesTest {
 
         // Selection: tournament selection
         java.util.function.Function<Repository.Island, List<Solution<Double>>> selection = island -> {
-            var solutions = doubleRepo.findByIslandId(island.id());
+            var solutions = new ArrayList<>(doubleRepo.findByIslandId(island.id())); // repository lists are read-only
             if (solutions.size() <= 2) return solutions;
             
             // Simple tournament: pick 2 best
@@ -316,6 +321,408 @@ public class MAPElitesTest {
         assertDoesNotThrow(() -> mapElites.run(5));
     }
 
+    @Test
+    @DisplayName("Test every iteration ends with onAfterIteration or onIterationFailed")
+    public void testFailedIterationsAreReported() {
+        // evolving fails on even iterations, evaluating the second child of odd ones
+        Function<String, Map<String, Object>> fitnessFn = s -> {
+            if (s.endsWith("b")) {
+                throw new RuntimeException("Fitness evaluation error");
+            }
+            Map<String, Object> m = new HashMap<>();
+            m.put("fitness", 1.0);
+            return m;
+        };
+
+        // every island evolves, even those without solutions of their own
+        java.util.function.Function<Repository.Island, List<Solution<String>>> selection =
+            _ -> List.of(repository.best());
+
+        java.util.function.Supplier<List<String>> initialGen = () -> List.of("seed");
+
+        MAPElites<String> mapElites = new MAPElites<>(
+            repository, migration, fitnessFn, _ -> null, initialGen, selection, _ -> false, ScaleMethod.MIN_MAX, List.of("fitness"), 5);
+        AtomicInteger iteration = new AtomicInteger();
+        mapElites.setBatchEvolveOperator(parents -> {
+            int i = iteration.incrementAndGet();
+            if (i % 2 == 0) {
+                throw new RuntimeException("LLM error");
+            }
+            return List.of(i + "a", i + "b");
+        });
+
+        List<Integer> completed = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> failed = Collections.synchronizedList(new ArrayList<>());
+        mapElites.addListener(new MAPElitesListener<String>() {
+            @Override
+            public void onAfterIteration(Repository.Island island, int iteration, MAPElites<String> mapElites) {
+                completed.add(iteration);
+            }
+
+            @Override
+            public void onIterationFailed(Repository.Island island, int iteration, Throwable error, MAPElites<String> mapElites) {
+                assertNotNull(island);
+                failed.add(iteration);
+            }
+        });
+
+        // serial and concurrent modes evaluate both children together, so one failure fails both
+        mapElites.run(4);
+        mapElites.setParallelism(2);
+        mapElites.run(8);
+        // the pipeline drops a child that failed evaluation and keeps its sibling
+        mapElites.setPipeline(2, 2, 2);
+        mapElites.run(12);
+
+        var ended = new ArrayList<>(completed);
+        ended.addAll(failed);
+        Collections.sort(ended);
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12), ended,
+            "Every iteration should end exactly once");
+        assertEquals(0, completed.stream().filter(i -> i <= 8).count());
+        assertEquals(2, completed.stream().filter(i -> i > 8).count());
+    }
+
+    @Test
+    @DisplayName("Test MAPElites concurrent run keeps iterations in flight")
+    public void testConcurrentRun() {
+        Function<String, Map<String, Object>> fitnessFn = s -> {
+            Map<String, Object> m = new HashMap<>();
+            m.put("fitness", Double.parseDouble(s));
+            return m;
+        };
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        java.util.function.Function<List<Solution<String>>, String> evolve = parents -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20); // simulate a slow LLM call
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            return String.valueOf(Double.parseDouble(parents.get(0).solution()) + 0.1);
+        };
+
+        java.util.function.Function<Repository.Island, List<Solution<String>>> selection =
+            island -> repository.findByIslandId(island.id());
+
+        java.util.function.Supplier<List<String>> initialGen = () -> List.of("1.0", "2.0");
+
+        MAPElites<String> mapElites = new MAPElites<>(
+            repository, migration, fitnessFn, evolve, initialGen, selection, _ -> false, ScaleMethod.MIN_MAX, List.of("fitness"), 5);
+        mapElites.setParallelism(4);
+
+        Set<Integer> completed = Collections.synchronizedSet(new HashSet<>());
+        mapElites.addListener(new MAPElitesListener<String>() {
+            @Override
+            public void onAfterIteration(Repository.Island island, int iteration, MAPElites<String> mapElites) {
+                completed.add(iteration);
+            }
+        });
+
+        mapElites.run(20);
+
+        assertEquals(20, completed.size(), "Every iteration should complete exactly once");
+        assertTrue(maxInFlight.get() > 1, "Evolution calls should overlap");
+        assertEquals(22, repository.count(), "All evolved solutions should be saved");
+        assertThrows(IllegalArgumentException.class, () -> mapElites.setParallelism(0));
+    }
+
+    @Test
+    @DisplayName("Test MAPElites pipelined run reports stage metrics")
+    public void testPipelinedRun() {
+        Function<String, Map<String, Object>> fitnessFn = s -> {
+            try {
+                Thread.sleep(10); // evaluator slower than generation
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Map<String, Object> m = new HashMap<>();
+            m.put("fitness", Double.parseDouble(s));
+            return m;
+        };
+
+        java.util.function.Function<List<Solution<String>>, String> evolve =
+            parents -> String.valueOf(Double.parseDouble(parents.get(0).solution()) + 0.1);
+
+        java.util.function.Function<Repository.Island, List<Solution<String>>> selection =
+            island -> repository.findByIslandId(island.id());
+
+        java.util.function.Supplier<List<String>> initialGen = () -> List.of("1.0", "2.0");
+
+        MAPElites<String> mapElites = new MAPElites<>(
+            repository, migration, fitnessFn, evolve, initialGen, selection, _ -> false, ScaleMethod.MIN_MAX, List.of("fitness"), 5);
+        mapElites.setPipeline(2, 3, 2);
+
+        Map<Stage, AtomicInteger> stageCounts = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            stageCounts.put(stage, new AtomicInteger());
+        }
+        AtomicInteger maxQueueDepth = new AtomicInteger();
+        Set<Integer> completed = Collections.synchronizedSet(new HashSet<>());
+        mapElites.addListener(new MAPElitesListener<String>() {
+            @Override
+            public void onAfterIteration(Repository.Island island, int iteration, MAPElites<String> mapElites) {
+                completed.add(iteration);
+            }
+
+            @Override
+            public void onStageCompleted(Stage stage, int iteration, java.time.Duration latency,
+                    int evaluationQueueDepth, int insertionQueueDepth) {
+                stageCounts.get(stage).incrementAndGet();
+                maxQueueDepth.accumulateAndGet(Math.max(evaluationQueueDepth, insertionQueueDepth), Math::max);
+            }
+        });
+
+        mapElites.run(15);
+
+        assertEquals(15, completed.size(), "Every iteration should complete exactly once");
+        assertEquals(15, stageCounts.get(Stage.GENERATE).get());
+        assertEquals(15, stageCounts.get(Stage.EVALUATE).get());
+        assertEquals(15, stageCounts.get(Stage.INSERT).get());
+        assertTrue(maxQueueDepth.get() <= 2, "Queues must stay bounded by their capacity");
+        assertEquals(17, repository.count(), "All evolved solutions should be saved");
+    }
+
+    @Test
+    @DisplayName("Test MAPElites batch operator evaluates all children of an iteration")
+    public void testBatchEvolveOperator() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Function<String, Map<String, Object>> fitnessFn = s -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20); // simulate a slow evaluation
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            Map<String, Object> m = new HashMap<>();
+            m.put("fitness", Double.parseDouble(s));
+            return m;
+        };
+
+        java.util.function.Function<Repository.Island, List<Solution<String>>> selection =
+            island -> repository.findByIslandId(island.id());
+
+        java.util.function.Supplier<List<String>> initialGen = () -> List.of("1.0", "2.0");
+
+        MAPElites<String> mapElites = new MAPElites<>(
+            repository, migration, fitnessFn, _ -> null, initialGen, selection, _ -> false, ScaleMethod.MIN_MAX, List.of("fitness"), 5);
+        mapElites.setBatchEvolveOperator(parents -> {
+            double value = Double.parseDouble(parents.get(0).solution());
+            return List.of(String.valueOf(value + 0.1), String.valueOf(value + 0.2),
+                String.valueOf(value + 0.3));
+        });
+
+        List<Integer> completed = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger generated = new AtomicInteger();
+        mapElites.addListener(new MAPElitesListener<String>() {
+            @Override
+            public void onSolutionGenerated(Solution<String> newSolution, List<Solution<String>> parents, int iteration) {
+                generated.incrementAndGet();
+            }
+
+            @Override
+            public void onAfterIteration(Repository.Island island, int iteration, MAPElites<String> mapElites) {
+                completed.add(iteration);
+            }
+        });
+
+        mapElites.run(5);
+
+        assertEquals(List.of(1, 2, 3, 4, 5), completed, "Every iteration should complete exactly once");
+        assertEquals(15, generated.get());
+        assertEquals(17, repository.count(), "All children should be saved");
+        assertEquals(3, maxInFlight.get(), "Children of an iteration should be evaluated together");
+
+        mapElites.setPipeline(1, 3, 2);
+        completed.clear();
+        mapElites.run(10);
+
+        assertEquals(5, completed.size());
+        assertEquals(Set.of(6, 7, 8, 9, 10), new HashSet<>(completed));
+        assertEquals(32, repository.count());
+    }
+
+    @Test
+    @DisplayName("Test MAPElites evaluation cache skips repeated candidates")
+    public void testEvaluationCache() {
+        AtomicInteger evaluations = new AtomicInteger();
+        Function<String, Map<String, Object>> fitnessFn = s -> {
+            evaluations.incrementAndGet();
+            Map<String, Object> m = new HashMap<>();
+            m.put("fitness", Double.parseDouble(s));
+            return m;
+        };
+
+        // a no-op operator, as when the LLM returns the parent unchanged
+        java.util.function.Function<List<Solution<String>>, String> evolve =
+            parents -> parents.get(0).solution();
+
+        java.util.function.Function<Repository.Island, List<Solution<String>>> selection =
+            island -> repository.findByIslandId(island.id());
+
+        java.util.function.Supplier<List<String>> initialGen = () -> List.of("1.0", "2.0");
+
+        MAPElites<String> mapElites = new MAPElites<>(
+            repository, migration, fitnessFn, evolve, initialGen, selection, _ -> false, ScaleMethod.MIN_MAX, List.of("fitness"), 5);
+        var cache = new EvaluationCache<String>(Function.identity(), 100);
+        mapElites.setEvaluationCache(cache);
+
+        AtomicInteger hits = new AtomicInteger();
+        AtomicInteger lookups = new AtomicInteger();
+        mapElites.addListener(new MAPElitesListener<String>() {
+            @Override
+            public void onEvaluationCacheLookup(boolean hit, EvaluationCache.Stats stats, int iteration) {
+                lookups.incrementAndGet();
+                if (hit) {
+                    hits.incrementAndGet();
+                }
+            }
+        });
+
+        mapElites.run(10);
+
+        assertEquals(2, evaluations.get(), "Only the two distinct candidates should be evaluated");
+        assertEquals(12, lookups.get(), "Initial solutions and every iteration go through the cache");
+        assertEquals(10, hits.get());
+        assertEquals(10.0 / 12, cache.stats().hitRate(), 1e-12);
+    }
+
+    @Test
+    @DisplayName("Test MAPElites cascade rejects candidates before the fitness function")
+    public void testCascadeThresholds() {
+        AtomicInteger evaluations = new AtomicInteger();
+        Function<String, Map<String, Object>> fitnessFn = s -> {
+            evaluations.incrementAndGet();
+            return Map.of("fitness", Double.parseDouble(s));
+        };
+        Function<String, Map<String, Object>> cheap = s -> Map.of("fitness", Double.parseDouble(s));
+
+        java.util.function.Function<List<Solution<String>>, String> evolve = _ -> "0.5";
+        // only one island is populated once rejected candidates stay out of the archive
+        java.util.function.Function<Repository.Island, List<Solution<String>>> selection =
+            _ -> repository.findAll();
+        java.util.function.Supplier<List<String>> initialGen = () -> List.of("1.0", "2.0");
+
+        MAPElites<String> mapElites = new MAPElites<>(
+            repository, migration, fitnessFn, evolve, initialGen, selection, _ -> false, ScaleMethod.MIN_MAX, List.of("fitness"), 5);
+        mapElites.setCascade(new Cascade<>(List.of(
+            new Cascade.Stage<>("cheap", cheap, Cascade.thresholds(Map.of("fitness", 1.5)), false))));
+
+        AtomicInteger passed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        mapElites.addListener(new MAPElitesListener<String>() {
+            @Override
+            public void onCascadeStage(String stage, boolean ok, Duration elapsed, Duration saved,
+                    Duration totalSaved, int iteration) {
+                assertEquals("cheap", stage);
+                (ok ? passed : rejected).incrementAndGet();
+                if (ok) {
+                    assertEquals(Duration.ZERO, saved);
+                }
+            }
+        });
+
+        mapElites.run(10);
+
+        assertEquals(1, evaluations.get(), "Only the initial 2.0 passes the threshold");
+        assertEquals(1, passed.get());
+        assertEquals(11, rejected.get());
+        assertEquals(1, repository.count(), "Rejected candidates must not be archived");
+        assertEquals(2.0, repository.best().fitness().get("fitness"));
+    }
+
+    @Test
+    @DisplayName("Test MAPElites never archives candidates rejected by the cascade")
+    public void testCascadeRejectedNotArchived() {
+        Function<String, Map<String, Object>> fitnessFn = s -> Map.of("fitness", Double.parseDouble(s));
+        // stage metrics of rejected candidates look better than any full evaluation
+        Function<String, Map<String, Object>> cheap = s -> Map.of("fitness", 100.0,
+            "valid", s.equals("1.0") ? 1.0 : 0.0);
+
+        AtomicInteger next = new AtomicInteger();
+        java.util.function.Function<List<Solution<String>>, String> evolve =
+            _ -> String.valueOf(next.incrementAndGet() + 1.0);
+        // only one island is populated once rejected candidates stay out of the archive
+        java.util.function.Function<Repository.Island, List<Solution<String>>> selection =
+            _ -> repository.findAll();
+        java.util.function.Supplier<List<String>> initialGen = () -> List.of("1.0");
+
+        MAPElites<String> mapElites = new MAPElites<>(
+            repository, migration, fitnessFn, evolve, initialGen, selection, _ -> false, ScaleMethod.MIN_MAX, List.of("fitness"), 5);
+        mapElites.setCascade(new Cascade<>(List.of(
+            new Cascade.Stage<>("cheap", cheap, Cascade.thresholds(Map.of("valid", 1.0)), false))));
+
+        List<Solution<String>> generated = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger best = new AtomicInteger();
+        AtomicInteger cells = new AtomicInteger();
+        mapElites.addListener(new MAPElitesListener<String>() {
+            @Override
+            public void onSolutionGenerated(Solution<String> newSolution, List<Solution<String>> parents, int iteration) {
+                generated.add(newSolution);
+            }
+
+            @Override
+            public void onNewBestSolution(Solution<String> newBest, Solution<String> previousBest, int iteration) {
+                best.incrementAndGet();
+            }
+
+            @Override
+            public void onCellImproved(Solution<String> newSolution, Solution<String> previousSolution,
+                    MAPElites.Cell cell, int iteration) {
+                cells.incrementAndGet();
+            }
+        });
+
+        mapElites.run(5);
+
+        assertEquals(5, generated.size());
+        assertTrue(generated.stream().allMatch(s -> "cheap".equals(s.fitness().get(Cascade.REJECTED_AT))));
+        var archived = repository.findAll();
+        assertEquals(1, archived.size());
+        assertEquals("1.0", archived.getFirst().solution());
+        var ids = generated.stream().map(Solution::id).toList();
+        assertTrue(mapElites.snapshot().grid().values().stream().noneMatch(cell -> ids.contains(cell.solutionId())),
+            "Rejected candidates must not hold a cell");
+        assertEquals(1, mapElites.snapshot().grid().size());
+        assertEquals(1, best.get(), "Only the initial solution becomes the best");
+        assertEquals(1, cells.get());
+    }
+
+    @Test
+    @DisplayName("Test MAPElites cascade rejects candidates dominated by their cell incumbent")
+    public void testCascadeIncumbent() {
+        AtomicInteger evaluations = new AtomicInteger();
+        // every candidate lands in the same cell
+        Function<String, Map<String, Object>> fitnessFn = s -> {
+            evaluations.incrementAndGet();
+            return Map.of("fitness", Double.parseDouble(s), "cell", 0.0);
+        };
+        Function<String, Map<String, Object>> cheap =
+            s -> Map.of("fitness", Double.parseDouble(s), "cell", 0.0);
+
+        AtomicInteger next = new AtomicInteger();
+        java.util.function.Function<List<Solution<String>>, String> evolve =
+            _ -> next.getAndIncrement() % 2 == 0 ? "1.0" : "3.0";
+        java.util.function.Function<Repository.Island, List<Solution<String>>> selection =
+            _ -> repository.findAll();
+        java.util.function.Supplier<List<String>> initialGen = () -> List.of("2.0");
+
+        MAPElites<String> mapElites = new MAPElites<>(
+            repository, migration, fitnessFn, evolve, initialGen, selection, _ -> false, ScaleMethod.MIN_MAX, List.of("cell"), 5);
+        mapElites.setCascade(new Cascade<>(List.of(new Cascade.Stage<>("cheap", cheap, null, true))));
+
+        mapElites.run(3);
+
+        // 2.0 fills the empty cell, 1.0 is dominated by it, 3.0 improves it, 1.0 is dominated again
+        assertEquals(2, evaluations.get());
+        assertEquals(3.0, repository.best().fitness().get("fitness"));
+    }
+
     @Test
     @DisplayName("Test MAPElites print archive functionality")
     public void testPrintArchive() {
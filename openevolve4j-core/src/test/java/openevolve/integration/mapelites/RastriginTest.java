@@ -8,6 +8,7 @@ import java.util.function.Predicate;
 import java.util.function.Supplier;
 import openevolve.Constants;
 import openevolve.mapelites.listener.MAPElitesLoggingListener;
+import openevolve.mapelites.CentroidalTessellation;
 import openevolve.mapelites.DefaultRepository;
 import openevolve.mapelites.MAPElites;
 import openevolve.mapelites.Migration;
@@ -181,6 +182,58 @@ public class RastriginTest {
         assertTrue(maxDiversity > minDiversity + 1.0, "Should explore diverse regions");
     }
 
+    @Test
+    @DisplayName("Test Rastrigin with a CVT archive over every decision variable")
+    public void testRastriginCentroidalArchive() {
+        Comparator<Solution<double[]>> comparator = (a, b) -> {
+            double fa = (Double) a.fitness().get("rastrigin");
+            double fb = (Double) b.fitness().get("rastrigin");
+            return Double.compare(fb, fa);
+        };
+
+        Repository<double[]> repository = new DefaultRepository<>(
+                comparator, POPULATION_SIZE, ARCHIVE_SIZE, NUM_ISLANDS);
+
+        // one descriptor per variable: 20^10 grid cells, but only 256 niches
+        List<String> featureDims = new ArrayList<>();
+        for (int i = 0; i < DIM; i++) featureDims.add("x" + i);
+        Function<double[], Map<String, Object>> fitness = x -> {
+            var m = createFitnessFunction().apply(x);
+            for (int i = 0; i < x.length; i++) m.put("x" + i, x[i]);
+            return m;
+        };
+
+        MAPElites<double[]> mapElites = new MAPElites<>(
+                repository,
+                new Migration<>(MIGRATION_INTERVAL, 0.1, repository),
+                fitness,
+                createEvolutionOperator(),
+                createInitialSolutionGenerator(),
+                createSelectionFunction(repository),
+                createStopCondition(),
+                ScaleMethod.MIN_MAX,
+                featureDims, 20);
+        var tessellation = CentroidalTessellation.compute(DIM, 256, 256 * 20, 10, 42);
+        mapElites.setTessellation(tessellation);
+        mapElites.run(ITERATIONS);
+
+        List<Solution<double[]>> all = repository.findAll();
+        assertFalse(all.isEmpty(), "Should have found some solutions");
+        Set<Integer> niches = new HashSet<>();
+        for (Solution<double[]> s : all) {
+            assertEquals(1, s.cell().length, "A CVT cell is the centroid id");
+            assertTrue(s.cell()[0] >= 0 && s.cell()[0] < tessellation.size());
+            niches.add(s.cell()[0]);
+        }
+        assertTrue(niches.size() > 20, "Should spread over many niches, got: " + niches.size());
+
+        double best = all.stream()
+            .mapToDouble(sol -> (Double) sol.fitness().get("rastrigin"))
+            .min()
+            .orElse(Double.POSITIVE_INFINITY);
+        assertTrue(best < 150.0, "Best Rastrigin value should show improvement, got: " + best);
+    }
+
     private Predicate<Solution<double[]>> createStopCondition() {
         // For minimization: stop when we reach a sufficiently low rastrigin value.
         return solution -> {
@@ -5,6 +5,8 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import openevolve.Constants;
+import openevolve.mapelites.listener.HypervolumeListener;
+import openevolve.mapelites.listener.MAPElitesListener;
 import openevolve.mapelites.listener.MAPElitesLoggingListener;
 import openevolve.mapelites.DefaultRepository;
 import openevolve.mapelites.MAPElites;
@@ -114,6 +116,55 @@ public class ZDT1Test {
         assertTrue(paretoFront.size() >= 2, "Should have at least 2 solutions in Pareto front");
     }
 
+    @Test
+    @DisplayName("Test ZDT1 hypervolume tracking as stop condition")
+    public void testZDT1HypervolumeStopCondition() {
+        boolean[] maximize = {false, false};
+        Function<Solution<double[]>, double[]> objectiveExtractor = solution -> new double[]{
+            (Double) solution.fitness().get("f1"),
+            (Double) solution.fitness().get("f2")
+        };
+        ParetoComparator<double[]> paretoComparator = new ParetoComparator<>(maximize, objectiveExtractor);
+        Repository<double[]> repository = new DefaultRepository<>(paretoComparator, 100, 50, 2);
+
+        // reference point just outside the objective ranges: f1 <= 1, f2 <= g <= 10
+        var hypervolume = new HypervolumeListener<>(paretoComparator, new double[]{1.1, 11.0});
+        // the random initial population already covers about 8.47
+        double target = 8.55;
+        List<Double> trace = new ArrayList<>();
+
+        MAPElites<double[]> mapElites = new MAPElites<>(
+            repository,
+            new Migration<>(MIGRATION_INTERVAL, 0.1, repository),
+            createZDT1FitnessFunctionForDim(5),
+            createZDT1EvolutionOperatorForDim(5),
+            createZDT1InitialSolutionGeneratorForDim(5),
+            createZDT1SelectionFunction(repository),
+            hypervolume.reaches(target),
+            ScaleMethod.MIN_MAX,
+            Arrays.asList("f1", "f2"), 10
+        );
+        mapElites.addListener(hypervolume);
+        mapElites.addListener(new MAPElitesListener<>() {
+            @Override
+            public void onAfterIteration(Island island, int iteration, MAPElites<double[]> m) {
+                trace.add(hypervolume.hypervolume());
+            }
+        });
+
+        mapElites.run(ITERATIONS);
+
+        assertTrue(hypervolume.hypervolume() >= target, "Run should reach the target hypervolume");
+        assertTrue(trace.size() < ITERATIONS, "Run should stop before the iteration limit");
+        for (int i = 1; i < trace.size(); i++) {
+            assertTrue(trace.get(i) >= trace.get(i - 1), "Exact hypervolume must not decrease");
+        }
+        // the tracked value covers at least the current non-dominated set of the repository
+        var check = new HypervolumeListener<>(paretoComparator, new double[]{1.1, 11.0});
+        findParetoFront(repository.findAll(), paretoComparator).forEach(check::offer);
+        assertTrue(hypervolume.hypervolume() >= check.hypervolume() - 1e-9);
+    }
+
     @Test
     @DisplayName("Test ZDT1 convergence with smaller problem size")
     public void testZDT1Convergence() {
@@ -0,0 +1,310 @@
+package openevolve.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.SocketTimeoutException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import openevolve.EvolveSolution;
+import openevolve.LLMEnsemble;
+import openevolve.LLMEnsemble.Strategy;
+import openevolve.OpenEvolveConfig.Hedging;
+import openevolve.OpenEvolveConfig.RateLimit;
+import openevolve.OpenEvolveConfig.Routing;
+import openevolve.mapelites.Repository.Solution;
+
+@DisplayName("LLMEnsemble Unit Tests")
+public class LLMEnsembleTest {
+
+	private static ChatClient answering(String content) {
+		var client = mock(ChatClient.class, RETURNS_DEEP_STUBS);
+		when(client.prompt(any(Prompt.class)).call().content()).thenReturn(content);
+		return client;
+	}
+
+	private static ChatClient timingOut() {
+		var client = mock(ChatClient.class, RETURNS_DEEP_STUBS);
+		when(client.prompt(any(Prompt.class)).call().content())
+				.thenThrow(new RuntimeException(new SocketTimeoutException("read timed out")));
+		return client;
+	}
+
+	private static ChatClient delayed(String content, AtomicLong delayMillis,
+			AtomicInteger running, AtomicInteger maxRunning) {
+		var client = mock(ChatClient.class, RETURNS_DEEP_STUBS);
+		when(client.prompt(any(Prompt.class)).call().content()).thenAnswer(_ -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(delayMillis.get());
+			} catch (InterruptedException e) {
+				// cancelled
+			} finally {
+				running.decrementAndGet();
+			}
+			return content;
+		});
+		return client;
+	}
+
+	private static Map<String, ChatClient> clients(ChatClient a, ChatClient b) {
+		var clients = new LinkedHashMap<String, ChatClient>();
+		clients.put("a", a);
+		clients.put("b", b);
+		return clients;
+	}
+
+	private static Solution<EvolveSolution> candidate(Path path) {
+		var evolved = new EvolveSolution(null, null, path, "content", "python", null, Map.of(),
+				true);
+		return new Solution<>(UUID.randomUUID(), evolved, null, Map.of("score", 1.0), 0, 0,
+				new int[] {0});
+	}
+
+	private static long routedTo(LLMEnsemble ensemble, String model, int requests) {
+		long count = 0;
+		for (int i = 0; i < requests; i++) {
+			if (ensemble.select().equals(model)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	@DisplayName("Test static weights are honoured by random routing")
+	public void testStaticWeights() {
+		var ensemble = new LLMEnsemble(new Random(1), clients(answering("a"), answering("b")),
+				Map.of("b", 0.0), new Routing(Strategy.RANDOM, null, null, null, null));
+
+		assertEquals(100, routedTo(ensemble, "a", 100));
+		assertEquals(0.0, ensemble.stats().get(1).weight());
+	}
+
+	@Test
+	@DisplayName("Test failing models lose traffic under Thompson sampling")
+	public void testThompsonAvoidsFailingModel() {
+		var ensemble = new LLMEnsemble(new Random(1), clients(answering("ok"), timingOut()),
+				Map.of(), new Routing(Strategy.THOMPSON, 0.0, 1.0, 0.0, null));
+		for (int i = 0; i < 100; i++) {
+			try {
+				ensemble.call(new Prompt("prompt"));
+			} catch (RuntimeException e) {
+				// counted as an error of model b
+			}
+		}
+
+		var stats = ensemble.stats();
+		var b = stats.get(1);
+		assertTrue(b.calls() > 0);
+		assertEquals(b.calls(), b.errors());
+		assertEquals(b.calls(), b.timeouts());
+		assertEquals(1.0, b.errorRate());
+		assertNull(b.latencyP50());
+		assertNotNull(stats.get(0).latencyP50());
+		assertTrue(routedTo(ensemble, "a", 100) > 90);
+	}
+
+	@Test
+	@DisplayName("Test improvement yield is credited to the model and steers UCB")
+	public void testYieldSteersUcb() {
+		var ensemble = new LLMEnsemble(new Random(1), clients(answering("a"), answering("b")),
+				Map.of(), new Routing(Strategy.UCB, 1.0, 0.0, 0.0, 0.1));
+		for (int i = 0; i < 20; i++) {
+			for (var model : List.of("a", "b")) {
+				var solution = candidate(Path.of(model + i));
+				ensemble.attribute(model, solution.solution());
+				if (model.equals("a")) {
+					ensemble.onCellImproved(solution, null, null, i);
+				}
+				ensemble.onSolutionGenerated(solution, List.of(), i);
+			}
+		}
+		ensemble.attribute("b", null);
+		ensemble.call(new Prompt("prompt"));
+		ensemble.call(new Prompt("prompt"));
+
+		var stats = ensemble.stats();
+		assertEquals(20, stats.get(0).improvements());
+		assertEquals(1.0, stats.get(0).yield());
+		assertEquals(21, stats.get(1).candidates());
+		assertEquals(0.0, stats.get(1).yield());
+		assertEquals(10, routedTo(ensemble, "a", 10));
+	}
+
+	@Test
+	@DisplayName("Test static weights are a prior that observed yield overrides")
+	public void testWeightIsPrior() {
+		var ensemble = new LLMEnsemble(new Random(1), clients(answering("a"), answering("b")),
+				Map.of("a", 10.0), new Routing(Strategy.UCB, 1.0, 0.0, 0.0, 0.0));
+		// without data the prior decides
+		assertEquals("a", ensemble.select());
+		ensemble.call(new Prompt("prompt"));
+		ensemble.call(new Prompt("prompt"));
+		assertEquals("a", ensemble.select());
+		for (int i = 0; i < 20; i++) {
+			for (var model : List.of("a", "b")) {
+				var solution = candidate(Path.of(model + i));
+				ensemble.attribute(model, solution.solution());
+				// a improves 10% of the time, b half of the time
+				if (i % (model.equals("a") ? 10 : 2) == 0) {
+					ensemble.onCellImproved(solution, null, null, i);
+				}
+				ensemble.onSolutionGenerated(solution, List.of(), i);
+			}
+		}
+
+		assertEquals(10, routedTo(ensemble, "b", 10));
+	}
+
+	@Test
+	@DisplayName("Test candidates of an iteration that ends without them are not credited")
+	public void testUnreportedCandidatesAreDropped() {
+		var ensemble = new LLMEnsemble(new Random(1), clients(answering("a"), answering("b")),
+				Map.of(), new Routing(Strategy.UCB, 1.0, 0.0, 0.0, 0.1));
+		ensemble.onBeforeIteration(null, 1, null);
+		var failed = candidate(Path.of("failed"));
+		ensemble.attribute("a", failed.solution());
+		ensemble.onBeforeIteration(null, 2, null);
+		var dropped = candidate(Path.of("dropped"));
+		ensemble.attribute("a", dropped.solution());
+		ensemble.onBeforeIteration(null, 3, null);
+		var reported = candidate(Path.of("reported"));
+		ensemble.attribute("a", reported.solution());
+
+		ensemble.onIterationFailed(null, 1, new IllegalStateException("evaluation failed"), null);
+		ensemble.onAfterIteration(null, 2, null);
+		for (var solution : List.of(failed, dropped, reported)) {
+			ensemble.onCellImproved(solution, null, null, 3);
+			ensemble.onSolutionGenerated(solution, List.of(), 3);
+		}
+
+		var a = ensemble.stats().get(0);
+		assertEquals(1, a.candidates());
+		assertEquals(1, a.improvements());
+	}
+
+	@Test
+	@DisplayName("Test calls over the in-flight limit wait instead of failing")
+	public void testInFlightLimit() throws Exception {
+		var running = new AtomicInteger();
+		var maxRunning = new AtomicInteger();
+		var a = delayed("a", new AtomicLong(100), running, maxRunning);
+		var ensemble = new LLMEnsemble(new Random(1), clients(a, answering("b")),
+				Map.of("b", 0.0), new Routing(Strategy.RANDOM, null, null, null, null),
+				Map.of("a", new RateLimit(2, null, null)), null);
+
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			var futures = new ArrayList<Future<LLMEnsemble.Response>>();
+			for (int i = 0; i < 6; i++) {
+				futures.add(executor.submit(() -> ensemble.call(new Prompt("prompt"))));
+			}
+			for (var future : futures) {
+				assertEquals("a", future.get().content());
+			}
+		}
+
+		assertEquals(2, maxRunning.get());
+		assertEquals(6, ensemble.stats().get(0).calls());
+	}
+
+	@Test
+	@DisplayName("Test slow calls are hedged to another model")
+	public void testHedging() {
+		var delay = new AtomicLong(0);
+		var a = delayed("a", delay, new AtomicInteger(), new AtomicInteger());
+		var ensemble = new LLMEnsemble(new Random(1), clients(a, answering("b")),
+				Map.of("a", 1000.0), new Routing(Strategy.RANDOM, null, null, null, null),
+				Map.of(), new Hedging(0.95, 5));
+		// hedging starts once model a has minSamples latencies
+		for (int i = 0; i < 5; i++) {
+			ensemble.call(new Prompt("prompt"));
+		}
+		delay.set(5000);
+
+		long start = System.nanoTime();
+		var response = ensemble.call(new Prompt("prompt"));
+
+		assertTrue(System.nanoTime() - start < 3_000_000_000L, "The hedge must answer first");
+		assertEquals("b", response.model());
+		assertEquals("b", response.content());
+		var b = ensemble.stats().get(1);
+		assertEquals(1, b.hedges());
+		assertEquals(1, b.hedgeWins());
+	}
+
+	@Test
+	@DisplayName("Test waiting for capacity does not trigger a hedge")
+	public void testThrottledCallIsNotHedged() throws Exception {
+		var delay = new AtomicLong(200);
+		var a = delayed("a", delay, new AtomicInteger(), new AtomicInteger());
+		var streaming = new CountDownLatch(1);
+		// a streamed call holds the only in-flight slot of model a for a while
+		when(a.prompt(any(Prompt.class)).stream().content()).thenReturn(Flux.defer(() -> {
+			streaming.countDown();
+			return Flux.just("a").delayElements(Duration.ofMillis(1000));
+		}));
+		var ensemble = new LLMEnsemble(new Random(1), clients(a, answering("b")),
+				Map.of("a", 1000.0), new Routing(Strategy.RANDOM, null, null, null, null),
+				Map.of("a", new RateLimit(1, null, null)), new Hedging(0.95, 5));
+		for (int i = 0; i < 5; i++) {
+			ensemble.call(new Prompt("prompt"));
+		}
+		delay.set(0);
+
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			var stream = executor.submit(() -> ensemble.stream(new Prompt("prompt"), _ -> true));
+			streaming.await();
+			long start = System.nanoTime();
+			var response = ensemble.call(new Prompt("prompt"));
+
+			assertTrue(System.nanoTime() - start > 500_000_000L, "The call must wait for a");
+			assertEquals("a", response.model());
+			assertEquals("a", stream.get().content());
+		}
+		assertEquals(0, ensemble.stats().get(1).hedges());
+	}
+
+	@Test
+	@DisplayName("Test a rejected stream is cancelled and counted as aborted")
+	public void testStreamAbort() {
+		var cancelled = new AtomicBoolean();
+		var a = mock(ChatClient.class, RETURNS_DEEP_STUBS);
+		when(a.prompt(any(Prompt.class)).stream().content()).thenReturn(
+				Flux.just("one ", "two ", "bad ", "three").concatWith(Flux.never())
+						.doOnCancel(() -> cancelled.set(true)));
+		var ensemble = new LLMEnsemble(new Random(1), clients(a, answering("b")),
+				Map.of("b", 0.0), new Routing(Strategy.RANDOM, null, null, null, null));
+
+		var response = ensemble.stream(new Prompt("prompt"), chunk -> !chunk.equals("bad "));
+
+		assertEquals("one two bad ", response.content());
+		assertTrue(cancelled.get());
+		var stats = ensemble.stats().get(0);
+		assertEquals(1, stats.calls());
+		assertEquals(1, stats.aborts());
+		assertEquals(0, stats.errors());
+	}
+}
@@ -0,0 +1,139 @@
+package openevolve.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import openevolve.Constants;
+import openevolve.EvolveSolution;
+import openevolve.EvolveStep;
+import openevolve.LLMEnsemble;
+import openevolve.OpenEvolveAgent;
+import openevolve.mapelites.Repository.Solution;
+
+@DisplayName("OpenEvolveAgent Unit Tests")
+public class OpenEvolveAgentTest {
+
+	private static Solution<EvolveSolution> solution(String content) {
+		var evolved = new EvolveSolution(null, null, Path.of("solutions", "parent"), content,
+				"python", null, Map.of(), false);
+		return new Solution<>(UUID.randomUUID(), evolved, null, Map.of("score", 1.0), 0, 0,
+				new int[] {0});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static LLMEnsemble answering(String content) {
+		var ensemble = mock(LLMEnsemble.class);
+		when(ensemble.call(any(Function.class))).thenReturn(new LLMEnsemble.Response("a", content));
+		return ensemble;
+	}
+
+	/**
+	 * @return the prompts the agent built for {@code models}, the LLM answers without a diff
+	 */
+	@SuppressWarnings("unchecked")
+	private static List<String> prompts(Map<String, Integer> promptTokens, EvolveStep step,
+			String... models) {
+		var ensemble = mock(LLMEnsemble.class);
+		var prompts = new ArrayList<String>();
+		when(ensemble.call(any(Function.class))).thenAnswer(invocation -> {
+			Function<String, Prompt> prompt = invocation.getArgument(0);
+			for (var model : models) {
+				prompts.add(prompt.apply(model).getContents());
+			}
+			return new LLMEnsemble.Response(models[0], "no changes");
+		});
+		var agent = new OpenEvolveAgent(Constants.DEFAULT_PROMPTS, ensemble, new Random(1), 3, 0,
+				null, null, promptTokens, 1);
+		assertNull(agent.apply(step));
+		return prompts;
+	}
+
+	@Test
+	@DisplayName("Test low-priority parents are truncated and dropped to fit the budget")
+	public void testPromptBudget() {
+		var step = new EvolveStep(solution("x = 1"), List.of(), List.of(),
+				List.of(solution("a".repeat(2000)), solution("b".repeat(2000)),
+						solution("c".repeat(2000))));
+		int full = prompts(Map.of(), step, "any").get(0).length();
+		int budget = (full - 3000) / 4;
+
+		var prompts = prompts(Map.of("small", budget), step, "small", "large");
+
+		var small = prompts.get(0);
+		assertTrue(small.length() <= budget * 4);
+		assertTrue(small.contains("a".repeat(2000)));
+		assertTrue(small.contains("Parent Solution 2"));
+		assertTrue(small.contains("... (truncated)"));
+		assertFalse(small.contains("b".repeat(2000)));
+		assertFalse(small.contains("Parent Solution 3"));
+		assertTrue(small.contains("x = 1"));
+		assertEquals(full, prompts.get(1).length());
+	}
+
+	@Test
+	@DisplayName("Test parents that would keep too little code are dropped")
+	public void testPromptBudgetDropsShortRemainder() {
+		var step = new EvolveStep(solution("x = 1"), List.of(), List.of(),
+				List.of(solution("a".repeat(2000)), solution("b".repeat(2000))));
+		int full = prompts(Map.of(), step, "any").get(0).length();
+		int budget = (full - 1900) / 4;
+
+		var small = prompts(Map.of("small", budget), step, "small").get(0);
+
+		assertTrue(small.contains("Parent Solution 1"));
+		assertFalse(small.contains("Parent Solution 2"));
+		assertFalse(small.contains("(truncated)"));
+	}
+
+	@Test
+	@DisplayName("Test one response with several proposals yields one child per proposal")
+	public void testBatch() {
+		var parent = solution("x = 1\ny = 2");
+		var response = """
+				Two ideas.
+				### Proposal 1
+				<<<<<<< SEARCH
+				x = 1
+				=======
+				x = 3
+				>>>>>>> REPLACE
+				### Proposal 2
+				<<<<<<< SEARCH
+				y = 2
+				=======
+				y = 4
+				>>>>>>> REPLACE
+				### Proposal 3
+				no diff here
+				""";
+		var ensemble = answering(response);
+		var agent = new OpenEvolveAgent(Constants.DEFAULT_PROMPTS, ensemble, new Random(1), 3, 0,
+				null, null, Map.of(), 3);
+
+		var children = agent.evolve(new EvolveStep(parent, List.of(), List.of(), List.of()));
+
+		assertEquals(2, children.size());
+		assertEquals("x = 3\ny = 2", children.get(0).content());
+		assertEquals("x = 1\ny = 4", children.get(1).content());
+		assertNotEquals(children.get(0).path(), children.get(1).path());
+		// every proposal counts towards the yield of the model
+		verify(ensemble).attribute("a", children.get(0));
+		verify(ensemble).attribute("a", children.get(1));
+		verify(ensemble).attribute("a", null);
+	}
+}
@@ -0,0 +1,178 @@
+package openevolve.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import openevolve.Constants;
+import openevolve.EvolveSolution;
+import openevolve.OpenEvolveEvaluator;
+import openevolve.mapelites.EvaluationCache;
+import openevolve.util.BashExecutor;
+import openevolve.util.RepeatedMeasurement;
+import openevolve.util.WorkerPool;
+import openevolve.util.WorkspaceMaterializer;
+
+@DisplayName("OpenEvolveEvaluator Unit Tests")
+public class OpenEvolveEvaluatorTest {
+
+	@TempDir
+	Path tempDir;
+
+	private static EvolveSolution solution(Path parentPath, Path path, String code) {
+		var content = Constants.SOURCE_START + "main.py" + Constants.SOURCE_END
+				+ System.lineSeparator() + code + System.lineSeparator();
+		return new EvolveSolution(null, parentPath, path, content, "python", null, Map.of(),
+				false);
+	}
+
+	@Test
+	@DisplayName("Test children of a cached candidate are evaluated in a workspace built from it")
+	public void testChildOfCacheHit() throws Exception {
+		var source = Files.createDirectories(tempDir.resolve("source"));
+		Files.writeString(source.resolve("data.txt"), "dataset");
+		var runner = tempDir.resolve("runner.sh");
+		// fails unless the workspace was built from the original directory
+		Files.writeString(runner, """
+				#!/bin/bash
+				test -f data.txt || exit 1
+				echo '{"combined_score": 1.0}'
+				""");
+		var evaluator = new OpenEvolveEvaluator(runner, List.of(Constants.COMBINED_SCORE),
+				Duration.ofSeconds(30), Constants.OBJECT_MAPPER, null,
+				new WorkspaceMaterializer(WorkspaceMaterializer.Strategy.COPY), null, null,
+				BashExecutor.Limits.NONE, null, null);
+		var cache = new EvaluationCache<EvolveSolution>(evaluator::fingerprint, 10,
+				fitness -> !fitness.containsKey("error"), null, null, evaluator::prepare);
+		var scratch = tempDir.resolve("scratch");
+
+		var first = cache.evaluate(solution(source, scratch.resolve("a"), "x = 1"), evaluator);
+		// same content from another run, e.g. a no-op diff or a restart
+		var parent = solution(source, scratch.resolve("b"), "x = 1");
+		var hit = cache.evaluate(parent, evaluator);
+		var child = cache.evaluate(solution(parent.path(), scratch.resolve("c"), "x = 2"),
+				evaluator);
+
+		assertFalse(first.hit());
+		assertTrue(hit.hit());
+		assertTrue(Files.isRegularFile(parent.path().resolve("data.txt")));
+		assertFalse(child.hit());
+		assertFalse(child.fitness().containsKey("error"), String.valueOf(child.fitness()));
+		assertEquals("x = 2" + System.lineSeparator(),
+				Files.readString(scratch.resolve("c").resolve("main.py")));
+	}
+
+	@Test
+	@DisplayName("Test a cached candidate whose workspace cannot be built is evaluated again")
+	public void testFailedPrepareIsAMiss() throws Exception {
+		var runner = tempDir.resolve("runner.sh");
+		Files.writeString(runner, "#!/bin/bash\necho '{\"combined_score\": 1.0}'\n");
+		var evaluator = new OpenEvolveEvaluator(runner, List.of(Constants.COMBINED_SCORE),
+				Duration.ofSeconds(30), Constants.OBJECT_MAPPER);
+		var cache = new EvaluationCache<EvolveSolution>(evaluator::fingerprint, 10,
+				fitness -> !fitness.containsKey("error"), null, null, evaluator::prepare);
+		var source = Files.createDirectories(tempDir.resolve("source"));
+
+		cache.evaluate(solution(source, tempDir.resolve("a"), "x = 1"), evaluator);
+		var lookup = cache.evaluate(solution(tempDir.resolve("missing"), tempDir.resolve("b"),
+				"x = 1"), evaluator);
+
+		assertFalse(lookup.hit());
+		assertTrue(lookup.fitness().containsKey("error"));
+		assertEquals(new EvaluationCache.Stats(0, 2, 1), cache.stats());
+	}
+
+	@Test
+	@DisplayName("Test concurrent repeated runs do not share a working directory")
+	public void testRepeatedRunsAreIsolated() throws Exception {
+		var source = Files.createDirectories(tempDir.resolve("source"));
+		var runner = tempDir.resolve("runner.sh");
+		// fails if another run overwrote its output in the meantime
+		Files.writeString(runner, """
+				#!/bin/bash
+				echo $$ > out.txt
+				sleep 0.2
+				[ "$(cat out.txt)" = "$$" ] || exit 1
+				echo '{"combined_score": 1.0}'
+				""");
+		var evaluator = new OpenEvolveEvaluator(runner, List.of(Constants.COMBINED_SCORE),
+				Duration.ofSeconds(30), Constants.OBJECT_MAPPER, null,
+				new WorkspaceMaterializer(WorkspaceMaterializer.Strategy.LINK), null, null,
+				BashExecutor.Limits.NONE, null, new RepeatedMeasurement(3, 3,
+						RepeatedMeasurement.Aggregate.MEDIAN, 0.2, 0.05, 0.02, 3));
+		var scratch = tempDir.resolve("scratch");
+
+		var result = evaluator.apply(solution(source, scratch.resolve("a"), "x = 1"));
+
+		assertFalse(result.containsKey("error"), String.valueOf(result));
+		assertEquals(3, ((Map<?, ?>) result.get(RepeatedMeasurement.MEASUREMENT)).get("runs"));
+		try (var children = Files.list(scratch)) {
+			assertEquals(List.of(scratch.resolve("a")), children.toList(),
+					"Run directories must be deleted");
+		}
+	}
+
+	@Test
+	@DisplayName("Test the fingerprint covers the worker script in pool mode")
+	public void testFingerprintCoversPoolScript() throws Exception {
+		var runner = tempDir.resolve("runner.sh");
+		Files.writeString(runner, "#!/bin/bash\n");
+		var script = tempDir.resolve("worker.sh");
+		Files.writeString(script, "#!/bin/bash\n# version 1\n");
+		var solution = solution(tempDir, tempDir.resolve("a"), "x = 1");
+
+		var before = pooled(runner, script).fingerprint(solution);
+		Files.writeString(script, "#!/bin/bash\n# version 2\n");
+		var after = pooled(runner, script).fingerprint(solution);
+
+		assertNotEquals(before, after);
+		assertNotEquals(after, new OpenEvolveEvaluator(runner, List.of(Constants.COMBINED_SCORE),
+				Duration.ofSeconds(30), Constants.OBJECT_MAPPER).fingerprint(solution));
+	}
+
+	@Test
+	@DisplayName("Test the fingerprint covers the repetition settings but not the parallelism")
+	public void testFingerprintCoversRepetition() throws Exception {
+		var runner = tempDir.resolve("runner.sh");
+		Files.writeString(runner, "#!/bin/bash\n");
+		var solution = solution(tempDir, tempDir.resolve("a"), "x = 1");
+
+		var single = repeated(runner, null).fingerprint(solution);
+		var median = repeated(runner, new RepeatedMeasurement(3, 5,
+				RepeatedMeasurement.Aggregate.MEDIAN, 0.2, 0.05, 0.02, 1)).fingerprint(solution);
+		var parallel = repeated(runner, new RepeatedMeasurement(3, 5,
+				RepeatedMeasurement.Aggregate.MEDIAN, 0.2, 0.05, 0.02, 4)).fingerprint(solution);
+		var trimmed = repeated(runner, new RepeatedMeasurement(3, 5,
+				RepeatedMeasurement.Aggregate.TRIMMED_MEAN, 0.2, 0.05, 0.02, 1))
+				.fingerprint(solution);
+
+		assertNotEquals(single, median);
+		assertNotEquals(median, trimmed);
+		assertEquals(median, parallel);
+	}
+
+	private static OpenEvolveEvaluator repeated(Path runner, RepeatedMeasurement repetition) {
+		return new OpenEvolveEvaluator(runner, List.of(Constants.COMBINED_SCORE),
+				Duration.ofSeconds(30), Constants.OBJECT_MAPPER, null,
+				new WorkspaceMaterializer(WorkspaceMaterializer.Strategy.COPY), null, null,
+				BashExecutor.Limits.NONE, null, repetition);
+	}
+
+	private static OpenEvolveEvaluator pooled(Path runner, Path script) {
+		// workers are started lazily, so none is started here
+		var pool = new WorkerPool(script, null, 1, 10, Duration.ofSeconds(30),
+				Duration.ofSeconds(30), Constants.OBJECT_MAPPER);
+		return new OpenEvolveEvaluator(runner, List.of(Constants.COMBINED_SCORE),
+				Duration.ofSeconds(30), Constants.OBJECT_MAPPER, null,
+				new WorkspaceMaterializer(WorkspaceMaterializer.Strategy.COPY), pool, null,
+				BashExecutor.Limits.NONE, null, null);
+	}
+}
@@ -0,0 +1,151 @@
+package openevolve.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import openevolve.EvolveSolution;
+import openevolve.WorkspaceManager;
+import openevolve.mapelites.Cascade;
+import openevolve.mapelites.DefaultRepository;
+import openevolve.mapelites.Repository;
+import openevolve.mapelites.Repository.Island;
+import openevolve.mapelites.Repository.Solution;
+
+@DisplayName("WorkspaceManager Unit Tests")
+public class WorkspaceManagerTest {
+
+	@TempDir
+	Path tempDir;
+
+	private WorkspaceManager workspaces;
+	private Repository<EvolveSolution> repository;
+
+	@BeforeEach
+	void setUp() {
+		workspaces = new WorkspaceManager(tempDir.resolve("solutions"));
+		repository = new DefaultRepository<>(
+				(a, b) -> Double.compare((Double) a.fitness().get("score"),
+						(Double) b.fitness().get("score")),
+				2, 2, 2);
+		repository.addChangeListener(workspaces);
+	}
+
+	private Solution<EvolveSolution> materialize(double score, int islandId) throws Exception {
+		var path = workspaces.allocate();
+		Files.createDirectories(path);
+		Files.writeString(path.resolve("main.py"), "print(" + score + ")\n");
+		var evolved = new EvolveSolution(null, tempDir, path, "content", "python", null, Map.of(),
+				true);
+		return new Solution<>(UUID.randomUUID(), evolved, null, Map.of("score", score), 0,
+				islandId, new int[] {0});
+	}
+
+	@Test
+	@DisplayName("Test evicted solution directories are deleted")
+	public void testEvictionDeletesDirectory() throws Exception {
+		var best = materialize(3.0, 0);
+		var worst = materialize(1.0, 0);
+		var newest = materialize(2.0, 0);
+		repository.save(best);
+		repository.save(worst);
+		repository.save(newest);
+		workspaces.close();
+
+		assertNull(repository.findById(worst.id()));
+		assertFalse(Files.exists(worst.solution().path()), "Evicted directory must be deleted");
+		assertTrue(Files.exists(best.solution().path()));
+		assertTrue(Files.exists(newest.solution().path()));
+	}
+
+	@Test
+	@DisplayName("Test migrated copies keep the shared directory alive")
+	public void testMigratedCopySharesDirectory() throws Exception {
+		var original = materialize(1.0, 0);
+		repository.save(original);
+		var copy = original.copy(1);
+		repository.save(copy);
+
+		repository.delete(original.id());
+		repository.delete(copy.id());
+		workspaces.close();
+
+		assertFalse(Files.exists(original.solution().path()));
+	}
+
+	@Test
+	@DisplayName("Test selected parents are kept until their iteration completes")
+	public void testPinnedParentSurvivesEviction() throws Exception {
+		var parent = materialize(1.0, 0);
+		repository.save(parent);
+		var island = new Island(0);
+		workspaces.onSolutionSelection(List.of(parent), island, 7);
+
+		repository.delete(parent.id());
+		workspaces.onAfterIteration(island, 6, null);
+		Thread.sleep(50);
+		assertTrue(Files.exists(parent.solution().path()), "Pinned parent must not be deleted");
+
+		workspaces.onAfterIteration(island, 7, null);
+		workspaces.close();
+		assertFalse(Files.exists(parent.solution().path()));
+	}
+
+	@Test
+	@DisplayName("Test selected parents are released when their iteration fails")
+	public void testFailedIterationReleasesPins() throws Exception {
+		var parent = materialize(1.0, 0);
+		repository.save(parent);
+		var island = new Island(0);
+		workspaces.onSolutionSelection(List.of(parent), island, 3);
+
+		repository.delete(parent.id());
+		workspaces.onIterationFailed(island, 3, new RuntimeException("LLM error"), null);
+		workspaces.close();
+		assertFalse(Files.exists(parent.solution().path()));
+	}
+
+	@Test
+	@DisplayName("Test directories outside the root are never deleted")
+	public void testOutsideRootIsKept() throws Exception {
+		var outside = tempDir.resolve("solution");
+		Files.createDirectories(outside);
+		var evolved = new EvolveSolution(null, null, outside, "content", "python", null, Map.of(),
+				true);
+		var solution = new Solution<>(UUID.randomUUID(), evolved, null, Map.of("score", 1.0), 0,
+				0, new int[] {0});
+		repository.save(solution);
+		repository.delete(solution.id());
+		workspaces.close();
+
+		assertTrue(Files.exists(outside));
+	}
+
+	@Test
+	@DisplayName("Test directories of candidates rejected by the cascade are deleted")
+	public void testRejectedCandidateDeletesDirectory() throws Exception {
+		var parent = materialize(2.0, 0);
+		repository.save(parent);
+		var passed = materialize(1.0, 0);
+		var candidate = materialize(0.5, 0);
+		var rejected = new Solution<>(candidate.id(), candidate.solution(), null,
+				Map.of("score", 0.5, Cascade.REJECTED_AT, "cheap"), 0, 0, new int[] {0});
+
+		workspaces.onSolutionGenerated(passed, List.of(parent), 1);
+		workspaces.onSolutionGenerated(rejected, List.of(parent), 1);
+		workspaces.close();
+
+		assertFalse(Files.exists(rejected.solution().path()), "Rejected directory must be deleted");
+		assertTrue(Files.exists(passed.solution().path()));
+		assertTrue(Files.exists(parent.solution().path()));
+	}
+}
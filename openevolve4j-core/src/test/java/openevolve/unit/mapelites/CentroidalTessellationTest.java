@@ -0,0 +1,149 @@
+package openevolve.unit.mapelites;
+
+import org.junit.jupiter.api.Test;
+import openevolve.mapelites.CentroidalTessellation;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CentroidalTessellation Unit Tests")
+public class CentroidalTessellationTest {
+
+	private int bruteForce(CentroidalTessellation tessellation, double[] point) {
+		int best = -1;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < tessellation.size(); i++) {
+			var centroid = tessellation.centroid(i);
+			double distance = 0.0;
+			for (int k = 0; k < point.length; k++) {
+				distance += (point[k] - centroid[k]) * (point[k] - centroid[k]);
+			}
+			if (distance < bestDistance) {
+				bestDistance = distance;
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	@Test
+	@DisplayName("Test k-d tree lookup matches a linear scan")
+	public void testNearestMatchesBruteForce() {
+		var random = new Random(7);
+		for (int dimensions : new int[] {1, 2, 3, 12}) {
+			var centroids = new double[500][dimensions];
+			for (var centroid : centroids) {
+				for (int k = 0; k < dimensions; k++) {
+					// coarse values force ties along split coordinates
+					centroid[k] = random.nextInt(20) / 20.0;
+				}
+			}
+			var tessellation = new CentroidalTessellation(centroids);
+			for (int i = 0; i < 2000; i++) {
+				var point = new double[dimensions];
+				for (int k = 0; k < dimensions; k++) {
+					point[k] = random.nextDouble() * 1.2 - 0.1;
+				}
+				int nearest = tessellation.nearest(point);
+				assertArrayEquals(tessellation.centroid(bruteForce(tessellation, point)),
+						tessellation.centroid(nearest), "d=" + dimensions);
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("Test k nearest lookup matches a sorted linear scan")
+	public void testKNearestMatchesBruteForce() {
+		var random = new Random(11);
+		for (int dimensions : new int[] {1, 3, 8}) {
+			var centroids = new double[300][dimensions];
+			for (var centroid : centroids) {
+				for (int k = 0; k < dimensions; k++) {
+					centroid[k] = random.nextDouble();
+				}
+			}
+			var tessellation = new CentroidalTessellation(centroids);
+			for (int i = 0; i < 200; i++) {
+				var point = new double[dimensions];
+				for (int k = 0; k < dimensions; k++) {
+					point[k] = random.nextDouble();
+				}
+				var distances = new double[centroids.length];
+				for (int c = 0; c < centroids.length; c++) {
+					for (int k = 0; k < dimensions; k++) {
+						distances[c] += (point[k] - centroids[c][k]) * (point[k] - centroids[c][k]);
+					}
+				}
+				var expected = IntStream.range(0, centroids.length).boxed()
+						.sorted(Comparator.comparingDouble(c -> distances[c]))
+						.mapToInt(Integer::intValue).toArray();
+				for (int k : new int[] {1, 7, 40}) {
+					assertArrayEquals(Arrays.copyOf(expected, k), tessellation.nearest(point, k),
+							"d=" + dimensions + ", k=" + k);
+				}
+			}
+		}
+		var small = new CentroidalTessellation(new double[][] {{0.1}, {0.9}});
+		assertArrayEquals(new int[] {1, 0}, small.nearest(new double[] {0.8}, 5));
+	}
+
+	@Test
+	@DisplayName("Test neighbours are the closest other centroids")
+	public void testNeighbours() {
+		// ids are not in spatial order
+		var tessellation = new CentroidalTessellation(
+				new double[][] {{0.5}, {0.0}, {0.45}, {0.9}, {0.62}, {0.2}});
+
+		assertArrayEquals(new int[] {2, 4}, tessellation.neighbours(0, 2));
+		assertArrayEquals(new int[] {5, 2, 0}, tessellation.neighbours(1, 3));
+		assertEquals(5, tessellation.neighbours(3, 10).length);
+	}
+
+	@Test
+	@DisplayName("Test k-means centroids are reproducible and cover the unit cube")
+	public void testComputeIsSeeded() {
+		var a = CentroidalTessellation.compute(10, 64, 64 * 20, 10, 42);
+		var b = CentroidalTessellation.compute(10, 64, 64 * 20, 10, 42);
+		var c = CentroidalTessellation.compute(10, 64, 64 * 20, 10, 43);
+
+		assertEquals(64, a.size());
+		assertEquals(10, a.dimensions());
+		boolean differs = false;
+		for (int i = 0; i < a.size(); i++) {
+			assertArrayEquals(a.centroid(i), b.centroid(i));
+			differs |= !Arrays.equals(a.centroid(i), c.centroid(i));
+			for (double value : a.centroid(i)) {
+				assertTrue(value >= 0.0 && value <= 1.0);
+			}
+		}
+		assertTrue(differs, "Another seed should place other centroids");
+	}
+
+	@Test
+	@DisplayName("Test Lloyd iterations spread centroids evenly in one dimension")
+	public void testLloydConverges() {
+		var tessellation = CentroidalTessellation.compute(1, 4, 4000, 100, 1);
+		var positions = new double[4];
+		for (int i = 0; i < 4; i++) {
+			positions[i] = tessellation.centroid(i)[0];
+		}
+		Arrays.sort(positions);
+		// the optimal quantizer of U(0, 1) with 4 levels sits at the bin midpoints
+		assertArrayEquals(new double[] {0.125, 0.375, 0.625, 0.875}, positions, 0.02);
+	}
+
+	@Test
+	@DisplayName("Test validation")
+	public void testValidation() {
+		assertThrows(IllegalArgumentException.class, () -> CentroidalTessellation.compute(2, 10, 5, 1, 0));
+		assertThrows(IllegalArgumentException.class, () -> new CentroidalTessellation(new double[0][]));
+		assertThrows(IllegalArgumentException.class,
+				() -> new CentroidalTessellation(new double[][] {{0.1, 0.2}, {0.3}}));
+		var tessellation = new CentroidalTessellation(new double[][] {{0.1, 0.2}});
+		assertThrows(IllegalArgumentException.class, () -> tessellation.nearest(new double[] {0.5}));
+	}
+}
@@ -0,0 +1,64 @@
+package openevolve.unit.mapelites;
+
+import org.junit.jupiter.api.Test;
+import openevolve.mapelites.ConcurrentRepository;
+import openevolve.mapelites.Repository;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ConcurrentRepository Unit Tests")
+public class ConcurrentRepositoryTest extends DefaultRepositoryTest {
+
+	@Override
+	protected Repository<String> createRepository(Comparator<Repository.Solution<String>> comparator,
+			int populationSize, int archiveSize, int numIslands) {
+		return new ConcurrentRepository<>(comparator, populationSize, archiveSize, numIslands);
+	}
+
+	@Test
+	@DisplayName("Test concurrent saves across islands keep indexes consistent")
+	public void testConcurrentSaves() {
+		int islands = 4;
+		int writers = 8;
+		int populationSize = 200;
+		int archiveSize = 20;
+		Repository<String> repo = createRepository(standardComparator, populationSize, archiveSize, islands);
+
+		try (var executor = Executors.newFixedThreadPool(writers)) {
+			for (int w = 0; w < writers; w++) {
+				int island = w % islands;
+				executor.submit(() -> {
+					for (int i = 0; i < 500; i++) {
+						repo.save(makeSolution(ThreadLocalRandom.current().nextDouble(), island));
+						repo.findByIslandId(island);
+					}
+				});
+			}
+		}
+
+		assertTrue(repo.count() <= populationSize, "Population must be trimmed");
+		assertTrue(repo.count() >= populationSize - writers, "Trimming may only overshoot per writer");
+		assertTrue(repo.getArchive().size() <= archiveSize, "Archive must stay bounded");
+
+		int total = 0;
+		for (var island : repo.findAllIslands()) {
+			var members = repo.findByIslandId(island.id());
+			assertEquals(island.size(), members.size(), "Island index and membership must agree");
+			members.forEach(s -> assertNotNull(repo.findById(s.id())));
+			total += members.size();
+		}
+		assertEquals(repo.count(), total);
+		assertEquals(repo.findAll().size(), repo.count());
+
+		// ordered index: best first
+		var all = repo.findAll();
+		for (int i = 1; i < all.size(); i++) {
+			assertTrue(repo.compare(all.get(i - 1), all.get(i)) >= 0);
+		}
+		assertEquals(all.getFirst(), repo.best());
+	}
+}
@@ -13,7 +13,7 @@ import static org.junit.jupiter.api.Assertions.*;
 @DisplayName("DefaultRepository Unit Tests")
 public class DefaultRepositoryTest {
 
-	private Comparator<Repository.Solution<String>> standardComparator;
+	protected Comparator<Repository.Solution<String>> standardComparator;
 
 	@BeforeEach
 	void setUp() {
@@ -24,7 +24,12 @@ public class DefaultRepositoryTest {
 		};
 	}
 
-	private Repository.Solution<String> makeSolution(double fitness, int islandId) {
+	protected Repository<String> createRepository(Comparator<Repository.Solution<String>> comparator,
+			int populationSize, int archiveSize, int numIslands) {
+		return new DefaultRepository<>(comparator, populationSize, archiveSize, numIslands);
+	}
+
+	protected Repository.Solution<String> makeSolution(double fitness, int islandId) {
 		Map<String, Object> fitnessMap = new HashMap<>();
 		fitnessMap.put("fitness", fitness);
 		return new Repository.Solution<>(UUID.randomUUID(), "sol", null, fitnessMap, 0, islandId,
@@ -41,7 +46,7 @@ public class DefaultRepositoryTest {
 	@Test
 	@DisplayName("Test basic CRUD operations")
 	public void testSaveFindDeleteSimple() {
-		Repository<String> repo = new DefaultRepository<>(standardComparator, 10, 5, 2);
+		Repository<String> repo = createRepository(standardComparator, 10, 5, 2);
 
 		var s = makeSolution(1.23, 0);
 		repo.save(s);
@@ -58,7 +63,7 @@ public class DefaultRepositoryTest {
 	@Test
 	@DisplayName("Test island assignment and island-specific queries")
 	public void testIslandAssignmentAndFindByIsland() {
-		Repository<String> repo = new DefaultRepository<>(standardComparator, 10, 5, 3);
+		Repository<String> repo = createRepository(standardComparator, 10, 5, 3);
 
 		var s0 = makeSolution(0.1, 0);
 		var s1 = makeSolution(0.2, 1);
@@ -83,8 +88,8 @@ public class DefaultRepositoryTest {
 	@Test
 	@DisplayName("Test population trimming keeps best solutions")
 	public void testPopulationTrimmingKeepsBest() {
-		// comparator ascending; DefaultRepository reverses comparator to treat larger as better
-		DefaultRepository<String> repo = new DefaultRepository<>(standardComparator, 2, 1, 2);
+		// comparator ascending; the repository reverses comparator to treat larger as better
+		Repository<String> repo = createRepository(standardComparator, 2, 1, 2);
 
 		var s1 = makeSolution(1.0, 0);
 		var s2 = makeSolution(2.0, 0);
@@ -106,7 +111,7 @@ public class DefaultRepositoryTest {
 	@Test
 	@DisplayName("Test archive replacement keeps better solutions")
 	public void testArchiveReplacementKeepsBetter() {
-		DefaultRepository<String> repo = new DefaultRepository<>(standardComparator, 10, 1, 1);
+		Repository<String> repo = createRepository(standardComparator, 10, 1, 1);
 
 		var low = makeSolution(1.0, 0);
 		var high = makeSolution(5.0, 0);
@@ -132,7 +137,7 @@ public class DefaultRepositoryTest {
 				new ParetoComparator<>(maximize, s -> (double[]) s.fitness().get("objs"));
 
 		// small population size to force trimming to the Pareto front
-		DefaultRepository<String> repo = new DefaultRepository<>(pareto, 2, 2, 1);
+		Repository<String> repo = createRepository(pareto, 2, 2, 1);
 
 		var s1 = makeMultiObjectiveSolution(new double[] {1.0, 1.0}, 0);
 		var s2 = makeMultiObjectiveSolution(new double[] {2.0, 0.0}, 0);
@@ -158,26 +163,26 @@ public class DefaultRepositoryTest {
 	@DisplayName("Test repository constructor validation")
 	public void testConstructorValidation() {
 		assertThrows(NullPointerException.class, () ->
-			new DefaultRepository<String>(null, 10, 5, 2),
+			createRepository(null, 10, 5, 2),
 			"Should throw when comparator is null");
 
 		assertThrows(IllegalArgumentException.class, () ->
-			new DefaultRepository<String>(standardComparator, -1, 5, 2),
+			createRepository(standardComparator, -1, 5, 2),
 			"Should throw when populationSize is negative");
 
 		assertThrows(IllegalArgumentException.class, () ->
-			new DefaultRepository<String>(standardComparator, 10, -1, 2),
+			createRepository(standardComparator, 10, -1, 2),
 			"Should throw when archiveSize is negative");
 
 		assertThrows(IllegalArgumentException.class, () ->
-			new DefaultRepository<String>(standardComparator, 10, 5, 0),
+			createRepository(standardComparator, 10, 5, 0),
 			"Should throw when numIslands is zero");
 	}
 
 	@Test
 	@DisplayName("Test edge cases with empty repository")
 	public void testEmptyRepositoryBehavior() {
-		Repository<String> repo = new DefaultRepository<>(standardComparator, 10, 5, 2);
+		Repository<String> repo = createRepository(standardComparator, 10, 5, 2);
 
 		assertEquals(0, repo.count());
 		assertTrue(repo.findAll().isEmpty());
@@ -192,7 +197,7 @@ public class DefaultRepositoryTest {
 	@Test
 	@DisplayName("Test repository with different island distributions")
 	public void testMultipleIslandBehavior() {
-		Repository<String> repo = new DefaultRepository<>(standardComparator, 10, 5, 3);
+		Repository<String> repo = createRepository(standardComparator, 10, 5, 3);
 
 		// Add solutions to different islands
 		var s0a = makeSolution(1.0, 0);
@@ -220,7 +225,7 @@ public class DefaultRepositoryTest {
 	@Test
 	@DisplayName("Test repository snapshot functionality")
 	public void testSnapshotFunctionality() {
-		Repository<String> repo = new DefaultRepository<>(standardComparator, 10, 5, 2);
+		Repository<String> repo = createRepository(standardComparator, 10, 5, 2);
 
 		var s1 = makeSolution(1.0, 0);
 		var s2 = makeSolution(2.0, 1);
@@ -238,8 +243,8 @@ public class DefaultRepositoryTest {
 	@Test
 	@DisplayName("Test repository restoration from snapshot")
 	public void testRestoreFromSnapshot() {
-		Repository<String> repo1 = new DefaultRepository<>(standardComparator, 10, 5, 2);
-		Repository<String> repo2 = new DefaultRepository<>(standardComparator, 10, 5, 2);
+		Repository<String> repo1 = createRepository(standardComparator, 10, 5, 2);
+		Repository<String> repo2 = createRepository(standardComparator, 10, 5, 2);
 
 		var s1 = makeSolution(1.0, 0);
 		var s2 = makeSolution(2.0, 1);
@@ -252,4 +257,90 @@ public class DefaultRepositoryTest {
 		assertEquals(repo1.count(), repo2.count());
 		assertEquals(repo1.findAll().size(), repo2.findAll().size());
 	}
+
+	@Test
+	@DisplayName("Test query results are ordered read-only snapshots")
+	public void testOrderedReadOnlyViews() {
+		Repository<String> repo = createRepository(standardComparator, 10, 2, 2);
+
+		var low = makeSolution(1.0, 0);
+		var mid = makeSolution(2.0, 0);
+		var other = makeSolution(5.0, 1);
+		repo.save(low);
+		repo.save(other);
+		repo.save(mid);
+
+		var island0 = repo.findByIslandId(0);
+		assertEquals(List.of(mid, low), island0, "Island solutions should be ordered best first");
+		assertEquals(List.of(other, mid, low), repo.findAll());
+		assertEquals(List.of(other, mid), repo.getArchive());
+		assertThrows(UnsupportedOperationException.class, () -> island0.add(low));
+		assertThrows(UnsupportedOperationException.class, () -> repo.findAll().clear());
+
+		var high = makeSolution(3.0, 0);
+		repo.save(high);
+		assertEquals(List.of(high, mid, low), repo.findByIslandId(0));
+		assertEquals(List.of(mid, low), island0, "Previously returned lists must not change");
+		assertEquals(List.of(other, high), repo.getArchive());
+
+		repo.delete(mid.id());
+		assertEquals(List.of(high, low), repo.findByIslandId(0));
+		assertEquals(List.of(other, high, low), repo.findAll());
+	}
+
+	@Test
+	@DisplayName("Test eviction removes the worst solution other than the newest")
+	public void testEvictionOrder() {
+		Repository<String> repo = createRepository(standardComparator, 3, 2, 1);
+
+		var s5 = makeSolution(5.0, 0);
+		var s4 = makeSolution(4.0, 0);
+		var s3 = makeSolution(3.0, 0);
+		var s2 = makeSolution(2.0, 0);
+		var s1 = makeSolution(1.0, 0);
+		for (var s : List.of(s5, s4, s3, s2, s1)) {
+			repo.save(s);
+		}
+
+		// the newest solution is protected even when it is the worst
+		assertEquals(List.of(s5, s4, s1), repo.findAll());
+		assertEquals(3, repo.countByIslandId(0));
+		assertEquals(List.of(s5, s4), repo.getArchive());
+
+		var s6 = makeSolution(6.0, 0);
+		repo.save(s6);
+		assertEquals(List.of(s6, s5, s4), repo.findAll());
+		assertEquals(List.of(s6, s5), repo.getArchive());
+		assertNull(repo.findById(s1.id()));
+	}
+
+	@Test
+	@DisplayName("Test change listener sees saves, deletes and evictions")
+	public void testChangeListener() {
+		Repository<String> repo = createRepository(standardComparator, 2, 2, 1);
+		var events = new ArrayList<String>();
+		repo.addChangeListener(new Repository.ChangeListener<>() {
+			@Override
+			public void onSaved(Repository.Solution<String> solution) {
+				events.add("saved " + solution.fitness().get("fitness"));
+			}
+
+			@Override
+			public void onDeleted(Repository.Solution<String> solution) {
+				events.add("deleted " + solution.fitness().get("fitness"));
+			}
+		});
+
+		var s3 = makeSolution(3.0, 0);
+		repo.save(s3);
+		repo.save(makeSolution(2.0, 0));
+		// evicts 2.0, the worst solution other than the newest and the best
+		repo.save(makeSolution(1.0, 0));
+		repo.delete(s3.id());
+		// unknown ids are not reported
+		repo.delete(UUID.randomUUID());
+
+		assertEquals(List.of("saved 3.0", "saved 2.0", "saved 1.0", "deleted 2.0", "deleted 3.0"),
+				events);
+	}
 }
@@ -0,0 +1,116 @@
+package openevolve.unit.mapelites;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import openevolve.Constants;
+import openevolve.mapelites.EvaluationCache;
+import org.junit.jupiter.api.DisplayName;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("EvaluationCache Unit Tests")
+public class EvaluationCacheTest {
+
+	@TempDir
+	Path tempDir;
+
+	private final List<String> evaluated = new ArrayList<>();
+
+	private final Function<String, Map<String, Object>> fitness = s -> {
+		evaluated.add(s);
+		Map<String, Object> metrics = new HashMap<>();
+		metrics.put("length", s.length());
+		if (s.startsWith("fail")) {
+			metrics.put("error", "boom");
+		}
+		return metrics;
+	};
+
+	private EvaluationCache<String> cache(int maxEntries, Path path) {
+		return new EvaluationCache<>(Function.identity(), maxEntries,
+				metrics -> !metrics.containsKey("error"), path, Constants.OBJECT_MAPPER);
+	}
+
+	@Test
+	@DisplayName("Test identical candidates are evaluated once")
+	public void testHitsAndMisses() {
+		var cache = cache(10, null);
+
+		var first = cache.evaluate("abc", fitness);
+		var second = cache.evaluate("abc", fitness);
+		cache.evaluate("de", fitness);
+
+		assertFalse(first.hit());
+		assertTrue(second.hit());
+		assertEquals(first.fitness(), second.fitness());
+		assertEquals(List.of("abc", "de"), evaluated);
+		assertEquals(new EvaluationCache.Stats(1, 2, 2), cache.stats());
+		assertEquals(1.0 / 3, cache.stats().hitRate(), 1e-12);
+	}
+
+	@Test
+	@DisplayName("Test least recently used entries are evicted first")
+	public void testLruEviction() {
+		var cache = cache(2, null);
+		cache.evaluate("a", fitness);
+		cache.evaluate("b", fitness);
+		// touching a makes b the eldest
+		cache.evaluate("a", fitness);
+		cache.evaluate("c", fitness);
+
+		assertTrue(cache.evaluate("a", fitness).hit());
+		assertFalse(cache.evaluate("b", fitness).hit());
+		assertEquals(2, cache.stats().size());
+	}
+
+	@Test
+	@DisplayName("Test results rejected by the predicate are evaluated again")
+	public void testUncacheableResults() {
+		var cache = cache(10, null);
+		cache.evaluate("fail", fitness);
+		cache.evaluate("fail", fitness);
+
+		assertEquals(List.of("fail", "fail"), evaluated);
+		assertEquals(0, cache.stats().size());
+	}
+
+	@Test
+	@DisplayName("Test persisted entries survive a restart and the file is compacted")
+	public void testPersistence() throws Exception {
+		var file = tempDir.resolve("cache").resolve("evaluations.jsonl");
+		var cache = cache(3, file);
+		for (var candidate : List.of("a", "bb", "ccc", "dddd", "a", "eeeee", "ffffff", "g")) {
+			cache.evaluate(candidate, fitness);
+		}
+		// a was re-evaluated after eviction, so seven lines would exceed 2 * 3
+		assertTrue(Files.readAllLines(file).size() <= 6);
+
+		Files.writeString(file, "{\"key\":\"torn", StandardOpenOption.APPEND);
+		evaluated.clear();
+		var restarted = cache(3, file);
+		assertEquals(3, restarted.stats().size());
+		var lookup = restarted.evaluate("ffffff", fitness);
+		assertTrue(lookup.hit());
+		assertEquals(6, ((Number) lookup.fitness().get("length")).intValue());
+		assertTrue(restarted.evaluate("g", fitness).hit());
+		assertFalse(restarted.evaluate("a", fitness).hit());
+		assertEquals(List.of("a"), evaluated);
+	}
+
+	@Test
+	@DisplayName("Test constructor validation")
+	public void testValidation() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new EvaluationCache<String>(Function.identity(), 0));
+		assertThrows(NullPointerException.class, () -> new EvaluationCache<String>(
+				Function.identity(), 1, _ -> true, tempDir.resolve("x"), null));
+	}
+}
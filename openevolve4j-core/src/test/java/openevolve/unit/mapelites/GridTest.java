@@ -0,0 +1,86 @@
+package openevolve.unit.mapelites;
+
+import org.junit.jupiter.api.Test;
+import openevolve.mapelites.CellIndex;
+import openevolve.mapelites.Grid;
+import openevolve.mapelites.Repository;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Grid Unit Tests")
+public class GridTest {
+
+	@Test
+	@DisplayName("Test dense grid stores and updates cells")
+	public void testDenseGrid() {
+		var grid = new Grid(2, 10);
+		long index = grid.index(new int[] {3, 7});
+		assertEquals(73, index);
+		assertEquals(-1, grid.find(index));
+
+		var id = UUID.randomUUID();
+		int slot = grid.put(index, 1, 0.5, 4, id);
+		assertEquals(slot, grid.find(index));
+		assertEquals(id, grid.solutionId(slot));
+
+		grid.put(index, 2, 0.5, 4, id);
+		assertEquals(1, grid.size());
+		var cell = grid.cell(slot);
+		assertArrayEquals(new int[] {3, 7}, cell.coords());
+		assertEquals(2, cell.trials());
+		assertEquals(4, cell.improveIter());
+		assertEquals("3-7", cell.key());
+	}
+
+	@Test
+	@DisplayName("Test sparse grid matches a map of string keys")
+	public void testSparseGridMatchesMap() {
+		// 20^6 cells, far above the dense limit
+		var grid = new Grid(6, 20);
+		var expected = new HashMap<String, UUID>();
+		var random = new Random(11);
+		for (int i = 0; i < 5000; i++) {
+			var coords = new int[6];
+			for (int k = 0; k < coords.length; k++) {
+				coords[k] = random.nextInt(20);
+			}
+			var id = UUID.randomUUID();
+			grid.put(grid.index(coords), 1, 0.0, i, id);
+			expected.put(Repository.Solution.cellToKey(coords), id);
+		}
+
+		assertEquals(expected.size(), grid.size());
+		var cells = grid.toMap();
+		assertEquals(expected.keySet(), cells.keySet());
+		expected.forEach((key, id) -> assertEquals(id, cells.get(key).solutionId()));
+	}
+
+	@Test
+	@DisplayName("Test cells outside the grid are rejected")
+	public void testOutOfRange() {
+		var grid = new Grid(2, 5);
+		assertThrows(IllegalArgumentException.class, () -> grid.index(new int[] {5, 0}));
+		assertThrows(IllegalArgumentException.class, () -> grid.index(new int[] {1}));
+		assertEquals(-1, Grid.pack(new int[] {-1, 0}, 5));
+		assertThrows(IllegalArgumentException.class, () -> new Grid(40, 100));
+	}
+
+	@Test
+	@DisplayName("Test cell index grows past its initial capacity")
+	public void testCellIndex() {
+		var index = new CellIndex(2);
+		for (int i = 0; i < 1000; i++) {
+			index.put(i * 7919L, i);
+		}
+		index.put(0, 42);
+		assertEquals(1000, index.size());
+		assertEquals(42, index.get(0));
+		assertEquals(999, index.get(999 * 7919L));
+		assertEquals(-1, index.get(1));
+		assertEquals(-1, index.get(-1));
+	}
+}
@@ -0,0 +1,130 @@
+package openevolve.unit.mapelites;
+
+import org.junit.jupiter.api.Test;
+import openevolve.mapelites.Repository;
+import openevolve.mapelites.listener.HypervolumeListener;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("HypervolumeListener Unit Tests")
+public class HypervolumeListenerTest {
+
+	private Repository.Solution<String> sol(double... objectives) {
+		Map<String, Object> fitness = new HashMap<>();
+		fitness.put("objs", objectives);
+		return new Repository.Solution<>(UUID.randomUUID(), "s", null, fitness, 0, 0, new int[] {0});
+	}
+
+	private HypervolumeListener<String> listener(boolean[] maximize, double[] reference) {
+		return new HypervolumeListener<>(maximize, s -> (double[]) s.fitness().get("objs"),
+				reference, 200_000, new Random(1));
+	}
+
+	/**
+	 * Inclusion-exclusion over all subsets of minimized points, only viable for small sets.
+	 */
+	private double bruteForce(List<double[]> points, double[] reference) {
+		double total = 0.0;
+		int n = points.size();
+		for (int mask = 1; mask < (1 << n); mask++) {
+			double volume = 1.0;
+			for (int k = 0; k < reference.length; k++) {
+				double corner = Double.NEGATIVE_INFINITY;
+				for (int i = 0; i < n; i++) {
+					if ((mask & (1 << i)) != 0) {
+						corner = Math.max(corner, points.get(i)[k]);
+					}
+				}
+				volume *= Math.max(0.0, reference[k] - corner);
+			}
+			total += Integer.bitCount(mask) % 2 == 1 ? volume : -volume;
+		}
+		return total;
+	}
+
+	@Test
+	@DisplayName("Test two objective staircase values")
+	public void testTwoObjectives() {
+		var hv = listener(new boolean[] {false, false}, new double[] {4.0, 4.0});
+
+		assertEquals(6.0, hv.offer(sol(1.0, 2.0)), 1e-12);
+		assertEquals(2.0, hv.offer(sol(2.0, 1.0)), 1e-12);
+		// dominated and out-of-reference points add nothing
+		assertEquals(0.0, hv.offer(sol(3.0, 3.0)), 1e-12);
+		assertEquals(0.0, hv.offer(sol(5.0, 0.0)), 1e-12);
+		// dominates both previous points
+		assertEquals(8.0, hv.offer(sol(0.0, 0.0)), 1e-12);
+		assertEquals(16.0, hv.hypervolume(), 1e-12);
+	}
+
+	@Test
+	@DisplayName("Test maximized objectives use the mirrored reference point")
+	public void testMaximizedObjectives() {
+		var hv = listener(new boolean[] {true, false}, new double[] {0.0, 4.0});
+
+		hv.offer(sol(2.0, 1.0));
+		assertEquals(6.0, hv.hypervolume(), 1e-12);
+		assertTrue(hv.reaches(6.0).test(null));
+		assertFalse(hv.reaches(6.5).test(null));
+	}
+
+	@Test
+	@DisplayName("Test exact values match inclusion-exclusion for two and three objectives")
+	public void testExactMatchesBruteForce() {
+		var random = new Random(3);
+		for (int m = 2; m <= 3; m++) {
+			for (int round = 0; round < 20; round++) {
+				var reference = new double[m];
+				Arrays.fill(reference, 1.0);
+				var hv = listener(new boolean[m], reference);
+				var points = new ArrayList<double[]>();
+				for (int i = 0; i < 10; i++) {
+					var point = new double[m];
+					for (int k = 0; k < m; k++) {
+						point[k] = random.nextInt(8) / 8.0;
+					}
+					points.add(point);
+					hv.offer(sol(point.clone()));
+					assertEquals(bruteForce(points, reference), hv.hypervolume(), 1e-9,
+							"m=" + m + " after " + points.size() + " points");
+				}
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("Test Monte Carlo estimate for four objectives")
+	public void testMonteCarloEstimate() {
+		var random = new Random(5);
+		var reference = new double[] {1.0, 1.0, 1.0, 1.0};
+		var hv = listener(new boolean[4], reference);
+		var points = new ArrayList<double[]>();
+		for (int i = 0; i < 8; i++) {
+			var point = new double[4];
+			for (int k = 0; k < 4; k++) {
+				point[k] = random.nextDouble();
+			}
+			points.add(point);
+			hv.offer(sol(point.clone()));
+		}
+		double exact = bruteForce(points, reference);
+		assertEquals(exact, hv.hypervolume(), exact * 0.05);
+	}
+
+	@Test
+	@DisplayName("Test constructor validation")
+	public void testValidation() {
+		assertThrows(IllegalArgumentException.class,
+				() -> listener(new boolean[] {false, false}, new double[] {1.0}));
+		var hv = listener(new boolean[] {false, false}, new double[] {1.0, 1.0});
+		assertThrows(IllegalArgumentException.class, () -> hv.offer(sol(0.5)));
+	}
+}
@@ -8,6 +8,8 @@ import org.junit.jupiter.api.DisplayName;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import static org.junit.jupiter.api.Assertions.*;
 
 @DisplayName("ParetoComparator Unit Tests")
@@ -125,4 +127,29 @@ public class ParetoComparatorTest {
         assertDoesNotThrow(() -> cmp.compare(withInf, normal));
         assertDoesNotThrow(() -> cmp.dominates(normal, withInf));
     }
+
+    @Test
+    @DisplayName("Test objective vectors are extracted once per solution and extractor")
+    public void testObjectivesAreCached() {
+        boolean[] maximize = new boolean[]{true, true};
+        var calls = new AtomicInteger();
+        Function<Repository.Solution<String>, double[]> extractor = s -> {
+            calls.incrementAndGet();
+            return (double[]) s.fitness().get("objs");
+        };
+        ParetoComparator<String> cmp = new ParetoComparator<>(maximize, extractor);
+
+        var a = sol(new double[]{2.0, 1.0});
+        var b = sol(new double[]{1.0, 2.0});
+        cmp.compare(a, b);
+        cmp.compare(b, a);
+        cmp.dominates(a, b);
+        assertEquals(2, calls.get());
+
+        // a different extractor must not see values cached for the first one
+        ParetoComparator<String> negated = new ParetoComparator<>(maximize,
+                s -> new double[]{-((double[]) s.fitness().get("objs"))[0], 0.0});
+        assertTrue(cmp.compare(a, b) > 0);
+        assertTrue(negated.compare(a, b) < 0);
+    }
 }
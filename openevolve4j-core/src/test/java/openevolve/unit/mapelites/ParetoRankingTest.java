@@ -0,0 +1,152 @@
+package openevolve.unit.mapelites;
+
+import org.junit.jupiter.api.Test;
+import openevolve.mapelites.DefaultRepository;
+import openevolve.mapelites.ParetoComparator;
+import openevolve.mapelites.ParetoRanking;
+import openevolve.mapelites.Repository;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ParetoRanking Unit Tests")
+public class ParetoRankingTest {
+
+	private Repository.Solution<String> sol(double... objectives) {
+		Map<String, Object> fitness = new HashMap<>();
+		fitness.put("objs", objectives);
+		return new Repository.Solution<>(UUID.randomUUID(), "s", null, fitness, 0, 0, new int[] {0});
+	}
+
+	private ParetoComparator<String> comparator(boolean... maximize) {
+		return new ParetoComparator<>(maximize, s -> (double[]) s.fitness().get("objs"));
+	}
+
+	@Test
+	@DisplayName("Test solutions are sorted into Pareto fronts")
+	public void testFronts() {
+		var ranking = new ParetoRanking<>(comparator(true, true));
+		var a = sol(3.0, 1.0);
+		var b = sol(2.0, 2.0);
+		var c = sol(1.0, 3.0);
+		var d = sol(1.0, 1.0);
+		var e = sol(2.0, 1.0);
+		var f = sol(0.0, 0.0);
+
+		var ranked = ranking.rank(List.of(f, e, d, c, b, a));
+
+		assertEquals(4, ranked.fronts().size());
+		assertEquals(0, ranked.front(a));
+		assertEquals(0, ranked.front(b));
+		assertEquals(0, ranked.front(c));
+		assertEquals(1, ranked.front(e));
+		assertEquals(2, ranked.front(d));
+		assertEquals(3, ranked.front(f));
+		// b is the interior point of the first front, so it comes after both extremes
+		assertEquals(List.of(b, e, d, f), ranked.ordered().subList(2, 6));
+	}
+
+	@Test
+	@DisplayName("Test boundary solutions get infinite crowding distance")
+	public void testCrowdingDistance() {
+		var ranking = new ParetoRanking<>(comparator(true, false));
+		// maximize first, minimize second: all four are mutually non-dominated
+		var a = sol(0.0, 0.0);
+		var b = sol(1.0, 1.0);
+		var c = sol(3.0, 3.0);
+		var d = sol(4.0, 4.0);
+
+		var ranked = ranking.rank(List.of(a, b, c, d));
+
+		assertEquals(1, ranked.fronts().size());
+		assertEquals(Double.POSITIVE_INFINITY, ranked.crowding(a));
+		assertEquals(Double.POSITIVE_INFINITY, ranked.crowding(d));
+		assertEquals(1.5, ranked.crowding(b), 1e-9);
+		assertEquals(1.5, ranked.crowding(c), 1e-9);
+		assertTrue(ranked.compare(a, b) > 0);
+		assertEquals(Set.of(a, d), Set.copyOf(ranked.ordered().subList(0, 2)));
+	}
+
+	@Test
+	@DisplayName("Test fronts match the naive non-dominated sort")
+	public void testMatchesNaiveSort() {
+		var random = new Random(7);
+		for (int objectives = 2; objectives <= 5; objectives++) {
+			var maximize = new boolean[objectives];
+			for (int k = 0; k < objectives; k++) {
+				maximize[k] = random.nextBoolean();
+			}
+			var cmp = comparator(maximize);
+			var solutions = new ArrayList<Repository.Solution<String>>();
+			for (int i = 0; i < 300; i++) {
+				var values = new double[objectives];
+				for (int k = 0; k < objectives; k++) {
+					// coarse values produce duplicates and ties
+					values[k] = random.nextInt(6);
+				}
+				solutions.add(sol(values));
+			}
+
+			var ranked = new ParetoRanking<>(cmp).rank(solutions);
+
+			var remaining = new ArrayList<>(solutions);
+			int front = 0;
+			while (!remaining.isEmpty()) {
+				var current = remaining.stream()
+						.filter(s -> remaining.stream().noneMatch(o -> cmp.dominates(o, s)))
+						.toList();
+				for (var s : current) {
+					assertEquals(front, ranked.front(s), "front mismatch with " + objectives + " objectives");
+				}
+				remaining.removeAll(current);
+				front++;
+			}
+			assertEquals(front, ranked.fronts().size());
+		}
+	}
+
+	@Test
+	@DisplayName("Test ranked eviction keeps the non-dominated front spread")
+	public void testRankedEviction() {
+		var cmp = comparator(true, true);
+		var repo = new DefaultRepository<>(cmp, 4, 2, 1, new ParetoRanking<>(cmp));
+		var a = sol(4.0, 0.0);
+		var b = sol(0.0, 4.0);
+		var c = sol(2.0, 2.0);
+		var d = sol(2.1, 1.9);
+		var e = sol(1.0, 1.0);
+		var f = sol(3.0, 3.0);
+
+		for (var s : List.of(e, a, b, c, d)) {
+			repo.save(s);
+		}
+		// the dominated solution goes first
+		assertEquals(4, repo.count());
+		assertNull(repo.findById(e.id()));
+
+		repo.save(f);
+		// f dominates c and d, which leaves them as the last front; one of them is evicted
+		assertEquals(4, repo.count());
+		assertNotNull(repo.findById(a.id()));
+		assertNotNull(repo.findById(b.id()));
+		assertNotNull(repo.findById(f.id()));
+		assertTrue(repo.findById(c.id()) == null ^ repo.findById(d.id()) == null);
+	}
+
+	@Test
+	@DisplayName("Test ranking rejects mismatched objective counts and unknown solutions")
+	public void testValidation() {
+		var ranking = new ParetoRanking<>(comparator(true, true));
+		assertThrows(IllegalArgumentException.class, () -> ranking.rank(List.of(sol(1.0))));
+		var ranked = ranking.rank(List.of(sol(1.0, 1.0)));
+		assertThrows(IllegalArgumentException.class, () -> ranked.front(sol(1.0, 1.0)));
+		assertTrue(ranking.rank(List.of()).fronts().isEmpty());
+	}
+}
@@ -0,0 +1,141 @@
+package openevolve.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import openevolve.Constants;
+import openevolve.util.BashExecutor.Limits;
+import openevolve.util.BashExecutor.Streaming;
+
+/**
+ * Tests for the streaming mode, process tree handling and limits of openevolve.util.BashExecutor
+ */
+public class BashExecutorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path script(String body) throws Exception {
+        var script = tempDir.resolve("runner.sh");
+        Files.writeString(script, "#!/bin/bash\n" + body);
+        return script;
+    }
+
+    private BashExecutor.ExecResult run(Path script, Duration timeout, Streaming streaming) throws Exception {
+        return BashExecutor.runScript(script, List.of(), timeout, tempDir, Map.of(),
+            StandardCharsets.UTF_8, Constants.OBJECT_MAPPER, List.of("score"), streaming);
+    }
+
+    @Test
+    void testMetricsAreFoundInChattyOutputWithBoundedTail() throws Exception {
+        var script = script("""
+            for i in $(seq 1 20000); do echo "log line $i with {not json"; done
+            echo '{"other": 1}'
+            echo '{"score": 0.75, "combined_score": 0.75}'
+            for i in $(seq 1 1000); do echo "after $i"; done
+            echo "stderr noise" >&2
+            """);
+
+        var result = run(script, Duration.ofSeconds(30), new Streaming(1024, false));
+
+        assertEquals(0, result.exitCode());
+        assertFalse(result.stoppedEarly());
+        assertTrue(result.stdout().length() <= 1024, "Only the tail of stdout is kept");
+        assertTrue(result.stdout().endsWith("after 1000\n"));
+        assertEquals("stderr noise\n", result.stderr());
+        var metrics = result.extractMetrics(Constants.OBJECT_MAPPER, List.of("score"));
+        assertEquals(0.75, ((Number) metrics.get("score")).doubleValue());
+    }
+
+    @Test
+    void testStopOnMetricsKillsTheScript() throws Exception {
+        var script = script("""
+            echo '{"score": 1.0}'
+            sleep 30
+            """);
+
+        var result = run(script, Duration.ofSeconds(20), new Streaming(1024, true));
+
+        assertTrue(result.stoppedEarly());
+        assertFalse(result.timedOut());
+        assertTrue(result.duration().compareTo(Duration.ofSeconds(10)) < 0);
+        assertEquals(1.0, ((Number) result.extractMetrics(Constants.OBJECT_MAPPER, List.of("score"))
+            .get("score")).doubleValue());
+    }
+
+    @Test
+    void testFailureReportsStderrTail() throws Exception {
+        var script = script("""
+            echo '{"score": 1.0}'
+            echo "fatal" >&2
+            exit 3
+            """);
+
+        var result = run(script, Duration.ofSeconds(20), new Streaming(1024, false));
+
+        assertEquals(3, result.exitCode());
+        var metrics = result.extractMetrics(Constants.OBJECT_MAPPER, List.of("score"));
+        assertEquals("fatal\n", metrics.get("error"));
+    }
+
+    private BashExecutor.ExecResult run(Path script, Duration timeout, Limits limits) throws Exception {
+        return BashExecutor.runScript(script, List.of(), timeout, tempDir, Map.of(),
+            StandardCharsets.UTF_8, Constants.OBJECT_MAPPER, List.of("score"), null, limits);
+    }
+
+    @Test
+    void testTimeoutKillsGrandchildren() throws Exception {
+        var script = script("""
+            bash -c 'sleep 2; echo survived > survived.txt' &
+            wait
+            """);
+
+        var result = run(script, Duration.ofMillis(500), Limits.NONE);
+
+        assertTrue(result.timedOut());
+        Thread.sleep(2500);
+        assertFalse(Files.exists(tempDir.resolve("survived.txt")), "Grandchild must be killed");
+    }
+
+    @Test
+    void testLimitsAreApplied() throws Exception {
+        var script = script("""
+            echo "{\\"score\\": $(ulimit -n)}"
+            while :; do :; done
+            """);
+
+        var result = run(script, Duration.ofSeconds(30), new Limits(Duration.ofSeconds(1), null, 32));
+
+        assertFalse(result.timedOut(), "The CPU limit must stop the loop before the timeout");
+        assertNotEquals(0, result.exitCode());
+        assertTrue(result.stdout().contains("\"score\": 32"), result.stdout());
+        assertNotNull(result.cpuTime());
+        assertTrue(result.cpuTime().compareTo(Duration.ofMillis(500)) >= 0, String.valueOf(result.cpuTime()));
+    }
+
+    @Test
+    void testUsageIsReported() throws Exception {
+        var script = script("""
+            data=$(head -c 30000000 /dev/zero | tr '\\0' 'a')
+            sleep 0.2
+            echo '{"score": 1.0}'
+            """);
+
+        var result = run(script, Duration.ofSeconds(30), Limits.NONE);
+
+        assertEquals(0, result.exitCode(), result.stderr());
+        assertNotNull(result.cpuTime());
+        if (Files.isDirectory(Path.of("/proc/self"))) {
+            assertTrue(result.peakRssBytes() > 30_000_000L, "Peak RSS was " + result.peakRssBytes());
+        }
+    }
+}
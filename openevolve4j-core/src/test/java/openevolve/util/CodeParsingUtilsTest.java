@@ -392,4 +392,121 @@ public class CodeParsingUtilsTest {
         CodeParsingUtils.EvolveBlock block = blocks.get(0);
         assertTrue(block.getContent().contains("def old_method(self):"));
     }
+
+    private static CodeParsingUtils.DiffStream feed(CodeParsingUtils.DiffStream stream,
+        String response) {
+        for (int i = 0; i < response.length(); i += 5) {
+            if (!stream.append(response.substring(i, Math.min(response.length(), i + 5)))) {
+                break;
+            }
+        }
+        return stream;
+    }
+
+    @Test
+    void testDiffStreamAcceptsMatchingBlocks() {
+        String parent = """
+        def f():
+            x = 1
+            return x
+        """;
+        String response = """
+        <<<<<<< SEARCH
+            x = 1
+        =======
+            x = 2
+        >>>>>>> REPLACE
+        <<<<<<< SEARCH
+            x = 2
+        =======
+            x = 3
+        >>>>>>> REPLACE
+        """;
+
+        var stream = feed(new CodeParsingUtils.DiffStream(parent, 0), response);
+
+        // the second block matches the code with the first applied
+        assertNull(stream.getReason());
+        assertEquals(2, stream.getBlocks());
+        assertEquals(response, stream.getContent());
+    }
+
+    @Test
+    void testDiffStreamAbandonsMismatchedSearch() {
+        String parent = """
+        def f():
+            x = 1
+            return x
+        """;
+        String response = """
+        <<<<<<< SEARCH
+            x = 1
+            return y
+            pass
+        =======
+            x = 2
+        >>>>>>> REPLACE
+        """;
+
+        var stream = feed(new CodeParsingUtils.DiffStream(parent, 0), response);
+
+        assertNotNull(stream.getReason());
+        assertTrue(stream.getContent().length() <= response.indexOf("pass"));
+        assertFalse(stream.append("more"));
+    }
+
+    @Test
+    void testDiffStreamEnforcesBudget() {
+        var stream = feed(new CodeParsingUtils.DiffStream(null, 12), "a".repeat(40));
+
+        assertNotNull(stream.getReason());
+        assertEquals(15, stream.getContent().length());
+    }
+
+    @Test
+    void testSplitProposals() {
+        String response = """
+        Two ideas:
+        ### Proposal 1
+        first
+        ### Proposal 2
+        second
+        """;
+
+        List<String> proposals = CodeParsingUtils.splitProposals(response);
+
+        assertEquals(2, proposals.size());
+        assertEquals("first", proposals.get(0).strip());
+        assertEquals("second", proposals.get(1).strip());
+        assertEquals(List.of("no headings"), CodeParsingUtils.splitProposals("no headings"));
+    }
+
+    @Test
+    void testDiffStreamRestartsAtEachProposal() {
+        String parent = """
+        x = 1
+        y = 2
+        """;
+        String response = """
+        ### Proposal 1
+        <<<<<<< SEARCH
+        x = 1
+        =======
+        x = 3
+        >>>>>>> REPLACE
+        ### Proposal 2
+        <<<<<<< SEARCH
+        x = 1
+        =======
+        x = 4
+        >>>>>>> REPLACE
+        """;
+
+        // the second proposal applies to the parent, not on top of the first
+        var stream = feed(new CodeParsingUtils.DiffStream(parent, 0, true), response);
+        assertNull(stream.getReason());
+        assertEquals(2, stream.getBlocks());
+
+        assertNotNull(feed(new CodeParsingUtils.DiffStream(parent, 0), response).getReason());
+    }
 }
@@ -0,0 +1,89 @@
+package openevolve.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import openevolve.Constants;
+
+/**
+ * Tests for openevolve.util.CpuScheduler
+ */
+public class CpuSchedulerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testParseCpuList() {
+        assertEquals(List.of(0, 1, 2, 3, 6, 8, 9), CpuScheduler.parseCpuList(" 0-3,6,8-9\n"));
+        assertFalse(CpuScheduler.availableCpus().isEmpty());
+    }
+
+    @Test
+    void testSlotsAreDisjointAndLimitConcurrency() throws Exception {
+        var scheduler = new CpuScheduler(List.of(0, 1, 2, 3, 4), 2, true);
+        assertEquals(2, scheduler.size());
+
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        var seen = Collections.synchronizedList(new ArrayList<List<Integer>>());
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<Object>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> scheduler.run(cpus -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    seen.add(cpus);
+                    Thread.sleep(50);
+                    running.decrementAndGet();
+                    return null;
+                })));
+            }
+            for (var future : futures) {
+                future.get();
+            }
+        }
+
+        assertEquals(2, maxRunning.get());
+        assertEquals(8, seen.size());
+        assertEquals(Set.of(List.of(0, 1), List.of(2, 3)), new HashSet<>(seen));
+    }
+
+    @Test
+    void testWithoutPinningTasksGetNoCpus() throws Exception {
+        var scheduler = new CpuScheduler(List.of(0, 1), 1, false);
+        assertNull(scheduler.run(cpus -> cpus));
+    }
+
+    @Test
+    void testRunnerIsPinned() throws Exception {
+        var cpus = CpuScheduler.availableCpus();
+        var scheduler = new CpuScheduler(cpus, 1);
+        assumeTrue(Files.isReadable(Path.of("/proc/self/status")));
+        var script = tempDir.resolve("runner.sh");
+        Files.writeString(script, "#!/bin/bash\ngrep Cpus_allowed_list /proc/self/status\n");
+
+        var result = scheduler.run(slot -> BashExecutor.runScript(script, List.of(),
+            Duration.ofSeconds(10), tempDir, Map.of(), StandardCharsets.UTF_8, Constants.OBJECT_MAPPER,
+            List.of("score"), null, BashExecutor.Limits.NONE.withCpus(slot != null ? slot : cpus)));
+
+        assumeTrue(result.exitCode() == 0, "taskset is not installed");
+        assertTrue(result.stdout().trim().endsWith("\t" + cpus.get(0)), result.stdout());
+    }
+}
@@ -0,0 +1,108 @@
+package openevolve.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import openevolve.Constants;
+import openevolve.util.RepeatedMeasurement.Aggregate;
+
+/**
+ * Tests for openevolve.util.RepeatedMeasurement
+ */
+public class RepeatedMeasurementTest {
+
+    private static RepeatedMeasurement.Run runs(AtomicInteger count, double... scores) {
+        return _ -> Map.of("score", scores[count.getAndIncrement()], "name", "run");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> measurement(Map<String, Object> result) {
+        return (Map<String, Object>) result.get(RepeatedMeasurement.MEASUREMENT);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStableRunsStopAtMinimum() throws Exception {
+        var count = new AtomicInteger();
+        var repeat = new RepeatedMeasurement(3, 10, Aggregate.MEDIAN, 0.2, 0.05, 0.02, 1);
+
+        var result = repeat.measure(runs(count, 1.0, 1.01, 0.99, 5.0), List.of("score"), null);
+
+        assertEquals(3, count.get());
+        assertEquals(1.0, result.get("score"));
+        assertEquals("run", result.get("name"));
+        assertEquals(3, measurement(result).get("runs"));
+        var variance = (Map<String, Object>) measurement(result).get("variance");
+        assertEquals(0.0001, (Double) variance.get("score"), 1e-9);
+    }
+
+    @Test
+    void testNoisyRunsAreRepeatedUpToMaximum() throws Exception {
+        var count = new AtomicInteger();
+        var repeat = new RepeatedMeasurement(2, 5, Aggregate.TRIMMED_MEAN, 0.2, 0.05, 0.02, 1);
+
+        var result = repeat.measure(runs(count, 1.0, 2.0, 10.0, 1.5, 1.2, 9.0), List.of("score"),
+            null);
+
+        assertEquals(5, count.get());
+        // sorted 1.0 1.2 1.5 2.0 10.0, one dropped at each end
+        assertEquals(1.5666, (Double) result.get("score"), 1e-3);
+    }
+
+    @Test
+    void testCandidatesCloseToIncumbentGetMoreRuns() throws Exception {
+        var repeat = new RepeatedMeasurement(3, 6, Aggregate.MEDIAN, 0.2, 0.05, 0.02, 3);
+        double[] scores = {1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0};
+
+        var far = new AtomicInteger();
+        repeat.measure(runs(far, scores), List.of("score"), _ -> Map.of("score", 2.0));
+        assertEquals(3, far.get());
+
+        var close = new AtomicInteger();
+        var result = repeat.measure(runs(close, scores), List.of("score"),
+            _ -> Map.of("score", 1.01));
+        assertEquals(6, close.get());
+        assertEquals(6, measurement(result).get("runs"));
+    }
+
+    @Test
+    void testConcurrentRunsUseDistinctSlots() throws Exception {
+        var repeat = new RepeatedMeasurement(5, 5, Aggregate.MEDIAN, 0.2, 0.05, 0.02, 2);
+        var busy = ConcurrentHashMap.<Integer>newKeySet();
+        var inFlight = new AtomicInteger();
+        var maxInFlight = new AtomicInteger();
+
+        var result = repeat.measure(slot -> {
+            assertTrue(slot >= 0 && slot < 2, "slot " + slot);
+            assertTrue(busy.add(slot), "slot " + slot + " is used by another run");
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            busy.remove(slot);
+            return Map.of("score", 1.0);
+        }, List.of("score"), null);
+
+        assertEquals(5, measurement(result).get("runs"));
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    void testFailedRunEndsMeasurement() throws Exception {
+        var count = new AtomicInteger();
+        var repeat = new RepeatedMeasurement(3, 5, Aggregate.MEDIAN, 0.2, 0.05, 0.02, 1);
+
+        var result = repeat.measure(_ -> {
+            count.incrementAndGet();
+            return Map.of(Constants.COMBINED_SCORE, 0.0, "error", "boom");
+        }, List.of("score"), null);
+
+        assertEquals(1, count.get());
+        assertEquals("boom", result.get("error"));
+    }
+}
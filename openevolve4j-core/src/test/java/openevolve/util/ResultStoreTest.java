@@ -0,0 +1,146 @@
+package openevolve.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for the on-disk openevolve.util.ResultStore
+ */
+public class ResultStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testPutGetAndReopen() throws Exception {
+        var dir = tempDir.resolve("store");
+        try (var store = new ResultStore(dir, 1 << 20)) {
+            assertNull(store.get("missing"));
+            store.put("a", bytes("{\"score\":1}"));
+            store.put("b", bytes("{\"score\":2}"));
+            store.put("a", bytes("{\"score\":3}"));
+
+            assertEquals("{\"score\":3}", string(store.get("a")));
+            assertEquals("{\"score\":2}", string(store.get("b")));
+            assertEquals(2, store.count());
+        }
+        try (var reopened = new ResultStore(dir, 1 << 20)) {
+            assertEquals("{\"score\":3}", string(reopened.get("a")));
+            assertEquals(2, reopened.count());
+        }
+    }
+
+    @Test
+    void testIndexGrows() throws Exception {
+        try (var store = new ResultStore(tempDir.resolve("store"), 1 << 24)) {
+            for (int i = 0; i < 3000; i++) {
+                store.put("key-" + i, bytes("value-" + i));
+            }
+            assertEquals(3000, store.count());
+            for (int i = 0; i < 3000; i += 7) {
+                assertEquals("value-" + i, string(store.get("key-" + i)));
+            }
+        }
+    }
+
+    @Test
+    void testCompactionKeepsNewestWithinCap() throws Exception {
+        var value = "x".repeat(100);
+        try (var store = new ResultStore(tempDir.resolve("store"), 8192)) {
+            for (int i = 0; i < 500; i++) {
+                store.put("key-" + i, bytes(value + i));
+                assertTrue(store.size() <= 8192, "Data file must stay under the cap");
+            }
+            assertEquals(value + 499, string(store.get("key-499")));
+            assertNull(store.get("key-0"), "Oldest entries are dropped by compaction");
+            assertTrue(store.count() < 500);
+        }
+        try (var files = Files.list(tempDir.resolve("store"))) {
+            assertEquals(1, files.filter(f -> f.getFileName().toString().startsWith("data-")).count(),
+                    "Old generations are removed");
+        }
+    }
+
+    @Test
+    void testTornRecordIsAMiss() throws Exception {
+        var dir = tempDir.resolve("store");
+        try (var store = new ResultStore(dir, 1 << 20)) {
+            store.put("a", bytes("value"));
+            // flip the last byte of the value
+            var data = dir.resolve("data-0.log");
+            var content = Files.readAllBytes(data);
+            content[content.length - 5] ^= 1;
+            Files.write(data, content);
+            assertNull(store.get("a"));
+        }
+    }
+
+    @Test
+    void testStoresShareADirectory() throws Exception {
+        var dir = tempDir.resolve("store");
+        try (var first = new ResultStore(dir, 4096); var second = new ResultStore(dir, 4096)) {
+            first.put("shared", bytes("from first"));
+            assertEquals("from first", string(second.get("shared")));
+            // the second store compacts, the first has to follow the new generation
+            for (int i = 0; i < 100; i++) {
+                second.put("key-" + i, bytes("y".repeat(50)));
+            }
+            assertEquals("y".repeat(50), string(first.get("key-99")));
+            first.put("after", bytes("compaction"));
+            assertEquals("compaction", string(second.get("after")));
+        }
+    }
+
+    @Test
+    void testAnotherJvmWrites() throws Exception {
+        var dir = tempDir.resolve("store");
+        try (var store = new ResultStore(dir, 1 << 20)) {
+            var command = new ArrayList<String>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(ResultStoreTest.class.getName());
+            command.add(dir.toString());
+            var process = new ProcessBuilder(command).inheritIO().start();
+            // read while the other JVM writes
+            while (process.isAlive()) {
+                var value = store.get("child-0");
+                assertTrue(value == null || string(value).equals("child value 0"));
+            }
+            assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+            assertEquals(0, process.exitValue());
+            for (int i = 0; i < 200; i++) {
+                assertEquals("child value " + i, string(store.get("child-" + i)));
+            }
+        }
+    }
+
+    /**
+     * Writer side of {@link #testAnotherJvmWrites()}.
+     */
+    public static void main(String[] args) throws Exception {
+        try (var store = new ResultStore(Path.of(args[0]), 1 << 20)) {
+            for (int i = 0; i < 200; i++) {
+                store.put("child-" + i, bytes("child value " + i));
+            }
+        }
+    }
+}
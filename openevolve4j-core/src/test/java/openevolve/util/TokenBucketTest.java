@@ -0,0 +1,43 @@
+package openevolve.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for openevolve.util.TokenBucket
+ */
+public class TokenBucketTest {
+
+    @Test
+    void testAcquireWaitsForRefill() throws Exception {
+        var bucket = new TokenBucket(60);
+        bucket.acquire(60);
+        assertFalse(bucket.tryAcquire(1));
+
+        long start = System.nanoTime();
+        bucket.acquire(1);
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(waitedMillis >= 800, "Waited " + waitedMillis + " ms for one unit at 1/s");
+    }
+
+    @Test
+    void testDebitAndRefund() {
+        var bucket = new TokenBucket(600);
+        bucket.debit(700);
+        assertTrue(bucket.available() < 0, "Usage known afterwards may leave the bucket in debt");
+        assertFalse(bucket.tryAcquire(1));
+
+        bucket.debit(-800);
+        assertTrue(bucket.tryAcquire(1));
+        assertTrue(bucket.available() <= 600);
+    }
+
+    @Test
+    void testAmountLargerThanBudgetIsAdmittedWhenFull() throws Exception {
+        var bucket = new TokenBucket(10);
+        bucket.acquire(100);
+        assertTrue(bucket.available() < 0);
+    }
+}
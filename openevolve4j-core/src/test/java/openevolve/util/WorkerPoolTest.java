@@ -0,0 +1,93 @@
+package openevolve.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import openevolve.Constants;
+
+/**
+ * Tests for openevolve.util.WorkerPool against a bash worker speaking the line protocol
+ */
+public class WorkerPoolTest {
+
+    private static final String WORKER = """
+        #!/bin/bash
+        [ "$1" = "--worker" ] || exit 2
+        while IFS= read -r line; do
+          id=$(echo "$line" | sed -E 's/.*"id":([0-9]+).*/\\1/')
+          path=$(echo "$line" | sed -nE 's/.*"path":"([^"]*)".*/\\1/p')
+          echo "log line that is not a reply"
+          case "$path" in
+            "") echo "{\\"id\\":$id}" ;;
+            */slow) sleep 5 ;;
+            */crash) exit 1 ;;
+            */broken) echo "{\\"id\\":$id,\\"error\\":\\"boom\\"}" ;;
+            *) echo "{\\"id\\":$id,\\"metrics\\":{\\"score\\":1.0,\\"pid\\":$$}}" ;;
+          esac
+        done
+        """;
+
+    @TempDir
+    Path tempDir;
+
+    private Path script;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        script = tempDir.resolve("worker.sh");
+        Files.writeString(script, WORKER);
+    }
+
+    private WorkerPool pool(int maxEvaluations) {
+        return new WorkerPool(script, tempDir, 1, maxEvaluations, Duration.ofMinutes(1),
+            Duration.ofSeconds(10), Constants.OBJECT_MAPPER);
+    }
+
+    private Object pid(WorkerPool pool, String dir) throws Exception {
+        var metrics = pool.evaluate(tempDir.resolve(dir), Duration.ofSeconds(10), List.of("score"));
+        assertEquals(1.0, ((Number) metrics.get("score")).doubleValue(), String.valueOf(metrics));
+        return metrics.get("pid");
+    }
+
+    @Test
+    void testWorkerIsReusedAndRecycled() throws Exception {
+        try (var pool = pool(2)) {
+            var first = pid(pool, "a");
+            assertEquals(first, pid(pool, "b"), "The warm worker is reused");
+            assertNotEquals(first, pid(pool, "c"), "The worker is recycled after max evaluations");
+        }
+    }
+
+    @Test
+    void testCrashAndTimeoutRestartWorker() throws Exception {
+        try (var pool = pool(100)) {
+            var first = pid(pool, "a");
+
+            var crashed = pool.evaluate(tempDir.resolve("crash"), Duration.ofSeconds(10), List.of("score"));
+            assertEquals("Worker exited unexpectedly", crashed.get("error"));
+            var second = pid(pool, "b");
+            assertNotEquals(first, second);
+
+            var slow = pool.evaluate(tempDir.resolve("slow"), Duration.ofMillis(200), List.of("score"));
+            assertEquals("Worker timed out", slow.get("error"));
+            assertNotEquals(second, pid(pool, "c"));
+        }
+    }
+
+    @Test
+    void testWorkerErrorIsReported() throws Exception {
+        try (var pool = pool(100)) {
+            var metrics = pool.evaluate(tempDir.resolve("broken"), Duration.ofSeconds(10), List.of("score"));
+            assertEquals("boom", metrics.get("error"));
+            assertEquals(0.0, metrics.get(Constants.COMBINED_SCORE));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package openevolve.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import openevolve.util.WorkspaceMaterializer.Strategy;
+
+/**
+ * Tests for openevolve.util.WorkspaceMaterializer
+ */
+public class WorkspaceMaterializerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path parent;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        parent = tempDir.resolve("parent");
+        Files.createDirectories(parent.resolve("sub"));
+        Files.writeString(parent.resolve("dataset.yaml"), "rows: [1, 2, 3]\n".repeat(1000));
+        Files.writeString(parent.resolve("main.py"), "print('parent')\n");
+        Files.writeString(parent.resolve("sub").resolve("helper.py"), "def helper(): pass\n");
+    }
+
+    private Map<Path, String> sources(Path target) {
+        return Map.of(
+            target.resolve("main.py"), "print('child')\n",
+            target.resolve("sub").resolve("helper.py"), "def helper(): pass\n",
+            target.resolve("new").resolve("extra.py"), "x = 1\n");
+    }
+
+    @Test
+    void testLinkOnlyWritesChangedSources() throws Exception {
+        var target = tempDir.resolve("child");
+        new WorkspaceMaterializer(Strategy.LINK).materialize(parent, target, sources(target));
+
+        assertTrue(Files.isSameFile(parent.resolve("dataset.yaml"), target.resolve("dataset.yaml")),
+            "Unchanged files are linked");
+        assertTrue(Files.isSameFile(parent.resolve("sub/helper.py"), target.resolve("sub/helper.py")),
+            "Sources equal to the parent are linked");
+        assertFalse(Files.isSameFile(parent.resolve("main.py"), target.resolve("main.py")));
+        assertEquals("print('child')\n", Files.readString(target.resolve("main.py")));
+        assertEquals("print('parent')\n", Files.readString(parent.resolve("main.py")));
+        assertEquals("x = 1\n", Files.readString(target.resolve("new/extra.py")));
+    }
+
+    @Test
+    void testLinkedFilesAreReplacedNotWrittenThrough() throws Exception {
+        var target = tempDir.resolve("child");
+        var materializer = new WorkspaceMaterializer(Strategy.LINK);
+        materializer.materialize(parent, target, Map.of());
+        assertTrue(Files.isSameFile(parent.resolve("main.py"), target.resolve("main.py")));
+
+        // materializing again into the same directory must not touch the parent through the link
+        materializer.materialize(parent, target, Map.of(target.resolve("main.py"), "changed\n"));
+        assertEquals("changed\n", Files.readString(target.resolve("main.py")));
+        assertEquals("print('parent')\n", Files.readString(parent.resolve("main.py")));
+    }
+
+    @Test
+    void testCopyKeepsIndependentFiles() throws Exception {
+        var target = tempDir.resolve("child");
+        new WorkspaceMaterializer(Strategy.COPY).materialize(parent, target, sources(target));
+
+        assertFalse(Files.isSameFile(parent.resolve("dataset.yaml"), target.resolve("dataset.yaml")));
+        assertEquals(Files.readString(parent.resolve("dataset.yaml")),
+            Files.readString(target.resolve("dataset.yaml")));
+        assertEquals("print('child')\n", Files.readString(target.resolve("main.py")));
+        assertEquals("def helper(): pass\n", Files.readString(target.resolve("sub/helper.py")));
+    }
+}